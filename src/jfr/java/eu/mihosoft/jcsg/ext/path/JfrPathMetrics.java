@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link PathMetrics} implementation that emits Java Flight Recorder events
+ * ({@code eu.mihosoft.jcsg.ext.path.Stage}). Events are only created if the
+ * event type is enabled in the active recording. Requires a JVM with JFR
+ * support (OpenJDK 8u262 or newer). Built separately from the main sources
+ * ({@code jfr} source set, {@code jfrJar} task).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class JfrPathMetrics implements PathMetrics {
+
+    private static final EventType EVENT_TYPE
+            = EventType.getEventType(StageEvent.class);
+
+    @Override
+    public void record(Stage stage, long durationNanos, long allocatedBytes, long count) {
+        if (!EVENT_TYPE.isEnabled()) {
+            return;
+        }
+
+        StageEvent event = new StageEvent();
+        event.stage = stage.name();
+        event.stageDuration = durationNanos;
+        event.allocatedBytes = allocatedBytes;
+        event.count = count;
+        event.commit();
+    }
+
+    @Name("eu.mihosoft.jcsg.ext.path.Stage")
+    @Label("Path Stage")
+    @Category({"JCSG", "Paths"})
+    @Description("Execution of a stage of the path pipeline")
+    @StackTrace(false)
+    static class StageEvent extends Event {
+
+        @Label("Stage")
+        String stage;
+
+        @Label("Stage Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long stageDuration;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Count")
+        @Description("Number of processed segments, samples, vertices or polygons")
+        long count;
+    }
+}
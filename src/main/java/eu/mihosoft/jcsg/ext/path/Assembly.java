@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.jcsg.Vertex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles several parts (e.g. created with {@link SVGPath} or
+ * {@link ExtrudeProfile}) to one CSG object. Parts whose bounding boxes do not
+ * overlap are provably disjoint. Their polygons are concatenated without
+ * performing CSG operations. Only clusters of overlapping parts are merged
+ * via {@link CSG#union(eu.mihosoft.jcsg.CSG)}, clusters are processed in
+ * parallel.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class Assembly {
+
+    private Assembly() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Assembles the specified parts.
+     *
+     * @param parts parts to assemble
+     * @return CSG object that contains all parts
+     */
+    public static CSG union(CSG... parts) {
+        return union(Arrays.asList(parts));
+    }
+
+    /**
+     * Assembles the specified parts.
+     *
+     * @param parts parts to assemble
+     * @return CSG object that contains all parts
+     */
+    public static CSG union(List<CSG> parts) {
+
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.CSG_ASSEMBLY);
+
+        List<List<CSG>> clusters = cluster(parts);
+
+        List<CSG> merged = clusters.parallelStream().map(cluster -> {
+            CSG result = cluster.get(0);
+            for (int i = 1; i < cluster.size(); i++) {
+                result = result.union(cluster.get(i));
+            }
+            return result;
+        }).collect(Collectors.toList());
+
+        List<Polygon> polygons = new ArrayList<>();
+        for (CSG csg : merged) {
+            polygons.addAll(csg.getPolygons());
+        }
+
+        timer.stop(polygons.size());
+
+        return CSG.fromPolygons(polygons);
+    }
+
+    /**
+     * Groups the specified parts into clusters of parts with overlapping
+     * bounding boxes (transitively). Boxes are indexed by sorting them along
+     * the x axis (sweep and prune). Clusters are ordered by their first part.
+     *
+     * @param parts parts to group
+     * @return clusters
+     */
+    static List<List<CSG>> cluster(List<CSG> parts) {
+        int n = parts.size();
+
+        // bounds: minX, minY, minZ, maxX, maxY, maxZ
+        double[][] bounds = new double[n][];
+        for (int i = 0; i < n; i++) {
+            bounds[i] = bounds(parts.get(i));
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> bounds[i][0]));
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+
+        // touching boxes are treated as overlapping (coplanar faces have to
+        // be merged by the union)
+        List<Integer> active = new ArrayList<>();
+        for (int i : order) {
+            double[] b = bounds[i];
+            active.removeIf(j -> bounds[j][3] < b[0]);
+            for (int j : active) {
+                double[] o = bounds[j];
+                if (b[1] <= o[4] && o[1] <= b[4] && b[2] <= o[5] && o[2] <= b[5]) {
+                    link(parent, i, j);
+                }
+            }
+            active.add(i);
+        }
+
+        List<List<CSG>> clusters = new ArrayList<>();
+        int[] clusterIndex = new int[n];
+        Arrays.fill(clusterIndex, -1);
+
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (clusterIndex[root] < 0) {
+                clusterIndex[root] = clusters.size();
+                clusters.add(new ArrayList<>());
+            }
+            clusters.get(clusterIndex[root]).add(parts.get(i));
+        }
+
+        return clusters;
+    }
+
+    private static double[] bounds(CSG csg) {
+        double[] b = {
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        for (Polygon p : csg.getPolygons()) {
+            for (Vertex v : p.vertices) {
+                b[0] = Math.min(b[0], v.pos.x());
+                b[1] = Math.min(b[1], v.pos.y());
+                b[2] = Math.min(b[2], v.pos.z());
+                b[3] = Math.max(b[3], v.pos.x());
+                b[4] = Math.max(b[4], v.pos.y());
+                b[5] = Math.max(b[5], v.pos.z());
+            }
+        }
+
+        return b;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void link(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+}
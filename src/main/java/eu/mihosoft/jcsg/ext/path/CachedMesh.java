@@ -0,0 +1,309 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.jcsg.Vertex;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mesh stored in the binary indexed format of {@link MeshCache}. The mesh
+ * data is accessed directly in the (memory-mapped) buffer, polygons are only
+ * created by {@link #toPolygons()} and {@link #toCSG()}.
+ *
+ * Format (little endian): header
+ * {@code (magic, version, vertexCount, polygonCount, indexCount, reserved)},
+ * vertices {@code (px, py, pz, nx, ny, nz)} as doubles, polygon offsets
+ * ({@code polygonCount + 1} ints) and vertex indices (ints).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class CachedMesh {
+
+    static final int MAGIC = 0x4A43504D; // "JCPM"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int VERTEX_SIZE = 6 * Double.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int vertexCount;
+    private final int polygonCount;
+    private final int indexCount;
+    private final int offsetsStart;
+    private final int indicesStart;
+
+    /**
+     * Constructor. Validates the header, the polygon offsets and the vertex
+     * indices, i.e., truncated or corrupt data is rejected here and not
+     * when polygons are created.
+     *
+     * @param buffer buffer that contains the mesh
+     * @throws IllegalArgumentException if the buffer does not contain a valid
+     * mesh
+     */
+    CachedMesh(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (this.buffer.capacity() < HEADER_SIZE
+                || this.buffer.getInt(0) != MAGIC
+                || this.buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Invalid mesh data!");
+        }
+
+        vertexCount = this.buffer.getInt(8);
+        polygonCount = this.buffer.getInt(12);
+        indexCount = this.buffer.getInt(16);
+
+        if (vertexCount < 0 || polygonCount < 0 || indexCount < 0) {
+            throw new IllegalArgumentException("Invalid mesh data!");
+        }
+
+        long offsets = HEADER_SIZE + (long) vertexCount * VERTEX_SIZE;
+        long indices = offsets + ((long) polygonCount + 1) * Integer.BYTES;
+
+        if (indices + (long) indexCount * Integer.BYTES
+                != this.buffer.capacity()) {
+            throw new IllegalArgumentException("Invalid mesh data!");
+        }
+
+        // fits into int, the buffer capacity is an int
+        offsetsStart = (int) offsets;
+        indicesStart = (int) indices;
+
+        int previous = this.buffer.getInt(offsetsStart);
+        if (previous != 0) {
+            throw new IllegalArgumentException("Invalid mesh data!");
+        }
+        for (int p = 1; p <= polygonCount; p++) {
+            int offset = this.buffer.getInt(offsetsStart + p * Integer.BYTES);
+            if (offset < previous || offset > indexCount) {
+                throw new IllegalArgumentException("Invalid mesh data!");
+            }
+            previous = offset;
+        }
+        if (previous != indexCount) {
+            throw new IllegalArgumentException("Invalid mesh data!");
+        }
+
+        for (int i = 0; i < indexCount; i++) {
+            int v = this.buffer.getInt(indicesStart + i * Integer.BYTES);
+            if (v < 0 || v >= vertexCount) {
+                throw new IllegalArgumentException("Invalid mesh data!");
+            }
+        }
+    }
+
+    /**
+     * Encodes the specified polygons. Vertices with equal position and normal
+     * are stored once.
+     *
+     * @param polygons polygons to encode
+     * @return encoded mesh (position = 0, limit = size)
+     * @throws IllegalArgumentException if the encoded mesh would exceed the
+     * maximum buffer size
+     */
+    static ByteBuffer encode(List<Polygon> polygons) {
+        Map<VertexKey, Integer> ids = new HashMap<>();
+        List<Vertex> vertices = new ArrayList<>();
+
+        int indexCount = 0;
+        for (Polygon p : polygons) {
+            indexCount += p.vertices.size();
+        }
+        int[] polygonIndices = new int[indexCount];
+
+        int i = 0;
+        for (Polygon p : polygons) {
+            for (Vertex v : p.vertices) {
+                Integer id = ids.putIfAbsent(new VertexKey(v), vertices.size());
+                if (id == null) {
+                    id = vertices.size();
+                    vertices.add(v);
+                }
+                polygonIndices[i++] = id;
+            }
+        }
+
+        long size = HEADER_SIZE + (long) vertices.size() * VERTEX_SIZE
+                + ((long) polygons.size() + 1) * Integer.BYTES
+                + (long) indexCount * Integer.BYTES;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Illegal mesh specified: encoded size " + size
+                    + " exceeds the maximum buffer size!");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(vertices.size())
+                .putInt(polygons.size()).putInt(indexCount).putInt(0);
+
+        for (Vertex v : vertices) {
+            buffer.putDouble(v.pos.x()).putDouble(v.pos.y()).putDouble(v.pos.z());
+            buffer.putDouble(v.normal.x()).putDouble(v.normal.y()).putDouble(v.normal.z());
+        }
+
+        int offset = 0;
+        buffer.putInt(offset);
+        for (Polygon p : polygons) {
+            offset += p.vertices.size();
+            buffer.putInt(offset);
+        }
+
+        for (int index : polygonIndices) {
+            buffer.putInt(index);
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Returns the number of (unique) vertices.
+     *
+     * @return number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the number of polygons.
+     *
+     * @return number of polygons
+     */
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    /**
+     * Returns the position of the specified vertex.
+     *
+     * @param vertex vertex index
+     * @return vertex position
+     */
+    public Vector3d getPosition(int vertex) {
+        int off = HEADER_SIZE + vertex * VERTEX_SIZE;
+        return Vector3d.xyz(buffer.getDouble(off),
+                buffer.getDouble(off + 8), buffer.getDouble(off + 16));
+    }
+
+    /**
+     * Returns the normal of the specified vertex.
+     *
+     * @param vertex vertex index
+     * @return vertex normal
+     */
+    public Vector3d getNormal(int vertex) {
+        int off = HEADER_SIZE + vertex * VERTEX_SIZE + 24;
+        return Vector3d.xyz(buffer.getDouble(off),
+                buffer.getDouble(off + 8), buffer.getDouble(off + 16));
+    }
+
+    /**
+     * Creates the polygons of this mesh. Each polygon receives its own vertex
+     * instances.
+     *
+     * @return polygons
+     */
+    public List<Polygon> toPolygons() {
+        Vector3d[] positions = new Vector3d[vertexCount];
+        Vector3d[] normals = new Vector3d[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            positions[i] = getPosition(i);
+            normals[i] = getNormal(i);
+        }
+
+        List<Polygon> polygons = new ArrayList<>(polygonCount);
+
+        for (int p = 0; p < polygonCount; p++) {
+            int start = buffer.getInt(offsetsStart + p * Integer.BYTES);
+            int end = buffer.getInt(offsetsStart + (p + 1) * Integer.BYTES);
+
+            List<Vertex> vertices = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                int v = buffer.getInt(indicesStart + i * Integer.BYTES);
+                vertices.add(new Vertex(positions[v], normals[v]));
+            }
+
+            polygons.add(new Polygon(vertices));
+        }
+
+        return polygons;
+    }
+
+    /**
+     * Creates a CSG object from this mesh.
+     *
+     * @return CSG object
+     */
+    public CSG toCSG() {
+        return CSG.fromPolygons(toPolygons());
+    }
+
+    private static final class VertexKey {
+
+        private final double px, py, pz, nx, ny, nz;
+
+        VertexKey(Vertex v) {
+            px = v.pos.x();
+            py = v.pos.y();
+            pz = v.pos.z();
+            nx = v.normal.x();
+            ny = v.normal.y();
+            nz = v.normal.z();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof VertexKey)) {
+                return false;
+            }
+            VertexKey o = (VertexKey) obj;
+            return Double.compare(px, o.px) == 0 && Double.compare(py, o.py) == 0
+                    && Double.compare(pz, o.pz) == 0 && Double.compare(nx, o.nx) == 0
+                    && Double.compare(ny, o.ny) == 0 && Double.compare(nz, o.nz) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = Double.doubleToLongBits(px);
+            h = h * 31 + Double.doubleToLongBits(py);
+            h = h * 31 + Double.doubleToLongBits(pz);
+            h = h * 31 + Double.doubleToLongBits(nx);
+            h = h * 31 + Double.doubleToLongBits(ny);
+            h = h * 31 + Double.doubleToLongBits(nz);
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -35,9 +35,10 @@ import eu.mihosoft.vvecmath.Transform;
 import eu.mihosoft.vvecmath.Vector3d;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 
 /**
  * Extrudes profiles along paths.
@@ -58,11 +59,7 @@ public final class ExtrudeProfile {
      * @return CSG object (extruded profile)
      */
     public static CSG alongPath(PathProfile profile, List<Vector3d> path) {
-        List<Segment> segments = path.stream().
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, true, true, null, segments);
+        return extrudeSegments(profile, true, true, null, path);
     }
 
     /**
@@ -73,11 +70,7 @@ public final class ExtrudeProfile {
      * @return CSG object (extruded profile)
      */
     public static CSG alongPath(PathProfile profile, Vector3d... path) {
-        List<Segment> segments = Stream.of(path).
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, true, true, null, segments);
+        return extrudeSegments(profile, true, true, null, Arrays.asList(path));
     }
 
     /**
@@ -90,11 +83,7 @@ public final class ExtrudeProfile {
      * @return list of polygons (extruded profile)
      */
     public static List<Polygon> alongPath(PathProfile profile, boolean bottom, boolean top, List<Vector3d> path) {
-        List<Segment> segments = path.stream().
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, bottom, top, null, segments).getPolygons();
+        return extrudeSegments(profile, bottom, top, null, path).getPolygons();
     }
 
     /**
@@ -107,11 +96,7 @@ public final class ExtrudeProfile {
      * @return list of polygons (extruded profile)
      */
     public static List<Polygon> alongPath(PathProfile profile, boolean bottom, boolean top, Vector3d... path) {
-        List<Segment> segments = Stream.of(path).
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, bottom, top, null, segments).getPolygons();
+        return extrudeSegments(profile, bottom, top, null, Arrays.asList(path)).getPolygons();
     }
 
     /**
@@ -123,11 +108,7 @@ public final class ExtrudeProfile {
      * @return CSG object (extruded profile)
      */
     public static CSG alongPath(PathProfile profile, Plane orientationPlane, List<Vector3d> path) {
-        List<Segment> segments = path.stream().
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, true, true, orientationPlane, segments);
+        return extrudeSegments(profile, true, true, orientationPlane, path);
     }
 
     /**
@@ -139,11 +120,7 @@ public final class ExtrudeProfile {
      * @return CSG object (extruded profile)
      */
     public static CSG alongPath(PathProfile profile, Plane orientationPlane, Vector3d... path) {
-        List<Segment> segments = Stream.of(path).
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, true, true, orientationPlane, segments);
+        return extrudeSegments(profile, true, true, orientationPlane, Arrays.asList(path));
     }
 
     /**
@@ -158,11 +135,7 @@ public final class ExtrudeProfile {
      */
     public static List<Polygon> alongPath(PathProfile profile, boolean bottom, boolean top,
                                           Plane orientationPlane, List<Vector3d> path) {
-        List<Segment> segments = path.stream().
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
-
-        return extrudeSegments(profile, bottom, top, orientationPlane, segments).getPolygons();
+        return extrudeSegments(profile, bottom, top, orientationPlane, path).getPolygons();
     }
 
     /**
@@ -177,27 +150,306 @@ public final class ExtrudeProfile {
      */
     public static List<Polygon> alongPath(PathProfile profile, boolean bottom, boolean top,
                                           Plane orientationPlane, Vector3d... path) {
-        List<Segment> segments = Stream.of(path).
-                map(p -> new Segment(p, profile)).
-                collect(Collectors.toList());
+        return extrudeSegments(profile, bottom, top, orientationPlane, Arrays.asList(path)).getPolygons();
+    }
+
+    /**
+     * Extrudes the specified profile along the given path and welds the
+     * resulting mesh. Consecutive path points closer than {@code weldEpsilon}
+     * are merged before extrusion. Vertices closer than {@code weldEpsilon}
+     * are welded and degenerate polygons are removed from the output (see
+     * {@link MeshWelder}).
+     *
+     * @param profile profile to extrude (profile expected in XY plane)
+     * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param weldEpsilon weld distance ({@code weldEpsilon > 0})
+     * @param path    path
+     * @return weld result (welded polygons and vertex/polygon counts)
+     */
+    public static WeldResult alongPath(PathProfile profile, Plane orientationPlane,
+                                       double weldEpsilon, List<Vector3d> path) {
+        return MeshWelder.weld(extrudeSegments(profile, true, true,
+                orientationPlane, removeCoincidentPoints(path, weldEpsilon)).getPolygons(),
+                weldEpsilon);
+    }
 
-        return extrudeSegments(profile, bottom, top, orientationPlane, segments).getPolygons();
+    /**
+     * Extrudes the specified profile along the given path and welds the
+     * resulting mesh. Consecutive path points closer than {@code weldEpsilon}
+     * are merged before extrusion. Vertices closer than {@code weldEpsilon}
+     * are welded and degenerate polygons are removed from the output (see
+     * {@link MeshWelder}).
+     *
+     * @param profile profile to extrude (profile expected in XY plane)
+     * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param weldEpsilon weld distance ({@code weldEpsilon > 0})
+     * @param path    path
+     * @return weld result (welded polygons and vertex/polygon counts)
+     */
+    public static WeldResult alongPath(PathProfile profile, Plane orientationPlane,
+                                       double weldEpsilon, Vector3d... path) {
+        return alongPath(profile, orientationPlane, weldEpsilon, Arrays.asList(path));
+    }
+
+    /**
+     * Removes consecutive path points that are closer than the specified
+     * distance. The last path point is always kept.
+     *
+     * @param path path
+     * @param epsilon minimum distance between consecutive points
+     * @return path without coincident points
+     */
+    private static List<Vector3d> removeCoincidentPoints(List<Vector3d> path, double epsilon) {
+        List<Vector3d> result = new ArrayList<>(path.size());
+        double epsilonSq = epsilon * epsilon;
+
+        for (Vector3d p : path) {
+            if (!result.isEmpty()
+                    && result.get(result.size() - 1).minus(p).magnitudeSq() <= epsilonSq) {
+                if (result.size() > 1) {
+                    // keep the later point (e.g. exact end point of a path)
+                    result.set(result.size() - 1, p);
+                }
+                continue;
+            }
+            result.add(p);
+        }
+
+        return result;
+    }
+
+    /**
+     * Extrudes the specified profile along the given path and emits the
+     * resulting polygons to the specified consumer in chunks of (at least)
+     * {@code chunkSize} polygons. Only the previous profile ring is kept in
+     * memory, i.e., arbitrarily long paths (e.g. generated lazily) can be
+     * processed in constant memory if the consumer does not retain the chunks
+     * (e.g. writes them to a file).
+     *
+     * @param profile profile to extrude (profile expected in XY plane)
+     * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param path    path (at least two points)
+     * @param chunkSize number of polygons per chunk ({@code chunkSize > 0})
+     * @param consumer receives the polygon chunks
+     */
+    public static void alongPath(PathProfile profile, Plane orientationPlane,
+                                 Iterable<Vector3d> path, int chunkSize,
+                                 Consumer<List<Polygon>> consumer) {
+        alongPath(profile, true, true, orientationPlane, path, chunkSize, consumer);
     }
 
     /**
-     * Extrudes the specified segments.
+     * Extrudes the specified profile along the given path and emits the
+     * resulting polygons to the specified consumer in chunks of (at least)
+     * {@code chunkSize} polygons. Only the previous profile ring is kept in
+     * memory, i.e., arbitrarily long paths (e.g. generated lazily) can be
+     * processed in constant memory if the consumer does not retain the chunks
+     * (e.g. writes them to a file).
+     *
+     * @param profile profile to extrude (profile expected in XY plane)
      * @param bottom  determines whether to close bottom segment
      * @param top     determines whether to close top segment
-     * @param segments segments to extrude
      * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param path    path (at least two points)
+     * @param chunkSize number of polygons per chunk ({@code chunkSize > 0})
+     * @param consumer receives the polygon chunks
+     */
+    public static void alongPath(PathProfile profile, boolean bottom, boolean top,
+                                 Plane orientationPlane, Iterable<Vector3d> path,
+                                 int chunkSize, Consumer<List<Polygon>> consumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Illegal chunk size specified: chunk size must be > 0!");
+        }
+
+        sweep(profile, bottom, top, orientationPlane, path.iterator(),
+                chunkSize, consumer);
+    }
+
+    /**
+     * Extrudes the specified profile along the given path and adds the
+     * resulting triangles to the specified off-heap mesh. Polygons are
+     * streamed to the mesh in chunks, i.e., the heap only holds the previous
+     * profile ring and one chunk.
+     *
+     * @param profile profile to extrude (profile expected in XY plane)
+     * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param path    path (at least two points)
+     * @param mesh    target mesh
+     */
+    public static void alongPath(PathProfile profile, Plane orientationPlane,
+                                 Iterable<Vector3d> path, OffHeapMesh mesh) {
+        alongPath(profile, true, true, orientationPlane, path, 1024, mesh);
+    }
+
+    /**
+     * Extrudes the specified profile along the given parametric path. The
+     * path is sampled adaptively by curvature (see
+     * {@link ParametricPaths#sample(eu.mihosoft.jcsg.ext.path.ParametricPath, double)}).
+     * Profile frames are computed from the analytic tangents of the path
+     * (rotation minimizing frames, double reflection method), i.e., tangents
+     * are not estimated from the sampled points (except where the path has
+     * zero speed, there the chord direction is used).
+     *
+     * @param profile profile to extrude (profile expected in XY plane)
+     * @param path    path
+     * @param maxError maximum distance between path and sampled path ({@code > 0})
+     * @return CSG object (extruded profile)
+     */
+    public static CSG alongPath(PathProfile profile, ParametricPath path,
+                                double maxError) {
+
+        Metrics.Timer sweepTimer = Metrics.start(PathMetrics.Stage.SWEEP);
+
+        double[] ts = ParametricPaths.sampleParameters(path, maxError);
+
+        // profile coordinates relative to the profile center
+        List<Vector3d> profilePoints = profile.getPoints();
+        Vector3d center = profile.getCenter();
+
+        Vector3d[] positions = new Vector3d[ts.length];
+        for (int i = 0; i < ts.length; i++) {
+            positions[i] = path.position(ts[i]);
+        }
+        Vector3d[] tangents = Frames.tangents(path, ts, positions);
+
+        // initial frame: rotate profile plane to the path tangent
+        Vector3d pos = positions[0];
+        Vector3d tangent = tangents[0];
+        Vector3d profileNormal
+                = Polygon.fromPoints(profilePoints).getPlane().getNormal();
+
+        Vector3d r = Vector3d.X_ONE;
+        Vector3d s = Vector3d.Y_ONE;
+        if (!profileNormal.equals(tangent)) {
+            Transform rot = Transform.unity().rot(profileNormal, tangent);
+            r = r.transformed(rot);
+            s = s.transformed(rot);
+        }
+
+        // orientation of the profile y axis relative to tangent x r
+        double handedness = Math.signum(tangent.crossed(r).dot(s));
+
+        List<Vector3d> ring = frameRing(profilePoints, center, pos, tangent, r, handedness);
+
+        List<Polygon> polygons = new ArrayList<>();
+
+        for (int i = 1; i < ts.length; i++) {
+            Vector3d nextPos = positions[i];
+            Vector3d nextTangent = tangents[i];
+
+            r = Frames.transport(pos, tangent, r, nextPos, nextTangent);
+
+            pos = nextPos;
+            tangent = nextTangent;
+
+            List<Vector3d> nextRing = frameRing(profilePoints, center, pos,
+                    tangent, r, handedness);
+
+            polygons.addAll(Extrude.combine(
+                    Polygon.fromPoints(ring),
+                    Polygon.fromPoints(nextRing),
+                    i == 1, i == ts.length - 1));
+
+            ring = nextRing;
+        }
+
+        sweepTimer.stop(polygons.size());
+
+        Metrics.Timer assemblyTimer = Metrics.start(PathMetrics.Stage.CSG_ASSEMBLY);
+
+        CSG pathCSG = CSG.fromPolygons(polygons);
+
+        assemblyTimer.stop(polygons.size());
+
+        return pathCSG;
+    }
+
+    /**
+     * Places the profile in the frame defined by position, tangent and
+     * reference vector {@code r} (image of the profile x axis).
+     */
+    private static List<Vector3d> frameRing(List<Vector3d> profilePoints,
+                                            Vector3d center, Vector3d pos,
+                                            Vector3d tangent, Vector3d r,
+                                            double handedness) {
+        Vector3d s = tangent.crossed(r).times(handedness);
+        List<Vector3d> ring = new ArrayList<>(profilePoints.size());
+        for (Vector3d p : profilePoints) {
+            double u = p.x() - center.x();
+            double v = p.y() - center.y();
+            ring.add(pos.plus(r.times(u)).plus(s.times(v)));
+        }
+        return ring;
+    }
+
+    /**
+     * Extrudes the specified path.
+     * @param bottom  determines whether to close bottom segment
+     * @param top     determines whether to close top segment
+     * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param path path to extrude
      * @return CSG object
      */
     private static CSG extrudeSegments(PathProfile profile,
                                        boolean bottom, boolean top,
                                        Plane orientationPlane,
-                                       List<Segment> segments) {
+                                       List<Vector3d> path) {
+
+        List<Polygon> polygons = new ArrayList<>();
+
+        sweep(profile, bottom, top, orientationPlane, path.iterator(),
+                Integer.MAX_VALUE, polygons::addAll);
+
+        // finally, create the CSG
+        Metrics.Timer assemblyTimer = Metrics.start(PathMetrics.Stage.CSG_ASSEMBLY);
+
+        CSG pathCSG = CSG.fromPolygons(polygons);
+
+        assemblyTimer.stop(polygons.size());
+
+        return pathCSG;
+    }
+
+    /**
+     * Sweeps the profile along the specified path. The path is processed with
+     * a sliding window of three points (previous, current and next point),
+     * i.e., only the previous profile ring is kept in memory.
+     *
+     * @param bottom  determines whether to close bottom segment
+     * @param top     determines whether to close top segment
+     * @param orientationPlane plane for fixing profile orientation to (optional, may be null)
+     * @param path path to extrude
+     * @param chunkSize number of polygons per chunk
+     * @param consumer receives the polygon chunks
+     */
+    private static void sweep(PathProfile profile,
+                              boolean bottom, boolean top,
+                              Plane orientationPlane,
+                              Iterator<Vector3d> path,
+                              int chunkSize,
+                              Consumer<List<Polygon>> consumer) {
+
+        Metrics.Timer sweepTimer = Metrics.start(PathMetrics.Stage.SWEEP);
+
+        if (!path.hasNext()) {
+            throw new IllegalArgumentException(
+                    "Illegal path specified: path must contain at least two points!");
+        }
+
+        Vector3d prevPos = path.next();
+
+        if (!path.hasNext()) {
+            throw new IllegalArgumentException(
+                    "Illegal path specified: path must contain at least two points!");
+        }
 
-        computeSegmentNormals(segments);
+        Vector3d pos = path.next();
+
+        // the normal of a path point is the direction to the next point
+        // (since paths are not closed, the last point uses the normal of the
+        // previous one)
+        Vector3d prevNormal = pos.minus(prevPos).normalized();
 
         List<Vector3d> profilePoints = new ArrayList<>(profile.getPoints());
 
@@ -205,9 +457,9 @@ public final class ExtrudeProfile {
         Vector3d profileNormal
                 = Polygon.fromPoints(profilePoints).getPlane().getNormal();
 
-        if (!profileNormal.equals(segments.get(0).normal)) {
+        if (!profileNormal.equals(prevNormal)) {
             Transform rot = Transform.unity().rot(profileNormal,
-                    segments.get(0).normal);
+                    prevNormal);
             for (int i = 0; i < profilePoints.size(); i++) {
                 profilePoints.set(i,
                         profilePoints.get(i).transformed(rot));
@@ -215,7 +467,7 @@ public final class ExtrudeProfile {
         }
 
         // translate profile to first path segment location
-        Vector3d offset = segments.get(0).pos.minus(profile.getCenter());
+        Vector3d offset = prevPos.minus(profile.getCenter());
 
         Transform translate = Transform.unity().
                 translate(profile.getCenter().plus(offset));
@@ -225,18 +477,19 @@ public final class ExtrudeProfile {
                     profilePoints.get(i).transformed(translate));
         }
 
-        List<Polygon> polygons = new ArrayList<>();
+        List<Polygon> chunk = new ArrayList<>();
+        long numPolygons = 0;
 
         // correction angle (used if plane specified)
         double angleToPlaneNormal = 0;
 
-        for (int i = 0; i < segments.size(); i++) {
-            Segment s = segments.get(i);
+        for (int i = 1; pos != null; i++) {
 
-            // skip first segment 
-            if (i < 1) {
-                continue;
-            }
+            Vector3d nextPos = path.hasNext() ? path.next() : null;
+            boolean last = nextPos == null;
+
+            Vector3d normal = last
+                    ? prevNormal : nextPos.minus(pos).normalized();
 
             // Compute transformation along path without annoying twisting.
             //
@@ -252,8 +505,8 @@ public final class ExtrudeProfile {
             //
             // - we add support for fixing profile orientation to specified plane
             //
-            Vector3d curveTangent0 = segments.get(i - 1).getNormal();
-            Vector3d curveTangent1 = s.getNormal();
+            Vector3d curveTangent0 = prevNormal;
+            Vector3d curveTangent1 = normal;
             Vector3d curveBiNormal = curveTangent1.crossed(curveTangent0);
 
             // angle of curvature (our rotation angle)
@@ -265,7 +518,7 @@ public final class ExtrudeProfile {
             if (Double.compare(angle, 0) != 0) {
                 // angle is reasonably large. we apply the rotation transform
                 rot = Transform.unity().
-                        rot(s.getPos(), curveBiNormal, -angle);
+                        rot(pos, curveBiNormal, -angle);
             } else {
                 // we don't apply the rotation transform since the angle is
                 // very small and rounding errors are larger than not applying
@@ -281,8 +534,7 @@ public final class ExtrudeProfile {
             // finally apply the transforms
             for (Vector3d p : profilePoints) {
                 // move points points from previous path point to current one
-                p = p.plus(segments.get(i).getPos().
-                        minus(segments.get(i - 1).getPos()));
+                p = p.plus(pos.minus(prevPos));
                 // apply rotation transform
                 p = p.transformed(rot);
 
@@ -308,7 +560,7 @@ public final class ExtrudeProfile {
 
                     // define the rotation about curve tangent
                     Transform corrRot = Transform.unity().
-                            rot(s.getPos(), s.getNormal(), -angleToRot);
+                            rot(pos, normal, -angleToRot);
 
                     List<Vector3d> profilePointsTransformedCorr
                             = new ArrayList<>(profilePointsTransformed.size());
@@ -328,85 +580,32 @@ public final class ExtrudeProfile {
 
             // combine both profiles and close start and end to
             // yield a valid CSG object
-            CSG csg = CSG.fromPolygons(Extrude.combine(
+            List<Polygon> segmentPolygons = Extrude.combine(
                     Polygon.fromPoints(profilePoints),
                     Polygon.fromPoints(profilePointsTransformed),
-                    i == 1 && bottom, i == segments.size() - 1 && top));
+                    i == 1 && bottom, last && top);
 
-            polygons.addAll(csg.getPolygons());
+            chunk.addAll(segmentPolygons);
+            numPolygons += segmentPolygons.size();
+
+            if (chunk.size() >= chunkSize) {
+                consumer.accept(chunk);
+                chunk = new ArrayList<>();
+            }
 
             // use the current profile points as start points for the next
             // segment
             profilePoints = profilePointsTransformed;
-        }
-
-        // finally, create the CSG
-        CSG pathCSG = CSG.fromPolygons(polygons);
-
-        return pathCSG;
-    }
-
-    /**
-     * Computes and sets the normals of the specified path segments. Segments
-     * are assumed to form a non-closed path.
-     *
-     * @param segments path segments
-     */
-    private static void computeSegmentNormals(List<Segment> segments) {
-        Segment prevSegment = null;
-        for (Segment s : segments) {
-            if (prevSegment != null) {
-                Vector3d normal = s.getPos().
-                        minus(prevSegment.getPos()).
-                        normalized();
-                prevSegment.setNormal(normal);
-
-                // needs to be set for last element
-                // since paths are not closed, we set normal to normal
-                // of last segment
-                s.setNormal(normal);
-            }
-            prevSegment = s;
-        }
-    }
-
-    private static class Segment {
-
-        private final Vector3d pos;
-        private PathProfile profile;
-        private Vector3d normal;
-
-        public Segment(Vector3d pos, PathProfile profile) {
-            this.pos = pos;
-            this.profile = profile;
-        }
-
-        public Segment(Segment other) {
-            this.pos = other.pos;
-            this.profile = new PathProfile(other.profile);
-            this.normal = other.normal;
-        }
-
-        public Vector3d getPos() {
-            return pos;
-        }
-
-        public PathProfile getProfile() {
-            return this.profile;
-        }
-
-        public List<Vector3d> getPoints() {
-            return getProfile().getPoints().stream().map(p -> p.transformed(Transform.unity().
-                    translate(getPos().minus(getProfile().getCenter())))).collect(Collectors.toList());
-        }
 
-        public Vector3d getNormal() {
-            return normal;
+            prevPos = pos;
+            prevNormal = normal;
+            pos = nextPos;
         }
 
-        public void setNormal(Vector3d normal) {
-            this.normal = normal;
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
         }
 
+        sweepTimer.stop(numPolygons);
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Frame transport shared by the sweep operations ({@link Tube},
+ * {@link ExtrudeProfile}).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+final class Frames {
+
+    private Frames() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Transports the reference vector {@code r} of the frame at {@code pos}
+     * (tangent {@code tangent}) to {@code nextPos} (tangent
+     * {@code nextTangent}) by double reflection (rotation minimizing frames,
+     * Wang et al., 2008).
+     *
+     * @param pos current position
+     * @param tangent current unit tangent
+     * @param r current reference vector (perpendicular to {@code tangent})
+     * @param nextPos next position
+     * @param nextTangent next unit tangent
+     * @return next reference vector (perpendicular to {@code nextTangent})
+     */
+    static Vector3d transport(Vector3d pos, Vector3d tangent, Vector3d r,
+            Vector3d nextPos, Vector3d nextTangent) {
+        Vector3d v1 = nextPos.minus(pos);
+        double c1 = v1.dot(v1);
+        Vector3d rL = r;
+        Vector3d tL = tangent;
+        if (c1 > 0) {
+            rL = r.minus(v1.times(2 / c1 * v1.dot(r)));
+            tL = tangent.minus(v1.times(2 / c1 * v1.dot(tangent)));
+        }
+        Vector3d v2 = nextTangent.minus(tL);
+        double c2 = v2.dot(v2);
+        return c2 > 0 ? rL.minus(v2.times(2 / c2 * v2.dot(rL))) : rL;
+    }
+
+    /**
+     * Returns the unit tangents of the specified path at the given
+     * parameters. Where the path has zero speed (e.g. repeated spline
+     * points) the analytic tangent is undefined; the chord direction between
+     * the neighboring samples is used instead.
+     *
+     * @param path path
+     * @param ts parameters (ascending)
+     * @param positions path positions at {@code ts}
+     * @return unit tangents
+     * @throws IllegalArgumentException if all positions coincide
+     */
+    static Vector3d[] tangents(ParametricPath path, double[] ts,
+            Vector3d[] positions) {
+        int n = ts.length;
+        Vector3d[] tangents = new Vector3d[n];
+        for (int i = 0; i < n; i++) {
+            Vector3d tangent = unit(path.derivative(ts[i]));
+            if (tangent == null) {
+                tangent = unit(positions[Math.min(i + 1, n - 1)]
+                        .minus(positions[Math.max(i - 1, 0)]));
+            }
+            if (tangent == null && i > 0) {
+                tangent = tangents[i - 1];
+            }
+            if (tangent == null) {
+                tangent = firstChord(positions);
+            }
+            tangents[i] = tangent;
+        }
+        return tangents;
+    }
+
+    private static Vector3d firstChord(Vector3d[] positions) {
+        for (int i = 1; i < positions.length; i++) {
+            Vector3d chord = unit(positions[i].minus(positions[0]));
+            if (chord != null) {
+                return chord;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Illegal path specified: at least two distinct points required!");
+    }
+
+    /**
+     * Returns the normalized vector or {@code null} if the vector has no
+     * (finite) direction.
+     */
+    private static Vector3d unit(Vector3d v) {
+        double length = v.magnitude();
+        if (!(length > 0) || Double.isInfinite(length)) {
+            return null;
+        }
+        Vector3d u = v.times(1 / length);
+        return Double.isFinite(u.x()) && Double.isFinite(u.y())
+                && Double.isFinite(u.z()) ? u : null;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory {@link PathMetrics} implementation. Stage durations are collected
+ * in histograms with power-of-two buckets (nanoseconds). Invocation counts,
+ * item counts and allocated bytes are accumulated per stage.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class HistogramPathMetrics implements PathMetrics {
+
+    private static final int NUM_BUCKETS = 64;
+
+    // not modified after construction (lock-free reads in record())
+    private final Map<Stage, StageHistogram> histograms
+            = new EnumMap<>(Stage.class);
+
+    /**
+     * Constructor. Creates empty histograms for all stages.
+     */
+    public HistogramPathMetrics() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new StageHistogram());
+        }
+    }
+
+    @Override
+    public void record(Stage stage, long durationNanos, long allocatedBytes, long count) {
+        StageHistogram h = histograms.get(stage);
+
+        int bucket = NUM_BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(1, durationNanos));
+        h.buckets.incrementAndGet(bucket);
+        h.invocations.increment();
+        h.totalNanos.add(durationNanos);
+        h.items.add(count);
+
+        if (allocatedBytes >= 0) {
+            h.allocatedBytes.add(allocatedBytes);
+        }
+    }
+
+    /**
+     * Returns the number of recorded executions of the specified stage.
+     *
+     * @param stage stage
+     * @return number of executions
+     */
+    public long getInvocations(Stage stage) {
+        return histograms.get(stage).invocations.sum();
+    }
+
+    /**
+     * Returns the accumulated duration of the specified stage.
+     *
+     * @param stage stage
+     * @return accumulated duration (in nanoseconds)
+     */
+    public long getTotalNanos(Stage stage) {
+        return histograms.get(stage).totalNanos.sum();
+    }
+
+    /**
+     * Returns the accumulated item count (segments, samples, vertices or
+     * polygons) of the specified stage.
+     *
+     * @param stage stage
+     * @return accumulated item count
+     */
+    public long getItemCount(Stage stage) {
+        return histograms.get(stage).items.sum();
+    }
+
+    /**
+     * Returns the number of bytes allocated by the specified stage.
+     *
+     * @param stage stage
+     * @return allocated bytes (0 if allocation tracking is not available)
+     */
+    public long getAllocatedBytes(Stage stage) {
+        return histograms.get(stage).allocatedBytes.sum();
+    }
+
+    /**
+     * Returns an upper bound of the specified duration percentile of the
+     * specified stage. The result is accurate up to a factor of two (bucket
+     * resolution).
+     *
+     * @param stage stage
+     * @param percentile percentile ({@code 0 < percentile <= 100})
+     * @return upper bound of the percentile (in nanoseconds), 0 if no
+     * executions have been recorded
+     */
+    public long getPercentileNanos(Stage stage, double percentile) {
+
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException(
+                    "Illegal percentile specified: must be in (0,100]!");
+        }
+
+        AtomicLongArray buckets = histograms.get(stage).buckets;
+
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += buckets.get(i);
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(total * percentile / 100.0);
+        long sum = 0;
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            sum += buckets.get(i);
+            if (sum >= threshold) {
+                return i < NUM_BUCKETS - 2 ? (1L << (i + 1)) - 1 : Long.MAX_VALUE;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Resets all histograms. Histograms are cleared in place, i.e., reset is
+     * safe while other threads record. Executions recorded concurrently may
+     * be counted partially.
+     */
+    public void reset() {
+        for (StageHistogram h : histograms.values()) {
+            h.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-14s %10s %12s %12s %12s %14s %14s%n",
+                "stage", "calls", "total ms", "p50 us", "p99 us",
+                "items", "alloc bytes"));
+
+        for (Stage stage : Stage.values()) {
+            long calls = getInvocations(stage);
+            if (calls == 0) {
+                continue;
+            }
+            sb.append(String.format("%-14s %10d %12.3f %12.1f %12.1f %14d %14d%n",
+                    stage, calls, getTotalNanos(stage) / 1e6,
+                    getPercentileNanos(stage, 50) / 1e3,
+                    getPercentileNanos(stage, 99) / 1e3,
+                    getItemCount(stage), getAllocatedBytes(stage)));
+        }
+
+        return sb.toString();
+    }
+
+    private static final class StageHistogram {
+
+        final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+        final LongAdder invocations = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder items = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+
+        void reset() {
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            invocations.reset();
+            totalNanos.reset();
+            items.reset();
+            allocatedBytes.reset();
+        }
+    }
+}
@@ -45,6 +45,8 @@ public final class LinearPathUtil {
      * @return extended linear path (list of points)
      */
     public static List<Vector3d> extend(List<Vector3d> path, double amount) {
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.EXTEND);
+
         List<Vector3d> result = new ArrayList<>(path.size());
 
         // 1. compute edge normals
@@ -79,6 +81,8 @@ public final class LinearPathUtil {
                     times(amount)));
         }
 
+        timer.stop(result.size());
+
         return result;
     }
 }
@@ -0,0 +1,467 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.vvecmath.Plane;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Persistent content-addressed mesh cache. Meshes are stored in a compact
+ * binary indexed format (see {@link CachedMesh}), one file per key. Keys are
+ * SHA-256 hashes of all inputs (see {@link KeyBuilder}).
+ *
+ * Cached meshes are read via {@link FileChannel#map}, i.e., mesh data is not
+ * copied until polygons are created. Files are published via atomic rename,
+ * readers therefore never observe partially written files. Writers and the
+ * size based eviction (least recently used first) are serialized with a file
+ * lock (across processes) and a monitor per cache directory (within the
+ * JVM).
+ *
+ * <pre>{@code
+ * MeshCache cache = new MeshCache(Paths.get("mesh-cache"), 512L << 20);
+ * CSG csg = cache.toCSG(path, height, stepSize, extension);
+ * }</pre>
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class MeshCache {
+
+    private static final String SUFFIX = ".mesh";
+    private static final String LOCK_FILE = "cache.lock";
+
+    private static final ConcurrentHashMap<Path, Object> MONITORS
+            = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Object monitor;
+
+    /**
+     * Constructor.
+     *
+     * @param directory cache directory (created if it does not exist)
+     * @param maxSizeBytes maximum cache size (in bytes)
+     * @throws UncheckedIOException if the directory cannot be created
+     */
+    public MeshCache(Path directory, long maxSizeBytes) {
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "Illegal size specified: size must be > 0!");
+        }
+
+        try {
+            Files.createDirectories(directory);
+            this.directory = directory.toRealPath();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        this.maxSizeBytes = maxSizeBytes;
+        this.monitor = MONITORS.computeIfAbsent(this.directory, d -> new Object());
+    }
+
+    /**
+     * Creates a new key builder.
+     *
+     * @return key builder
+     */
+    public static KeyBuilder newKey() {
+        return new KeyBuilder();
+    }
+
+    /**
+     * Returns the cache directory.
+     *
+     * @return cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the cached mesh for the specified key.
+     *
+     * @param key key (see {@link KeyBuilder#build()})
+     * @return cached mesh or {@code null} if no valid mesh is cached for the
+     * specified key
+     * @throws UncheckedIOException if the cached file cannot be read
+     */
+    public CachedMesh get(String key) {
+        Path file = fileFor(key);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            CachedMesh mesh;
+            try {
+                mesh = new CachedMesh(buffer);
+            } catch (IllegalArgumentException ex) {
+                return null; // corrupt or outdated, will be replaced
+            }
+
+            // lru bookkeeping for eviction
+            try {
+                Files.setLastModifiedTime(file,
+                        FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (NoSuchFileException ex) {
+                // evicted concurrently, mapping stays valid
+            }
+
+            return mesh;
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Stores the specified mesh.
+     *
+     * @param key key (see {@link KeyBuilder#build()})
+     * @param csg mesh to store
+     * @throws UncheckedIOException if the mesh cannot be stored
+     * @throws IllegalArgumentException if the mesh is too large to be cached
+     */
+    public void put(String key, CSG csg) {
+        ByteBuffer data = CachedMesh.encode(csg.getPolygons());
+
+        try {
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+
+            try {
+                try (FileChannel channel = FileChannel.open(tmp,
+                        StandardOpenOption.WRITE)) {
+                    while (data.hasRemaining()) {
+                        channel.write(data);
+                    }
+                    channel.force(false);
+                }
+
+                synchronized (monitor) {
+                    try (FileChannel lockChannel = FileChannel.open(
+                            directory.resolve(LOCK_FILE),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+                        FileLock lock = lockChannel.lock();
+                        try {
+                            publish(tmp, fileFor(key));
+                            evict();
+                        } finally {
+                            lock.release();
+                        }
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the cached mesh for the specified key. If no mesh is cached,
+     * the mesh is computed and stored.
+     *
+     * @param key key (see {@link KeyBuilder#build()})
+     * @param supplier computes the mesh
+     * @return mesh
+     * @throws UncheckedIOException if the cache cannot be accessed
+     */
+    public CSG computeIfAbsent(String key, Supplier<CSG> supplier) {
+        CachedMesh cached = get(key);
+
+        if (cached != null) {
+            return cached.toCSG();
+        }
+
+        CSG csg = supplier.get();
+        put(key, csg);
+
+        return csg;
+    }
+
+    /**
+     * Cached variant of
+     * {@link SVGPath#toCSG(java.lang.String, double, double, double)}.
+     *
+     * @param path path to convert
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the path along vertex normals (XY plane)
+     * @return CSG object
+     */
+    public CSG toCSG(String path, double height,
+            double stepSize, double extension) {
+        String key = newKey().add("SVGPath.toCSG").add(path)
+                .add(height).add(stepSize).add(extension).build();
+        return computeIfAbsent(key,
+                () -> SVGPath.toCSG(path, height, stepSize, extension));
+    }
+
+    /**
+     * Cached variant of
+     * {@link ExtrudeProfile#alongPath(eu.mihosoft.jcsg.ext.path.PathProfile, eu.mihosoft.vvecmath.Plane, java.util.List)}.
+     *
+     * @param profile profile to extrude
+     * @param orientationPlane orientation plane (optional, may be null)
+     * @param path extrusion path
+     * @return CSG object
+     */
+    public CSG alongPath(PathProfile profile, Plane orientationPlane,
+            List<Vector3d> path) {
+        String key = newKey().add("ExtrudeProfile.alongPath").add(profile)
+                .add(orientationPlane).add(path).build();
+        return computeIfAbsent(key,
+                () -> ExtrudeProfile.alongPath(profile, orientationPlane, path));
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static void publish(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes least recently used meshes until the cache size is below the
+     * maximum size. Must be called while holding the cache lock.
+     */
+    private void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        long size = 0;
+
+        try (DirectoryStream<Path> stream
+                = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+                size += Files.size(file);
+            }
+        }
+
+        if (size <= maxSizeBytes) {
+            return;
+        }
+
+        List<FileTime> times = new ArrayList<>(files.size());
+        for (Path file : files) {
+            times.add(Files.getLastModifiedTime(file));
+        }
+
+        List<Integer> order = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(times::get));
+
+        for (int i : order) {
+            if (size <= maxSizeBytes) {
+                break;
+            }
+            Path file = files.get(i);
+            long fileSize = Files.size(file);
+            try {
+                Files.delete(file);
+                size -= fileSize;
+            } catch (IOException ex) {
+                // file is in use (e.g. mapped on windows), try the next one
+            }
+        }
+    }
+
+    /**
+     * Builds content-addressed keys (SHA-256) from all inputs of a mesh
+     * computation. Values are encoded with type tags, i.e., different
+     * sequences of values produce different keys.
+     */
+    public static final class KeyBuilder {
+
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(9);
+
+        private KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+            add(CachedMesh.VERSION);
+        }
+
+        private KeyBuilder tag(byte tag, long value) {
+            buffer.clear();
+            buffer.put(tag).putLong(value);
+            digest.update(buffer.array(), 0, 9);
+            return this;
+        }
+
+        /**
+         * Adds the specified string.
+         *
+         * @param value value to add
+         * @return this builder
+         */
+        public KeyBuilder add(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            tag((byte) 's', bytes.length);
+            digest.update(bytes);
+            return this;
+        }
+
+        /**
+         * Adds the specified number.
+         *
+         * @param value value to add
+         * @return this builder
+         */
+        public KeyBuilder add(double value) {
+            return tag((byte) 'd', Double.doubleToLongBits(value));
+        }
+
+        /**
+         * Adds the specified number.
+         *
+         * @param value value to add
+         * @return this builder
+         */
+        public KeyBuilder add(long value) {
+            return tag((byte) 'l', value);
+        }
+
+        /**
+         * Adds the specified flag.
+         *
+         * @param value value to add
+         * @return this builder
+         */
+        public KeyBuilder add(boolean value) {
+            return tag((byte) 'b', value ? 1 : 0);
+        }
+
+        /**
+         * Adds the specified vector.
+         *
+         * @param value value to add
+         * @return this builder
+         */
+        public KeyBuilder add(Vector3d value) {
+            return add(value.x()).add(value.y()).add(value.z());
+        }
+
+        /**
+         * Adds the specified points.
+         *
+         * @param points points to add
+         * @return this builder
+         */
+        public KeyBuilder add(List<Vector3d> points) {
+            tag((byte) 'p', points.size());
+            for (Vector3d p : points) {
+                add(p);
+            }
+            return this;
+        }
+
+        /**
+         * Adds the specified plane.
+         *
+         * @param plane plane to add (may be null)
+         * @return this builder
+         */
+        public KeyBuilder add(Plane plane) {
+            if (plane == null) {
+                return tag((byte) 'P', 0);
+            }
+            return tag((byte) 'P', 1)
+                    .add(plane.getAnchor()).add(plane.getNormal());
+        }
+
+        /**
+         * Adds the specified profile.
+         *
+         * @param profile profile to add
+         * @return this builder
+         */
+        public KeyBuilder add(PathProfile profile) {
+            return add(profile.getCenter()).add(profile.getPoints());
+        }
+
+        /**
+         * Adds the specified transform.
+         *
+         * @param transform transform to add
+         * @return this builder
+         */
+        public KeyBuilder add(PathTransform transform) {
+            for (double v : transform.getMatrix()) {
+                add(v);
+            }
+            return this;
+        }
+
+        /**
+         * Builds the key.
+         *
+         * @return key (hex encoded SHA-256 hash)
+         */
+        public String build() {
+            byte[] hash = digest.digest();
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        }
+    }
+}
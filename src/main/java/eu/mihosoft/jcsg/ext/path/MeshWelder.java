@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.jcsg.Vertex;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Welds vertices of polygon meshes and removes degenerate polygons.
+ *
+ * Vertices are inserted into a uniform hash grid with cell size
+ * {@code epsilon}. Each vertex is compared against the vertices of the 27
+ * neighboring cells and merged with the first vertex found within
+ * {@code epsilon}. Cells are addressed via primitive {@code long} keys, i.e.,
+ * the pass runs in linear time and does not box coordinates.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class MeshWelder {
+
+    private MeshWelder() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Welds the vertices of the specified polygons. Polygons that collapse to
+     * less than three vertices or whose width is below {@code epsilon} are
+     * removed.
+     *
+     * @param polygons polygons to weld
+     * @param epsilon weld distance ({@code epsilon > 0})
+     * @return weld result
+     */
+    public static WeldResult weld(List<Polygon> polygons, double epsilon) {
+
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException(
+                    "Illegal epsilon specified: epsilon must be > 0!");
+        }
+
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.WELD);
+
+        int numVertices = 0;
+        for (Polygon p : polygons) {
+            numVertices += p.vertices.size();
+        }
+
+        Grid grid = new Grid(epsilon, numVertices);
+
+        List<Polygon> result = new ArrayList<>(polygons.size());
+        int removedPolygons = 0;
+
+        int[] indices = new int[16];
+        int[] sources = new int[16];
+
+        for (Polygon p : polygons) {
+
+            int n = p.vertices.size();
+
+            if (indices.length < n) {
+                indices = new int[n * 2];
+                sources = new int[n * 2];
+            }
+
+            // map vertices to welded indices and drop consecutive duplicates
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                Vector3d pos = p.vertices.get(i).pos;
+                int idx = grid.insert(pos.x(), pos.y(), pos.z());
+                if (count == 0 || indices[count - 1] != idx) {
+                    indices[count] = idx;
+                    sources[count] = i;
+                    count++;
+                }
+            }
+
+            while (count > 1 && indices[count - 1] == indices[0]) {
+                count--;
+            }
+
+            if (count < 3 || grid.isThin(indices, count)) {
+                removedPolygons++;
+                continue;
+            }
+
+            // keep the normal of the first original vertex that has been
+            // mapped to the welded vertex
+            List<Vertex> vertices = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                vertices.add(new Vertex(grid.position(indices[i]),
+                        p.vertices.get(sources[i]).normal));
+            }
+
+            result.add(new Polygon(vertices));
+        }
+
+        timer.stop(numVertices);
+
+        return new WeldResult(result, numVertices, grid.size(),
+                removedPolygons);
+    }
+
+    /**
+     * Uniform hash grid of welded vertex positions.
+     */
+    private static final class Grid {
+
+        private final double epsilon;
+        private final double epsilonSq;
+        private final double invCellSize;
+        private final LongIntHashMap cells;
+
+        private double[] coords;
+        private int[] next;
+        private Vector3d[] positions;
+        private int size;
+
+        Grid(double epsilon, int expectedSize) {
+            this.epsilon = epsilon;
+            this.epsilonSq = epsilon * epsilon;
+            this.invCellSize = 1.0 / epsilon;
+            this.cells = new LongIntHashMap(expectedSize);
+            this.coords = new double[Math.max(16, expectedSize) * 3];
+            this.next = new int[Math.max(16, expectedSize)];
+            this.positions = new Vector3d[Math.max(16, expectedSize)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        Vector3d position(int idx) {
+            Vector3d pos = positions[idx];
+            if (pos == null) {
+                pos = Vector3d.xyz(
+                        coords[idx * 3], coords[idx * 3 + 1], coords[idx * 3 + 2]);
+                positions[idx] = pos;
+            }
+            return pos;
+        }
+
+        /**
+         * Returns the index of the welded vertex within epsilon of the
+         * specified position or {@code -1} if no such vertex exists.
+         */
+        private int find(double x, double y, double z) {
+            long cx = (long) Math.floor(x * invCellSize);
+            long cy = (long) Math.floor(y * invCellSize);
+            long cz = (long) Math.floor(z * invCellSize);
+
+            for (long i = cx - 1; i <= cx + 1; i++) {
+                for (long j = cy - 1; j <= cy + 1; j++) {
+                    for (long k = cz - 1; k <= cz + 1; k++) {
+                        int idx = cells.get(key(i, j, k), -1);
+                        while (idx >= 0) {
+                            double dx = coords[idx * 3] - x;
+                            double dy = coords[idx * 3 + 1] - y;
+                            double dz = coords[idx * 3 + 2] - z;
+                            if (dx * dx + dy * dy + dz * dz <= epsilonSq) {
+                                return idx;
+                            }
+                            idx = next[idx];
+                        }
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Returns the index of the welded vertex within epsilon of the
+         * specified position. Adds a new vertex if no such vertex exists.
+         */
+        int insert(double x, double y, double z) {
+            int idx = find(x, y, z);
+
+            if (idx >= 0) {
+                return idx;
+            }
+
+            if (size == next.length) {
+                int capacity = next.length * 2;
+                coords = Arrays.copyOf(coords, capacity * 3);
+                next = Arrays.copyOf(next, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+            }
+
+            idx = size++;
+            coords[idx * 3] = x;
+            coords[idx * 3 + 1] = y;
+            coords[idx * 3 + 2] = z;
+
+            long key = key((long) Math.floor(x * invCellSize),
+                    (long) Math.floor(y * invCellSize),
+                    (long) Math.floor(z * invCellSize));
+
+            next[idx] = cells.get(key, -1);
+            cells.put(key, idx);
+
+            return idx;
+        }
+
+        /**
+         * Determines whether the specified polygon is thinner than epsilon,
+         * i.e., whether its area is below {@code epsilon * longest edge}.
+         */
+        boolean isThin(int[] indices, int count) {
+            double nx = 0, ny = 0, nz = 0;
+            double maxEdgeSq = 0;
+
+            for (int i = 0; i < count; i++) {
+                int a = indices[i] * 3;
+                int b = indices[(i + 1) % count] * 3;
+
+                double ax = coords[a], ay = coords[a + 1], az = coords[a + 2];
+                double bx = coords[b], by = coords[b + 1], bz = coords[b + 2];
+
+                // newell normal (length is twice the polygon area)
+                nx += (ay - by) * (az + bz);
+                ny += (az - bz) * (ax + bx);
+                nz += (ax - bx) * (ay + by);
+
+                double dx = bx - ax, dy = by - ay, dz = bz - az;
+                maxEdgeSq = Math.max(maxEdgeSq, dx * dx + dy * dy + dz * dz);
+            }
+
+            double twiceArea = Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+            return twiceArea <= 2 * epsilon * Math.sqrt(maxEdgeSq);
+        }
+
+        private static long key(long i, long j, long k) {
+            return ((i & 0x1FFFFF) << 42) | ((j & 0x1FFFFF) << 21) | (k & 0x1FFFFF);
+        }
+    }
+}
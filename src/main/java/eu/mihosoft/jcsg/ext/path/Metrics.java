@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Registry of the active {@link PathMetrics} implementation. Metrics are
+ * disabled by default. If disabled, instrumented stages only perform a single
+ * volatile read and do not allocate.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class Metrics {
+
+    private static volatile PathMetrics metrics;
+
+    private Metrics() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Installs the specified metrics implementation.
+     *
+     * @param metrics metrics to install (may be null which disables metrics)
+     */
+    public static void setMetrics(PathMetrics metrics) {
+        Metrics.metrics = metrics;
+    }
+
+    /**
+     * Returns the installed metrics implementation.
+     *
+     * @return installed metrics or {@code null} if metrics are disabled
+     */
+    public static PathMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts measuring the specified stage.
+     *
+     * @param stage stage to measure
+     * @return timer (call {@link Timer#stop(long)} after the stage finished)
+     */
+    static Timer start(PathMetrics.Stage stage) {
+        PathMetrics m = metrics;
+
+        if (m == null) {
+            return Timer.DISABLED;
+        }
+
+        return new Timer(m, stage, allocatedBytes(), System.nanoTime());
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = AllocationBean.INSTANCE;
+        if (bean == null) {
+            return -1;
+        }
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Holds the allocation bean. The management subsystem is only loaded
+     * when the first measurement is started, i.e., not if metrics are
+     * disabled.
+     */
+    private static final class AllocationBean {
+
+        static final com.sun.management.ThreadMXBean INSTANCE = create();
+
+        private AllocationBean() {
+            throw new AssertionError("Don't instantiate me!");
+        }
+
+        private static com.sun.management.ThreadMXBean create() {
+            try {
+                ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+                if (bean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean sunBean
+                            = (com.sun.management.ThreadMXBean) bean;
+                    if (sunBean.isThreadAllocatedMemorySupported()
+                            && sunBean.isThreadAllocatedMemoryEnabled()) {
+                        return sunBean;
+                    }
+                }
+            } catch (LinkageError | SecurityException ex) {
+                // allocation tracking not available on this vm
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Measures a single stage execution.
+     */
+    static class Timer {
+
+        static final Timer DISABLED = new Timer(null, null, 0, 0) {
+            @Override
+            void stop(long count) {
+                // nothing to record
+            }
+        };
+
+        private final PathMetrics metrics;
+        private final PathMetrics.Stage stage;
+        private final long startAllocatedBytes;
+        private final long startNanos;
+
+        private Timer(PathMetrics metrics, PathMetrics.Stage stage,
+                long startAllocatedBytes, long startNanos) {
+            this.metrics = metrics;
+            this.stage = stage;
+            this.startAllocatedBytes = startAllocatedBytes;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Stops the measurement and reports it to the metrics implementation
+         * that was active when the measurement started.
+         *
+         * @param count number of processed items
+         */
+        void stop(long count) {
+            long duration = System.nanoTime() - startNanos;
+            long allocated = startAllocatedBytes < 0
+                    ? -1 : allocatedBytes() - startAllocatedBytes;
+            metrics.record(stage, duration, allocated, count);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.jcsg.ext.path.internal.DirectBuffers;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Indexed triangle mesh stored outside of the Java heap. Vertices (xyz as
+ * floats or doubles, see {@link Precision}) and triangle indices (ints) are
+ * stored in chunks of direct byte buffers or of a memory-mapped scratch file.
+ * The mesh grows chunk by chunk, i.e., existing data is never copied.
+ * {@link #close()} releases the buffers immediately, i.e., without waiting for
+ * garbage collection.
+ *
+ * Polygons are triangulated (triangle fans). Vertices are deduplicated within
+ * a fixed-size window of recently added vertices, which catches the shared
+ * vertices of neighboring sweep/extrusion polygons in constant memory.
+ *
+ * The mesh can be used as consumer for the streaming sweep, e.g.,
+ * {@code ExtrudeProfile.alongPath(profile, plane, path, 1024, mesh)}.
+ * Exporters can access the data via read-only views
+ * ({@link #getVertexBuffers()}, {@link #getIndexBuffers()}) without copying.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class OffHeapMesh implements Consumer<List<Polygon>>, AutoCloseable {
+
+    /**
+     * Number of vertices per vertex chunk.
+     */
+    public static final int VERTICES_PER_CHUNK = 1 << 16;
+
+    /**
+     * Number of indices per index chunk (multiple of 3).
+     */
+    public static final int INDICES_PER_CHUNK = 3 << 16;
+
+    private static final int DEDUPE_WINDOW = 1 << 12;
+
+    /**
+     * Vertex coordinate precision.
+     */
+    public enum Precision {
+        /**
+         * Single precision (4 bytes per coordinate).
+         */
+        FLOAT,
+        /**
+         * Double precision (8 bytes per coordinate), same precision as the
+         * path and CSG coordinates.
+         */
+        DOUBLE
+    }
+
+    private final FileChannel channel;
+    private long fileOffset;
+
+    private final Precision precision;
+    private final int coordinateSize;
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final List<ByteBuffer> vertexChunks = new ArrayList<>();
+    private final List<IntBuffer> indexChunks = new ArrayList<>();
+    private int vertexCount;
+    private long indexCount;
+    private boolean closed;
+
+    private final int[] window = new int[DEDUPE_WINDOW];
+
+    private OffHeapMesh(FileChannel channel, Precision precision) {
+        this.channel = channel;
+        this.precision = precision;
+        this.coordinateSize = precision == Precision.FLOAT
+                ? Float.BYTES : Double.BYTES;
+        Arrays.fill(window, -1);
+    }
+
+    /**
+     * Creates a mesh backed by direct byte buffers (single precision).
+     *
+     * @return new mesh
+     */
+    public static OffHeapMesh direct() {
+        return direct(Precision.FLOAT);
+    }
+
+    /**
+     * Creates a mesh backed by direct byte buffers.
+     *
+     * @param precision vertex precision
+     * @return new mesh
+     */
+    public static OffHeapMesh direct(Precision precision) {
+        return new OffHeapMesh(null, precision);
+    }
+
+    /**
+     * Creates a mesh backed by the specified memory-mapped scratch file
+     * (single precision). The file is created or truncated.
+     *
+     * @param file scratch file
+     * @return new mesh
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static OffHeapMesh mapped(Path file) {
+        return mapped(file, Precision.FLOAT);
+    }
+
+    /**
+     * Creates a mesh backed by the specified memory-mapped scratch file. The
+     * file is created or truncated.
+     *
+     * @param file scratch file
+     * @param precision vertex precision
+     * @return new mesh
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static OffHeapMesh mapped(Path file, Precision precision) {
+        try {
+            return new OffHeapMesh(FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                    precision);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the vertex precision of this mesh.
+     *
+     * @return vertex precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Mesh has been closed!");
+        }
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        checkOpen();
+
+        ByteBuffer buffer;
+
+        if (channel == null) {
+            buffer = ByteBuffer.allocateDirect(bytes);
+        } else {
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, fileOffset, bytes);
+                fileOffset += bytes;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        buffers.add(buffer);
+
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private double getCoordinate(ByteBuffer chunk, int index) {
+        return precision == Precision.FLOAT
+                ? chunk.getFloat(index * Float.BYTES)
+                : chunk.getDouble(index * Double.BYTES);
+    }
+
+    private void putCoordinate(ByteBuffer chunk, int index, double value) {
+        if (precision == Precision.FLOAT) {
+            chunk.putFloat(index * Float.BYTES, (float) value);
+        } else {
+            chunk.putDouble(index * Double.BYTES, value);
+        }
+    }
+
+    private static int hash(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    /**
+     * Adds the specified vertex. If an equal vertex (at the precision of this
+     * mesh) has been added recently (dedupe window) its index is returned
+     * instead.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return vertex index
+     */
+    public int addVertex(double x, double y, double z) {
+        if (precision == Precision.FLOAT) {
+            x = (float) x;
+            y = (float) y;
+            z = (float) z;
+        }
+
+        int h = hash(x) * 0x9E3779B1 ^ hash(y) * 0x85EBCA77
+                ^ hash(z) * 0xC2B2AE3D;
+        int slot = (h ^ (h >>> 16)) & (DEDUPE_WINDOW - 1);
+
+        int candidate = window[slot];
+        if (candidate >= 0) {
+            ByteBuffer chunk = vertexChunks.get(candidate / VERTICES_PER_CHUNK);
+            int off = (candidate % VERTICES_PER_CHUNK) * 3;
+            if (getCoordinate(chunk, off) == x
+                    && getCoordinate(chunk, off + 1) == y
+                    && getCoordinate(chunk, off + 2) == z) {
+                return candidate;
+            }
+        }
+
+        if (vertexCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many vertices!");
+        }
+
+        int chunkIndex = vertexCount / VERTICES_PER_CHUNK;
+        if (chunkIndex == vertexChunks.size()) {
+            vertexChunks.add(allocate(VERTICES_PER_CHUNK * 3 * coordinateSize));
+        }
+
+        ByteBuffer chunk = vertexChunks.get(chunkIndex);
+        int off = (vertexCount % VERTICES_PER_CHUNK) * 3;
+        putCoordinate(chunk, off, x);
+        putCoordinate(chunk, off + 1, y);
+        putCoordinate(chunk, off + 2, z);
+
+        window[slot] = vertexCount;
+
+        return vertexCount++;
+    }
+
+    /**
+     * Adds the specified triangle. Degenerate triangles (repeated indices) are
+     * ignored.
+     *
+     * @param a first vertex index
+     * @param b second vertex index
+     * @param c third vertex index
+     */
+    public void addTriangle(int a, int b, int c) {
+        if (a == b || b == c || a == c) {
+            return;
+        }
+
+        int chunkIndex = (int) (indexCount / INDICES_PER_CHUNK);
+        if (chunkIndex == indexChunks.size()) {
+            indexChunks.add(allocate(INDICES_PER_CHUNK * Integer.BYTES).asIntBuffer());
+        }
+
+        IntBuffer chunk = indexChunks.get(chunkIndex);
+        int off = (int) (indexCount % INDICES_PER_CHUNK);
+        chunk.put(off, a);
+        chunk.put(off + 1, b);
+        chunk.put(off + 2, c);
+
+        indexCount += 3;
+    }
+
+    /**
+     * Adds the specified (convex) polygon as triangle fan.
+     *
+     * @param polygon polygon to add
+     */
+    public void addPolygon(Polygon polygon) {
+        int n = polygon.vertices.size();
+        if (n < 3) {
+            return;
+        }
+
+        Vector3d p0 = polygon.vertices.get(0).pos;
+        Vector3d p1 = polygon.vertices.get(1).pos;
+        int first = addVertex(p0.x(), p0.y(), p0.z());
+        int prev = addVertex(p1.x(), p1.y(), p1.z());
+
+        for (int i = 2; i < n; i++) {
+            Vector3d p = polygon.vertices.get(i).pos;
+            int current = addVertex(p.x(), p.y(), p.z());
+            addTriangle(first, prev, current);
+            prev = current;
+        }
+    }
+
+    /**
+     * Adds the specified polygons.
+     *
+     * @param polygons polygons to add
+     */
+    public void addPolygons(List<Polygon> polygons) {
+        for (Polygon p : polygons) {
+            addPolygon(p);
+        }
+    }
+
+    /**
+     * Adds the specified polygons (see {@link #addPolygons(java.util.List)}).
+     *
+     * @param polygons polygons to add
+     */
+    @Override
+    public void accept(List<Polygon> polygons) {
+        addPolygons(polygons);
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the number of triangles.
+     *
+     * @return number of triangles
+     */
+    public long getTriangleCount() {
+        return indexCount / 3;
+    }
+
+    /**
+     * Returns the specified vertex.
+     *
+     * @param vertex vertex index
+     * @return vertex position
+     */
+    public Vector3d getVertex(int vertex) {
+        checkOpen();
+        ByteBuffer chunk = vertexChunks.get(vertex / VERTICES_PER_CHUNK);
+        int off = (vertex % VERTICES_PER_CHUNK) * 3;
+        return Vector3d.xyz(getCoordinate(chunk, off),
+                getCoordinate(chunk, off + 1), getCoordinate(chunk, off + 2));
+    }
+
+    /**
+     * Returns the specified index.
+     *
+     * @param index index position ({@code 3 * triangle + corner})
+     * @return vertex index
+     */
+    public int getIndex(long index) {
+        checkOpen();
+        return indexChunks.get((int) (index / INDICES_PER_CHUNK))
+                .get((int) (index % INDICES_PER_CHUNK));
+    }
+
+    /**
+     * Returns read-only views of the vertex chunks ({@code x, y, z} per
+     * vertex) of a single precision mesh. Chunk {@code i} contains the
+     * vertices {@code [i * VERTICES_PER_CHUNK, (i + 1) * VERTICES_PER_CHUNK)},
+     * the limit of each view is set to the number of used floats.
+     *
+     * @return vertex buffer views (no copies)
+     * @throws IllegalStateException if this mesh uses double precision
+     */
+    public List<FloatBuffer> getVertexBuffers() {
+        checkOpen();
+        if (precision != Precision.FLOAT) {
+            throw new IllegalStateException(
+                    "Illegal precision: mesh uses " + precision + "!");
+        }
+
+        List<FloatBuffer> views = new ArrayList<>(vertexChunks.size());
+        for (int i = 0; i < vertexChunks.size(); i++) {
+            FloatBuffer view = vertexChunks.get(i).asFloatBuffer().asReadOnlyBuffer();
+            view.limit(usedCoordinates(i));
+            views.add(view);
+        }
+        return views;
+    }
+
+    /**
+     * Returns read-only views of the vertex chunks ({@code x, y, z} per
+     * vertex) of a double precision mesh. Chunk {@code i} contains the
+     * vertices {@code [i * VERTICES_PER_CHUNK, (i + 1) * VERTICES_PER_CHUNK)},
+     * the limit of each view is set to the number of used doubles.
+     *
+     * @return vertex buffer views (no copies)
+     * @throws IllegalStateException if this mesh uses single precision
+     */
+    public List<DoubleBuffer> getDoubleVertexBuffers() {
+        checkOpen();
+        if (precision != Precision.DOUBLE) {
+            throw new IllegalStateException(
+                    "Illegal precision: mesh uses " + precision + "!");
+        }
+
+        List<DoubleBuffer> views = new ArrayList<>(vertexChunks.size());
+        for (int i = 0; i < vertexChunks.size(); i++) {
+            DoubleBuffer view = vertexChunks.get(i).asDoubleBuffer().asReadOnlyBuffer();
+            view.limit(usedCoordinates(i));
+            views.add(view);
+        }
+        return views;
+    }
+
+    private int usedCoordinates(int chunk) {
+        return Math.min(VERTICES_PER_CHUNK,
+                vertexCount - chunk * VERTICES_PER_CHUNK) * 3;
+    }
+
+    /**
+     * Returns read-only views of the index chunks (three indices per
+     * triangle, triangles do not span chunks). The limit of each view is set
+     * to the number of used indices.
+     *
+     * @return index buffer views (no copies)
+     */
+    public List<IntBuffer> getIndexBuffers() {
+        checkOpen();
+        List<IntBuffer> views = new ArrayList<>(indexChunks.size());
+        for (int i = 0; i < indexChunks.size(); i++) {
+            IntBuffer view = indexChunks.get(i).asReadOnlyBuffer();
+            view.limit((int) Math.min(INDICES_PER_CHUNK,
+                    indexCount - (long) i * INDICES_PER_CHUNK));
+            views.add(view);
+        }
+        return views;
+    }
+
+    /**
+     * Creates a CSG object from this mesh (one polygon per triangle). This
+     * copies the mesh to the heap and should only be used for moderately
+     * sized meshes.
+     *
+     * @return CSG object
+     */
+    public CSG toCSG() {
+        List<Polygon> polygons = new ArrayList<>((int) Math.min(
+                Integer.MAX_VALUE, getTriangleCount()));
+
+        for (long i = 0; i < indexCount; i += 3) {
+            polygons.add(Polygon.fromPoints(
+                    getVertex(getIndex(i)),
+                    getVertex(getIndex(i + 1)),
+                    getVertex(getIndex(i + 2))));
+        }
+
+        return CSG.fromPolygons(polygons);
+    }
+
+    /**
+     * Releases the buffers of this mesh (direct memory and file mappings are
+     * freed immediately on HotSpot based JVMs, otherwise by the garbage
+     * collector) and closes the scratch file (if any). The mesh cannot be used afterwards. Views
+     * returned by this mesh must not be accessed after closing the mesh.
+     *
+     * @throws UncheckedIOException if the scratch file cannot be closed
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        vertexChunks.clear();
+        indexChunks.clear();
+        vertexCount = 0;
+        indexCount = 0;
+        Arrays.fill(window, -1);
+
+        for (ByteBuffer buffer : buffers) {
+            DirectBuffers.release(buffer);
+        }
+        buffers.clear();
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Parametric path, e.g., a helix or a spline. The path is defined for
+ * {@code t} in {@code [0,1]}. Implementations provide positions and analytic
+ * derivatives which allows curvature adaptive sampling and exact sweep frames
+ * (see
+ * {@link ExtrudeProfile#alongPath(eu.mihosoft.jcsg.ext.path.PathProfile, eu.mihosoft.jcsg.ext.path.ParametricPath, double)}).
+ * Built-in paths are available via {@link ParametricPaths}.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public interface ParametricPath {
+
+    /**
+     * Returns the position at the specified parameter.
+     *
+     * @param t parameter ({@code [0,1]})
+     * @return position
+     */
+    Vector3d position(double t);
+
+    /**
+     * Returns the first derivative at the specified parameter.
+     *
+     * @param t parameter ({@code [0,1]})
+     * @return first derivative
+     */
+    Vector3d derivative(double t);
+
+    /**
+     * Returns the second derivative at the specified parameter. The default
+     * implementation uses central differences of {@link #derivative(double)}.
+     *
+     * @param t parameter ({@code [0,1]})
+     * @return second derivative
+     */
+    default Vector3d secondDerivative(double t) {
+        double h = 1e-5;
+        double t0 = Math.max(0, t - h);
+        double t1 = Math.min(1, t + h);
+        return derivative(t1).minus(derivative(t0)).times(1.0 / (t1 - t0));
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Built-in parametric paths (lines, arcs, helices and splines) and curvature
+ * adaptive sampling of parametric paths.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class ParametricPaths {
+
+    /**
+     * Number of curvature probes per sampling step.
+     */
+    private static final int NUM_PROBES = 8;
+
+    private static final double MIN_STEP = 1e-6;
+
+    private ParametricPaths() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Creates a line from {@code a} to {@code b}.
+     *
+     * @param a start point
+     * @param b end point
+     * @return line
+     */
+    public static ParametricPath line(Vector3d a, Vector3d b) {
+        return new Line(a, b);
+    }
+
+    /**
+     * Creates a circular arc in the XY plane.
+     *
+     * @param center arc center
+     * @param radius arc radius
+     * @param startAngle start angle (in degrees)
+     * @param endAngle end angle (in degrees)
+     * @return arc
+     */
+    public static ParametricPath arc(Vector3d center, double radius,
+            double startAngle, double endAngle) {
+        return new Helix(center, radius, Math.toRadians(startAngle),
+                Math.toRadians(endAngle - startAngle), 0);
+    }
+
+    /**
+     * Creates a helix about the z axis that starts at {@code (radius, 0, 0)}.
+     *
+     * @param radius helix radius
+     * @param pitch height per turn
+     * @param turns number of turns
+     * @return helix
+     */
+    public static ParametricPath helix(double radius, double pitch, double turns) {
+        return new Helix(Vector3d.ZERO, radius, 0,
+                2 * Math.PI * turns, pitch * turns);
+    }
+
+    /**
+     * Creates a uniform Catmull-Rom spline that interpolates the specified
+     * points.
+     *
+     * @param points points to interpolate (at least two)
+     * @return spline
+     */
+    public static ParametricPath catmullRom(List<Vector3d> points) {
+        return new CubicSpline(points, true);
+    }
+
+    /**
+     * Creates a uniform cubic B-spline with the specified control points. The
+     * spline interpolates the first and the last control point.
+     *
+     * @param controlPoints control points (at least two)
+     * @return spline
+     */
+    public static ParametricPath bSpline(List<Vector3d> controlPoints) {
+        return new CubicSpline(controlPoints, false);
+    }
+
+    /**
+     * Samples the specified path. Sample distances are chosen such that the
+     * distance between path and polyline does not exceed the specified
+     * error, i.e., straight parts are sampled sparsely and curved parts
+     * densely.
+     *
+     * @param path path to sample
+     * @param maxError maximum distance between path and polyline ({@code > 0})
+     * @return sample points
+     */
+    public static List<Vector3d> sample(ParametricPath path, double maxError) {
+        double[] ts = sampleParameters(path, maxError);
+        List<Vector3d> result = new ArrayList<>(ts.length);
+        for (double t : ts) {
+            result.add(path.position(t));
+        }
+        return result;
+    }
+
+    /**
+     * Computes curvature adaptive sample parameters. The sagitta of a circular
+     * arc with curvature {@code k} and length {@code s} is approximately
+     * {@code k s^2 / 8}, the parameter step is derived from the maximum
+     * curvature of several probes inside the step. Near zero speed (e.g.
+     * repeated spline points) the curvature estimate is unbounded; there, the
+     * step is grown as long as the arc length of the step does not exceed the
+     * error (a curve of length {@code s} deviates at most {@code s / 2} from
+     * its chord).
+     *
+     * @param path path to sample
+     * @param maxError maximum distance between path and polyline ({@code > 0})
+     * @return sample parameters (first is {@code 0}, last is {@code 1})
+     */
+    static double[] sampleParameters(ParametricPath path, double maxError) {
+        if (!(maxError > 0)) {
+            throw new IllegalArgumentException(
+                    "Illegal error specified: error must be > 0!");
+        }
+
+        double[] ts = new double[64];
+        int n = 0;
+        ts[n++] = 0;
+
+        double t = 0;
+
+        while (t < 1) {
+            double dt = step(path, t, maxError);
+
+            // refine with curvature probes inside the step (curvature may
+            // increase along the step)
+            for (int pass = 0; pass < 2; pass++) {
+                double refined = dt;
+                for (int i = 1; i <= NUM_PROBES; i++) {
+                    double probe = Math.min(1, t + dt * i / NUM_PROBES);
+                    refined = Math.min(refined, step(path, probe, maxError));
+                }
+                dt = refined;
+            }
+
+            while (dt < 1 - t) {
+                double grown = Math.min(1 - t, 2 * dt);
+                if (arcLength(path, t, t + grown) > maxError) {
+                    break;
+                }
+                dt = grown;
+            }
+
+            t = t + dt >= 1 - MIN_STEP ? 1 : t + dt;
+
+            if (n == ts.length) {
+                ts = Arrays.copyOf(ts, n * 2);
+            }
+            ts[n++] = t;
+        }
+
+        return Arrays.copyOf(ts, n);
+    }
+
+    /**
+     * Approximates the arc length between {@code t0} and {@code t1} by the
+     * length of the polyline through the curvature probes.
+     */
+    private static double arcLength(ParametricPath path, double t0, double t1) {
+        double length = 0;
+        Vector3d prev = path.position(t0);
+        for (int i = 1; i <= NUM_PROBES; i++) {
+            Vector3d p = path.position(t0 + (t1 - t0) * i / NUM_PROBES);
+            length += p.minus(prev).magnitude();
+            prev = p;
+        }
+        return length;
+    }
+
+    private static double step(ParametricPath path, double t, double maxError) {
+        Vector3d d1 = path.derivative(t);
+        double speed = d1.magnitude();
+
+        if (speed == 0) {
+            return MIN_STEP;
+        }
+
+        double curvature = d1.crossed(path.secondDerivative(t)).magnitude()
+                / (speed * speed * speed);
+
+        if (curvature == 0) {
+            return 1;
+        }
+
+        double ds = Math.sqrt(8 * maxError / curvature);
+
+        return Math.max(MIN_STEP, Math.min(1, ds / speed));
+    }
+
+    private static final class Line implements ParametricPath {
+
+        private final Vector3d a;
+        private final Vector3d d;
+
+        Line(Vector3d a, Vector3d b) {
+            this.a = a;
+            this.d = b.minus(a);
+        }
+
+        @Override
+        public Vector3d position(double t) {
+            return a.plus(d.times(t));
+        }
+
+        @Override
+        public Vector3d derivative(double t) {
+            return d;
+        }
+
+        @Override
+        public Vector3d secondDerivative(double t) {
+            return Vector3d.ZERO;
+        }
+    }
+
+    /**
+     * Helix about the z axis (arc if height is zero).
+     */
+    private static final class Helix implements ParametricPath {
+
+        private final Vector3d center;
+        private final double radius;
+        private final double startAngle;
+        private final double sweep;
+        private final double height;
+
+        Helix(Vector3d center, double radius, double startAngle,
+                double sweep, double height) {
+            this.center = center;
+            this.radius = radius;
+            this.startAngle = startAngle;
+            this.sweep = sweep;
+            this.height = height;
+        }
+
+        @Override
+        public Vector3d position(double t) {
+            double a = startAngle + sweep * t;
+            return center.plus(radius * Math.cos(a), radius * Math.sin(a), height * t);
+        }
+
+        @Override
+        public Vector3d derivative(double t) {
+            double a = startAngle + sweep * t;
+            return Vector3d.xyz(-radius * sweep * Math.sin(a),
+                    radius * sweep * Math.cos(a), height);
+        }
+
+        @Override
+        public Vector3d secondDerivative(double t) {
+            double a = startAngle + sweep * t;
+            double s2 = sweep * sweep;
+            return Vector3d.xyz(-radius * s2 * Math.cos(a),
+                    -radius * s2 * Math.sin(a), 0);
+        }
+    }
+
+    /**
+     * Uniform cubic spline (Catmull-Rom or B-spline). The end points are
+     * extended by reflection, i.e., both splines pass through the first and
+     * the last point with non-zero derivatives.
+     */
+    private static final class CubicSpline implements ParametricPath {
+
+        private final Vector3d[] q;
+        private final boolean catmullRom;
+        private final int numPieces;
+
+        CubicSpline(List<Vector3d> points, boolean catmullRom) {
+            int n = points.size();
+            if (n < 2) {
+                throw new IllegalArgumentException(
+                        "Illegal points specified: at least two points required!");
+            }
+
+            q = new Vector3d[n + 2];
+            q[0] = points.get(0).times(2).minus(points.get(1));
+            for (int i = 0; i < n; i++) {
+                q[i + 1] = points.get(i);
+            }
+            q[n + 1] = points.get(n - 1).times(2).minus(points.get(n - 2));
+
+            this.catmullRom = catmullRom;
+            this.numPieces = n - 1;
+        }
+
+        private Vector3d eval(double t, int order) {
+            double s = Math.max(0, Math.min(1, t)) * numPieces;
+            int i = Math.min((int) s, numPieces - 1);
+            double u = s - i;
+
+            double w0, w1, w2, w3;
+
+            if (catmullRom) {
+                switch (order) {
+                    case 0:
+                        w0 = 0.5 * (-u + 2 * u * u - u * u * u);
+                        w1 = 0.5 * (2 - 5 * u * u + 3 * u * u * u);
+                        w2 = 0.5 * (u + 4 * u * u - 3 * u * u * u);
+                        w3 = 0.5 * (-u * u + u * u * u);
+                        break;
+                    case 1:
+                        w0 = 0.5 * (-1 + 4 * u - 3 * u * u);
+                        w1 = 0.5 * (-10 * u + 9 * u * u);
+                        w2 = 0.5 * (1 + 8 * u - 9 * u * u);
+                        w3 = 0.5 * (-2 * u + 3 * u * u);
+                        break;
+                    default:
+                        w0 = 0.5 * (4 - 6 * u);
+                        w1 = 0.5 * (-10 + 18 * u);
+                        w2 = 0.5 * (8 - 18 * u);
+                        w3 = 0.5 * (-2 + 6 * u);
+                        break;
+                }
+            } else {
+                double iu = 1 - u;
+                switch (order) {
+                    case 0:
+                        w0 = iu * iu * iu / 6;
+                        w1 = (3 * u * u * u - 6 * u * u + 4) / 6;
+                        w2 = (-3 * u * u * u + 3 * u * u + 3 * u + 1) / 6;
+                        w3 = u * u * u / 6;
+                        break;
+                    case 1:
+                        w0 = -0.5 * iu * iu;
+                        w1 = (9 * u * u - 12 * u) / 6;
+                        w2 = (-9 * u * u + 6 * u + 3) / 6;
+                        w3 = 0.5 * u * u;
+                        break;
+                    default:
+                        w0 = iu;
+                        w1 = 3 * u - 2;
+                        w2 = -3 * u + 1;
+                        w3 = u;
+                        break;
+                }
+            }
+
+            // chain rule: d/dt = numPieces * d/du
+            double scale = Math.pow(numPieces, order);
+
+            Vector3d q0 = q[i], q1 = q[i + 1], q2 = q[i + 2], q3 = q[i + 3];
+
+            return Vector3d.xyz(
+                    (w0 * q0.x() + w1 * q1.x() + w2 * q2.x() + w3 * q3.x()) * scale,
+                    (w0 * q0.y() + w1 * q1.y() + w2 * q2.y() + w3 * q3.y()) * scale,
+                    (w0 * q0.z() + w1 * q1.z() + w2 * q2.z() + w3 * q3.z()) * scale);
+        }
+
+        @Override
+        public Vector3d position(double t) {
+            return eval(t, 0);
+        }
+
+        @Override
+        public Vector3d derivative(double t) {
+            return eval(t, 1);
+        }
+
+        @Override
+        public Vector3d secondDerivative(double t) {
+            return eval(t, 2);
+        }
+    }
+}
@@ -0,0 +1,849 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.ext.path.internal.BezierEvaluator;
+import eu.mihosoft.jcsg.ext.path.internal.PathIteratorAdapter;
+import eu.mihosoft.jcsg.ext.path.internal.PathWorkspace;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable parsed path. Segments are stored in a flat coordinate array
+ * ({@link PathWorkspace#STRIDE} values per segment, absolute coordinates)
+ * together with a cumulative length index. Parsed paths are thread-safe,
+ * i.e., a path can be parsed once and evaluated or sampled from several
+ * threads concurrently without synchronization. All evaluation methods only
+ * use local state.
+ *
+ * The arc length parametrization is the same as the one of
+ * {@link SVGLinearizer#linearizePath(java.lang.String, double)}: parameter
+ * {@code s} is located at length {@code s * getTotalLength()} where segment
+ * lengths are approximated by their control polygons.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class ParsedPath {
+
+    private static final int STRIDE = PathWorkspace.STRIDE;
+
+    /**
+     * Minimum number of segments per chunk for parallel sampling.
+     */
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private final double[] coords;
+    private final byte[] degrees;
+    private final double[] lengths;
+    /**
+     * Cumulative lengths, i.e., segment {@code i} covers
+     * {@code [offsets[i], offsets[i + 1])}.
+     */
+    private final double[] offsets;
+    /**
+     * Index of the first segment of each subpath.
+     */
+    private final int[] subpaths;
+
+    private ParsedPath(PathWorkspace workspace) {
+        int n = workspace.getNumberOfSegments();
+
+        subpaths = new int[workspace.getNumberOfSubpaths()];
+        for (int subpath = 0; subpath < subpaths.length; subpath++) {
+            subpaths[subpath] = workspace.getSubpathStart(subpath);
+        }
+
+        coords = Arrays.copyOf(workspace.getCoords(), n * STRIDE);
+        degrees = new byte[n];
+        lengths = new double[n];
+        offsets = new double[n + 1];
+
+        for (int segment = 0; segment < n; segment++) {
+            degrees[segment] = (byte) workspace.getDegree(segment);
+
+            // unused coordinates may contain stale values of the workspace
+            Arrays.fill(coords, segment * STRIDE + 2 * (degrees[segment] + 1),
+                    (segment + 1) * STRIDE, 0);
+
+            lengths[segment] = workspace.getLength(segment);
+            offsets[segment + 1] = offsets[segment] + lengths[segment];
+        }
+    }
+
+    private ParsedPath(double[] coords, byte[] degrees, int[] subpaths) {
+        int n = degrees.length;
+
+        this.coords = coords;
+        this.degrees = degrees;
+        this.subpaths = subpaths;
+        this.lengths = new double[n];
+        this.offsets = new double[n + 1];
+
+        // control polygon lengths (same as PathWorkspace)
+        for (int segment = 0; segment < n; segment++) {
+            int off = segment * STRIDE;
+            double length = 0;
+            for (int i = 2; i <= degrees[segment] * 2; i += 2) {
+                double dx = coords[off + i] - coords[off + i - 2];
+                double dy = coords[off + i + 1] - coords[off + i - 1];
+                length += Math.sqrt(dx * dx + dy * dy);
+            }
+            lengths[segment] = length;
+            offsets[segment + 1] = offsets[segment] + length;
+        }
+    }
+
+    /**
+     * Parses the specified SVG path.
+     *
+     * @param svgPath svg path to parse, e.g.,
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"}
+     * @return parsed path
+     */
+    public static ParsedPath parse(CharSequence svgPath) {
+        return parse(svgPath, PathTransform.unity());
+    }
+
+    /**
+     * Parses the specified SVG path and applies the specified transform to
+     * the Bezier control points.
+     *
+     * @param svgPath svg path to parse, e.g.,
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"}
+     * @param transform transform to apply
+     * @return parsed path
+     */
+    public static ParsedPath parse(CharSequence svgPath, PathTransform transform) {
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathWorkspace.forCurrentThread();
+        workspace.parse(svgPath);
+        transform.applyTo(workspace);
+
+        ParsedPath path = new ParsedPath(workspace);
+        workspace.trim();
+
+        parseTimer.stop(path.getNumberOfSegments());
+
+        return path;
+    }
+
+    /**
+     * Parses the specified SVG path in parallel (see
+     * {@link PathWorkspace#parseParallel(java.lang.CharSequence)}). Intended
+     * for very large path data (e.g. GIS exports). The result is identical
+     * to {@link #parse(java.lang.CharSequence)}.
+     *
+     * @param svgPath svg path to parse
+     * @return parsed path
+     */
+    public static ParsedPath parseParallel(CharSequence svgPath) {
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace
+                = PathWorkspace.forCurrentThread().parseParallel(svgPath);
+        ParsedPath path = new ParsedPath(workspace);
+        workspace.trim();
+
+        parseTimer.stop(path.getNumberOfSegments());
+
+        return path;
+    }
+
+    /**
+     * Reads the specified AWT shape (e.g., a font glyph outline).
+     *
+     * @param shape shape to read
+     * @return parsed path
+     */
+    public static ParsedPath fromShape(Shape shape) {
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathIteratorAdapter.read(
+                shape.getPathIterator(null), PathWorkspace.forCurrentThread());
+        ParsedPath path = new ParsedPath(workspace);
+        workspace.trim();
+
+        parseTimer.stop(path.getNumberOfSegments());
+
+        return path;
+    }
+
+    /**
+     * Returns a copy of this path with the specified transform applied to the
+     * Bezier control points.
+     *
+     * @param transform transform to apply
+     * @return transformed path
+     */
+    public ParsedPath transformed(PathTransform transform) {
+        if (transform.isUnity()) {
+            return this;
+        }
+
+        double[] m = transform.getMatrix();
+        double[] result = coords.clone();
+
+        for (int segment = 0; segment < degrees.length; segment++) {
+            int off = segment * STRIDE;
+            for (int i = off; i <= off + degrees[segment] * 2; i += 2) {
+                double x = result[i];
+                double y = result[i + 1];
+                result[i] = m[0] * x + m[2] * y + m[4];
+                result[i + 1] = m[1] * x + m[3] * y + m[5];
+            }
+        }
+
+        return new ParsedPath(result, degrees, subpaths);
+    }
+
+    /**
+     * Returns the number of segments.
+     *
+     * @return number of segments
+     */
+    public int getNumberOfSegments() {
+        return degrees.length;
+    }
+
+    /**
+     * Returns the number of subpaths. A subpath starts with the first segment
+     * after a moveto or closepath command and ends before the next subpath.
+     *
+     * @return number of subpaths
+     */
+    public int getNumberOfSubpaths() {
+        return subpaths.length;
+    }
+
+    /**
+     * Returns the index of the first segment of the specified subpath.
+     *
+     * @param subpath subpath index
+     * @return index of the first segment
+     */
+    public int getSubpathStart(int subpath) {
+        return subpaths[subpath];
+    }
+
+    /**
+     * Returns the degree of the specified segment.
+     *
+     * @param segment segment index
+     * @return degree (1 = line, 2 = quadratic, 3 = cubic)
+     */
+    public int getDegree(int segment) {
+        return degrees[segment];
+    }
+
+    /**
+     * Returns the specified control point.
+     *
+     * @param segment segment index
+     * @param index control point index ({@code 0 <= index <= degree})
+     * @return control point
+     */
+    public Vector3d getControlPoint(int segment, int index) {
+        if (index < 0 || index > degrees[segment]) {
+            throw new IndexOutOfBoundsException(
+                    "Illegal control point index specified: " + index + "!");
+        }
+        int off = segment * STRIDE + index * 2;
+        return Vector3d.xy(coords[off], coords[off + 1]);
+    }
+
+    /**
+     * Returns the approximate length (length of the control polygon) of the
+     * specified segment.
+     *
+     * @param segment segment index
+     * @return approximate segment length
+     */
+    public double getLength(int segment) {
+        return lengths[segment];
+    }
+
+    /**
+     * Returns the approximate length of the path (sum of segment lengths).
+     *
+     * @return approximate path length
+     */
+    public double getTotalLength() {
+        return offsets[degrees.length];
+    }
+
+    /**
+     * Returns the exact bounds of this path. Bounds are computed analytically
+     * from the segment end points and the roots of the segment derivatives
+     * (i.e., no linearization is performed). Control points that do not lie
+     * on the path do not affect the bounds.
+     *
+     * @return bounds (empty if this path has no segments)
+     */
+    public PathBounds getBounds() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        double[] coefficients = new double[BezierEvaluator.NUM_COEFFICIENTS];
+        double[] ts = new double[4];
+        double[] p = new double[2];
+
+        for (int segment = 0; segment < degrees.length; segment++) {
+            powerBasis(segment, coefficients, 0);
+
+            // end points (exact)
+            int off = segment * STRIDE;
+            int last = off + 2 * degrees[segment];
+            minX = Math.min(minX, Math.min(coords[off], coords[last]));
+            minY = Math.min(minY, Math.min(coords[off + 1], coords[last + 1]));
+            maxX = Math.max(maxX, Math.max(coords[off], coords[last]));
+            maxY = Math.max(maxY, Math.max(coords[off + 1], coords[last + 1]));
+
+            // extrema
+            int n = BezierEvaluator.derivativeRoots(coefficients, 0, ts, 0);
+            n += BezierEvaluator.derivativeRoots(coefficients, 4, ts, n);
+
+            for (int i = 0; i < n; i++) {
+                BezierEvaluator.eval(coefficients, 0, ts[i], p, 0);
+                minX = Math.min(minX, p[0]);
+                minY = Math.min(minY, p[1]);
+                maxX = Math.max(maxX, p[0]);
+                maxY = Math.max(maxY, p[1]);
+            }
+        }
+
+        return degrees.length == 0 ? PathBounds.empty()
+                : PathBounds.of(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Converts the specified segment to power basis (see
+     * {@link BezierEvaluator#toPowerBasis(double[], int, int, double[], int)}).
+     *
+     * @param segment segment index
+     * @param coefficients output array
+     * @param coeffOff offset in the output array
+     */
+    void powerBasis(int segment, double[] coefficients, int coeffOff) {
+        BezierEvaluator.toPowerBasis(coords, segment * STRIDE,
+                degrees[segment], coefficients, coeffOff);
+    }
+
+    /**
+     * Returns the segment that contains the specified arc length (binary
+     * search in the length index). Lengths outside of the path are clamped.
+     *
+     * @param length arc length
+     * @return segment index (or {@code -1} if this path is empty)
+     */
+    public int segmentAt(double length) {
+        int n = degrees.length;
+        if (n == 0) {
+            return -1;
+        }
+
+        // last segment with offsets[segment] <= length
+        int lo = 0, hi = n - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= length) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        // skip zero length segments
+        while (lo > 0 && lengths[lo] == 0) {
+            lo--;
+        }
+
+        return lo;
+    }
+
+    /**
+     * Evaluates the specified segment.
+     *
+     * @param segment segment index
+     * @param t curve parameter ({@code [0,1]})
+     * @return point on the segment
+     */
+    public Vector3d eval(int segment, double t) {
+        double[] p = new double[2];
+        BezierEvaluator.evalBezier(coords, segment * STRIDE,
+                degrees[segment], t, p, 0);
+        return Vector3d.xy(p[0], p[1]);
+    }
+
+    /**
+     * Returns the specified sample point on this path.
+     *
+     * @param interp interpolation point (range: [0..1])
+     * @return sample point
+     */
+    public Vector3d eval(double interp) {
+        int segment = segmentAt(interp * getTotalLength());
+
+        if (segment < 0) {
+            return Vector3d.ZERO;
+        }
+
+        double length = lengths[segment];
+        double t = length > 0
+                ? (interp * getTotalLength() - offsets[segment]) / length : 0;
+
+        return eval(segment, Math.max(0, Math.min(1, t)));
+    }
+
+    /**
+     * Samples the path. Sample {@code i} is located at arc length parameter
+     * {@code i * step} (see
+     * {@link SVGLinearizer#linearizePath(java.lang.String, double)}).
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @return sample points
+     */
+    public List<Vector3d> sample(double step) {
+        double[] samples = sampleCoords(step);
+        int numSamples = samples.length / 2;
+
+        List<Vector3d> result = new ArrayList<>(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            result.add(Vector3d.xy(samples[i * 2], samples[i * 2 + 1]));
+        }
+
+        return result;
+    }
+
+    /**
+     * Samples the path (see {@link #sample(double)}) and returns the sample
+     * coordinates ({@code x0, y0, x1, y1, ...}).
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @return sample coordinates
+     */
+    public double[] sampleCoords(double step) {
+        checkStep(step);
+
+        int numSamples = PathWorkspace.numberOfSamples(step);
+        double[] samples = new double[numSamples * 2];
+
+        int n = degrees.length;
+        if (n == 0) {
+            return samples;
+        }
+
+        double h = getTotalLength() * step;
+
+        int i = sampleRange(0, n, 0, numSamples, h, samples);
+
+        clampToEnd(i, numSamples, samples);
+
+        return samples;
+    }
+
+    /**
+     * Samples the path in parallel (see {@link #sample(double)}) using the
+     * common fork/join pool.
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @return sample coordinates
+     * @see #sampleCoords(double, java.util.concurrent.ForkJoinPool)
+     */
+    public double[] sampleCoordsParallel(double step) {
+        return sampleCoords(step, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Samples the path in parallel (see {@link #sample(double)}). The segment
+     * array is divided into chunks. The sample counts of the chunks are
+     * computed in parallel, a prefix sum of the counts yields the output
+     * offset of each chunk and the chunks are sampled in parallel into one
+     * preallocated array. The result is identical to
+     * {@link #sampleCoords(double)}.
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @param pool pool to use
+     * @return sample coordinates
+     */
+    public double[] sampleCoords(double step, ForkJoinPool pool) {
+
+        int n = degrees.length;
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                n / (pool.getParallelism() * 4) + 1);
+        int numChunks = (n + chunkSize - 1) / chunkSize;
+
+        if (numChunks < 2) {
+            return sampleCoords(step);
+        }
+
+        checkStep(step);
+
+        int numSamples = PathWorkspace.numberOfSamples(step);
+        double[] samples = new double[numSamples * 2];
+        double h = getTotalLength() * step;
+
+        // phase 1: sample counts per chunk
+        int[] chunkOffsets = new int[numChunks + 1];
+        pool.invoke(new ChunkTask(0, numChunks, chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(n, from + chunkSize);
+            chunkOffsets[chunk + 1] = firstSample(to, numSamples, h)
+                    - firstSample(from, numSamples, h);
+        }));
+
+        // prefix sum: output offsets of the chunks
+        for (int chunk = 0; chunk < numChunks; chunk++) {
+            chunkOffsets[chunk + 1] += chunkOffsets[chunk];
+        }
+
+        // phase 2: sample chunks
+        pool.invoke(new ChunkTask(0, numChunks, chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(n, from + chunkSize);
+            sampleRange(from, to, chunkOffsets[chunk],
+                    chunkOffsets[chunk + 1], h, samples);
+        }));
+
+        clampToEnd(chunkOffsets[numChunks], numSamples, samples);
+
+        return samples;
+    }
+
+    /**
+     * Returns a lazily evaluated stream of the path samples (see
+     * {@link #sample(double)}). Samples are only evaluated when they are
+     * consumed, i.e., short-circuiting operations such as
+     * {@code limit()} or {@code anyMatch()} do not evaluate the whole path.
+     * The stream can be processed in parallel (the underlying spliterator is
+     * split by segment ranges). The samples are identical to the ones of
+     * {@link #sample(double)}.
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @return sample stream
+     */
+    public Stream<Vector3d> stream(double step) {
+        return StreamSupport.stream(spliterator(step), false);
+    }
+
+    /**
+     * Returns a lazily evaluated spliterator over the path samples (see
+     * {@link #stream(double)}).
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @return sample spliterator
+     */
+    public Spliterator<Vector3d> spliterator(double step) {
+        checkStep(step);
+
+        int numSamples = PathWorkspace.numberOfSamples(step);
+
+        return new SampleSpliterator(0, numSamples, numSamples,
+                getTotalLength() * step);
+    }
+
+    /**
+     * Samples the segments {@code [from, to)}.
+     *
+     * @param from first segment
+     * @param to end segment (exclusive)
+     * @param first index of the first sample of segment {@code from}
+     * @param numSamples sample limit (exclusive)
+     * @param h sample distance
+     * @param samples output array
+     * @return index of the first sample after segment {@code to - 1}
+     */
+    private int sampleRange(int from, int to, int first, int numSamples,
+            double h, double[] samples) {
+
+        double[] coefficients = new double[BezierEvaluator.NUM_COEFFICIENTS];
+
+        int i = first;
+        for (int segment = from; segment < to && i < numSamples; segment++) {
+            int start = i;
+            while (i < numSamples && i * h < offsets[segment + 1]) {
+                i++;
+            }
+
+            if (i > start) {
+                double length = lengths[segment];
+                BezierEvaluator.toPowerBasis(coords, segment * STRIDE,
+                        degrees[segment], coefficients, 0);
+                BezierEvaluator.evalUniform(coefficients, 0,
+                        (start * h - offsets[segment]) / length, h / length,
+                        i - start, samples, start * 2);
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns the segment of the specified sample, i.e., the first segment
+     * with {@code i * h < offsets[segment + 1]} (or the number of segments if
+     * the sample is clamped to the end point).
+     */
+    private int segmentOfSample(int i, double h) {
+        double length = i * h;
+        int lo = 0, hi = degrees.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (length < offsets[mid + 1]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the index of the first sample of the specified segment, i.e.,
+     * the number of samples {@code i} with {@code i * h < offsets[segment]}.
+     */
+    private int firstSample(int segment, int numSamples, double h) {
+        double offset = offsets[segment];
+        int i = (int) Math.min(numSamples, Math.max(0, Math.ceil(offset / h)));
+        while (i > 0 && (i - 1) * h >= offset) {
+            i--;
+        }
+        while (i < numSamples && i * h < offset) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Clamps the samples {@code [i, numSamples)} to the end point of the path
+     * (rounding errors).
+     */
+    private void clampToEnd(int i, int numSamples, double[] samples) {
+        int n = degrees.length;
+        int off = (n - 1) * STRIDE + 2 * degrees[n - 1];
+        for (; i < numSamples; i++) {
+            samples[i * 2] = coords[off];
+            samples[i * 2 + 1] = coords[off + 1];
+        }
+    }
+
+    private static void checkStep(double step) {
+        if (!(step > 0) || !(step < 1)) {
+            throw new IllegalArgumentException(
+                    "Illegal step specified: step must be > 0 and < 1!");
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ParsedPath)) {
+            return false;
+        }
+        ParsedPath other = (ParsedPath) obj;
+        return Arrays.equals(degrees, other.degrees)
+                && Arrays.equals(subpaths, other.subpaths)
+                && Arrays.equals(coords, other.coords);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(degrees);
+        hash = 31 * hash + Arrays.hashCode(subpaths);
+        return 31 * hash + Arrays.hashCode(coords);
+    }
+
+    /**
+     * Applies an action to a range of chunks (recursive bisection).
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        ChunkTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, action),
+                    new ChunkTask(mid, to, action));
+        }
+    }
+
+    /**
+     * Spliterator over the samples {@code [index, end)}. Samples are
+     * evaluated one by one, the power basis of the current segment is cached.
+     * Sample parameters are computed as in {@link #sampleRange}, i.e.,
+     * relative to the first sample of the segment, which makes the samples
+     * identical to the ones of {@link #sampleCoords(double)}.
+     */
+    private final class SampleSpliterator implements Spliterator<Vector3d> {
+
+        private final int numSamples;
+        private final double h;
+        private final double[] coefficients
+                = new double[BezierEvaluator.NUM_COEFFICIENTS];
+        private final double[] point = new double[2];
+
+        private int index;
+        private final int end;
+        private int segment = -1;
+
+        // first sample, its parameter and the parameter step of the segment
+        private int first;
+        private double t0;
+        private double dt;
+
+        SampleSpliterator(int index, int end, int numSamples, double h) {
+            this.index = index;
+            this.end = end;
+            this.numSamples = numSamples;
+            this.h = h;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Vector3d> action) {
+            if (index >= end) {
+                return false;
+            }
+
+            action.accept(eval(index++));
+
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Vector3d> action) {
+            while (index < end) {
+                action.accept(eval(index++));
+            }
+        }
+
+        private Vector3d eval(int i) {
+            int n = degrees.length;
+
+            if (n == 0) {
+                return Vector3d.ZERO;
+            }
+
+            if (segment < 0) {
+                segment = segmentOfSample(i, h);
+                loadSegment();
+            }
+
+            // advance to the segment of sample i
+            double length = i * h;
+            while (segment < n && !(length < offsets[segment + 1])) {
+                segment++;
+                loadSegment();
+            }
+
+            if (segment == n) {
+                // rounding errors: clamp to end point of the path
+                int off = (n - 1) * STRIDE + 2 * degrees[n - 1];
+                return Vector3d.xy(coords[off], coords[off + 1]);
+            }
+
+            BezierEvaluator.eval(coefficients, 0, t0 + (i - first) * dt,
+                    point, 0);
+
+            return Vector3d.xy(point[0], point[1]);
+        }
+
+        private void loadSegment() {
+            if (segment < degrees.length) {
+                BezierEvaluator.toPowerBasis(coords, segment * STRIDE,
+                        degrees[segment], coefficients, 0);
+                double length = lengths[segment];
+                first = firstSample(segment, numSamples, h);
+                t0 = (first * h - offsets[segment]) / length;
+                dt = h / length;
+            }
+        }
+
+        @Override
+        public Spliterator<Vector3d> trySplit() {
+            if (end - index < 2 || degrees.length == 0) {
+                return null;
+            }
+
+            // split at the first sample of the middle segment (segment
+            // ranges), fall back to sample ranges inside of long segments
+            int first = segmentOfSample(index, h);
+            int last = segmentOfSample(end - 1, h);
+            int mid = index + (end - index) / 2;
+
+            if (last - first >= 2) {
+                int split = firstSample((first + last) >>> 1, numSamples, h);
+                if (split > index && split < end) {
+                    mid = split;
+                }
+            }
+
+            SampleSpliterator prefix
+                    = new SampleSpliterator(index, mid, numSamples, h);
+
+            index = mid;
+            segment = -1;
+
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+}
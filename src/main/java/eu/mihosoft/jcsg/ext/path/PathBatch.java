@@ -0,0 +1,359 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.jcsg.Vertex;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Batch import of SVG paths with geometry deduplication. Documents often
+ * repeat the same path geometry many times (e.g. bolt holes or logos) with
+ * different transforms or at different positions. Each path is parsed and
+ * normalized (translated to the origin), the normalized geometry is hashed
+ * and each unique shape is extruded only once. Repeats are expressed as
+ * instances (shape plus transform). Copies are only materialized if a flat
+ * output is requested via {@link Result#toCSG()}.
+ *
+ * Shapes are extruded in path units, i.e., step size and extension refer to
+ * the untransformed path (instance transforms are applied to the extruded
+ * shapes). Sample usage:
+ *
+ * <pre><code>
+ * PathBatch.Result result = new PathBatch(1.0, 0.01, 0)
+ *     .add(hole, PathTransform.unity().translate(10, 0))
+ *     .add(hole, PathTransform.unity().translate(20, 0))
+ *     .process();
+ *
+ * CSG flat = result.toCSG();
+ * </code></pre>
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathBatch {
+
+    /**
+     * Relative resolution of geometry keys (coordinates that differ by less
+     * are considered equal).
+     */
+    private static final double KEY_RESOLUTION = 0x1p-32;
+
+    private final double height;
+    private final double stepSize;
+    private final double extension;
+
+    private final List<ParsedPath> paths = new ArrayList<>();
+    private final List<PathTransform> transforms = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the paths along vertex normals (XY plane)
+     */
+    public PathBatch(double height, double stepSize, double extension) {
+        this.height = height;
+        this.stepSize = stepSize;
+        this.extension = extension;
+    }
+
+    /**
+     * Adds the specified closed SVG path (without holes).
+     *
+     * @param path path to add
+     * @return this batch
+     */
+    public PathBatch add(String path) {
+        return add(path, PathTransform.unity());
+    }
+
+    /**
+     * Adds the specified closed SVG path (without holes).
+     *
+     * @param path path to add
+     * @param transform transform of the path (e.g. parsed from the SVG
+     * {@code transform} attribute via {@link PathTransform#parse(java.lang.String)})
+     * @return this batch
+     */
+    public PathBatch add(String path, PathTransform transform) {
+        return add(ParsedPath.parse(path), transform);
+    }
+
+    /**
+     * Adds the specified closed path (without holes).
+     *
+     * @param path path to add
+     * @param transform transform of the path
+     * @return this batch
+     */
+    public PathBatch add(ParsedPath path, PathTransform transform) {
+        paths.add(path);
+        transforms.add(transform);
+        return this;
+    }
+
+    /**
+     * Deduplicates and extrudes the paths of this batch. Unique shapes are
+     * extruded in parallel.
+     *
+     * @return result
+     */
+    public Result process() {
+
+        Map<GeometryKey, Integer> shapeIndices = new HashMap<>();
+        List<ParsedPath> uniquePaths = new ArrayList<>();
+
+        int[] instanceShapes = new int[paths.size()];
+        List<PathTransform> instanceTransforms = new ArrayList<>(paths.size());
+
+        for (int i = 0; i < paths.size(); i++) {
+            ParsedPath path = paths.get(i);
+
+            // normalize: translate to the origin
+            PathBounds bounds = path.getBounds();
+            double dx = bounds.isEmpty() ? 0 : bounds.getMinX();
+            double dy = bounds.isEmpty() ? 0 : bounds.getMinY();
+            ParsedPath normalized = path.transformed(
+                    PathTransform.unity().translate(-dx, -dy));
+
+            GeometryKey key = new GeometryKey(normalized, bounds);
+
+            Integer shape = shapeIndices.get(key);
+            if (shape == null) {
+                shape = uniquePaths.size();
+                shapeIndices.put(key, shape);
+                uniquePaths.add(normalized);
+            }
+
+            instanceShapes[i] = shape;
+            instanceTransforms.add(transforms.get(i).translate(dx, dy));
+        }
+
+        List<CSG> shapes = uniquePaths.parallelStream().map(path
+                -> SVGPath.extrude(LinearPathUtil.extend(
+                        SVGLinearizer.linearizePath(path, stepSize),
+                        extension), height)).collect(Collectors.toList());
+
+        List<Instance> instances = new ArrayList<>(paths.size());
+        for (int i = 0; i < instanceShapes.length; i++) {
+            instances.add(new Instance(instanceShapes[i],
+                    shapes.get(instanceShapes[i]), instanceTransforms.get(i)));
+        }
+
+        return new Result(shapes, instances);
+    }
+
+    /**
+     * Shape instance (extruded shape plus transform).
+     */
+    public static final class Instance {
+
+        private final int shapeIndex;
+        private final CSG shape;
+        private final PathTransform transform;
+
+        private Instance(int shapeIndex, CSG shape, PathTransform transform) {
+            this.shapeIndex = shapeIndex;
+            this.shape = shape;
+            this.transform = transform;
+        }
+
+        /**
+         * Returns the index of the shape (see {@link Result#getShapes()}).
+         *
+         * @return shape index
+         */
+        public int getShapeIndex() {
+            return shapeIndex;
+        }
+
+        /**
+         * Returns the shape (shared by all instances of the shape, must not
+         * be modified).
+         *
+         * @return shape
+         */
+        public CSG getShape() {
+            return shape;
+        }
+
+        /**
+         * Returns the transform of this instance (XY plane).
+         *
+         * @return transform
+         */
+        public PathTransform getTransform() {
+            return transform;
+        }
+
+        /**
+         * Returns the polygons of this instance, i.e., the transformed
+         * polygons of the shape. Mirroring transforms reverse the vertex
+         * order, i.e., polygons keep facing outwards.
+         *
+         * @return polygons
+         */
+        public List<Polygon> toPolygons() {
+            List<Polygon> shapePolygons = shape.getPolygons();
+            List<Polygon> result = new ArrayList<>(shapePolygons.size());
+            boolean mirroring = transform.isMirroring();
+
+            for (Polygon polygon : shapePolygons) {
+                List<Vector3d> points = new ArrayList<>(polygon.vertices.size());
+                for (Vertex v : polygon.vertices) {
+                    points.add(transform.transform(v.pos));
+                }
+                if (mirroring) {
+                    Collections.reverse(points);
+                }
+                result.add(Polygon.fromPoints(points));
+            }
+
+            return result;
+        }
+
+        /**
+         * Materializes this instance.
+         *
+         * @return CSG object
+         */
+        public CSG toCSG() {
+            return CSG.fromPolygons(toPolygons());
+        }
+    }
+
+    /**
+     * Batch result (unique shapes and instances).
+     */
+    public static final class Result {
+
+        private final List<CSG> shapes;
+        private final List<Instance> instances;
+
+        private Result(List<CSG> shapes, List<Instance> instances) {
+            this.shapes = Collections.unmodifiableList(shapes);
+            this.instances = Collections.unmodifiableList(instances);
+        }
+
+        /**
+         * Returns the unique (extruded) shapes. Shapes are located at the
+         * origin, i.e., the minimum corner of the path bounds is
+         * {@code (0, 0)}.
+         *
+         * @return unique shapes (unmodifiable)
+         */
+        public List<CSG> getShapes() {
+            return shapes;
+        }
+
+        /**
+         * Returns the instances (one instance per path, in the order the paths
+         * were added).
+         *
+         * @return instances (unmodifiable)
+         */
+        public List<Instance> getInstances() {
+            return instances;
+        }
+
+        /**
+         * Materializes all instances and returns a flat CSG object. The
+         * instance polygons are concatenated (no CSG union is performed).
+         *
+         * @return CSG object
+         */
+        public CSG toCSG() {
+            Metrics.Timer timer = Metrics.start(PathMetrics.Stage.CSG_ASSEMBLY);
+
+            List<Polygon> polygons = new ArrayList<>();
+            for (Instance instance : instances) {
+                polygons.addAll(instance.toPolygons());
+            }
+
+            timer.stop(polygons.size());
+
+            return CSG.fromPolygons(polygons);
+        }
+    }
+
+    /**
+     * Hash key of normalized geometry. Coordinates are quantized relative to
+     * the size of the path (rounded to a power of two, i.e., paths of equal
+     * size use the same quantization).
+     */
+    private static final class GeometryKey {
+
+        private final long[] values;
+        private final int hash;
+
+        GeometryKey(ParsedPath path, PathBounds bounds) {
+            double extent = Math.max(bounds.getWidth(), bounds.getHeight());
+            double quantum = (extent > 0
+                    ? Math.scalb(1.0, Math.getExponent(extent) + 1)
+                    : 1.0) * KEY_RESOLUTION;
+
+            int n = path.getNumberOfSegments();
+            int numValues = 1;
+            for (int segment = 0; segment < n; segment++) {
+                numValues += 1 + 2 * (path.getDegree(segment) + 1);
+            }
+
+            values = new long[numValues];
+            int i = 0;
+            values[i++] = Double.doubleToLongBits(quantum);
+
+            for (int segment = 0; segment < n; segment++) {
+                int degree = path.getDegree(segment);
+                values[i++] = degree;
+                for (int k = 0; k <= degree; k++) {
+                    Vector3d p = path.getControlPoint(segment, k);
+                    values[i++] = Math.round(p.x() / quantum);
+                    values[i++] = Math.round(p.y() / quantum);
+                }
+            }
+
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof GeometryKey
+                    && hash == ((GeometryKey) obj).hash
+                    && Arrays.equals(values, ((GeometryKey) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
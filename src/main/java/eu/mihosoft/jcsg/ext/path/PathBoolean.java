@@ -0,0 +1,976 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Boolean operations on linear closed paths (XY plane), e.g. on paths
+ * returned by {@link SVGLinearizer}. Merging outlines in 2D and extruding the
+ * result once is considerably faster than extruding each outline and merging
+ * the extrusions with 3D CSG operations.
+ *
+ * Coordinates are snapped to an integer grid (2^30 steps along the larger
+ * side of the bounding box) which allows exact orientation predicates. Edge
+ * intersections are detected with a uniform grid. Winding numbers of all edges
+ * are computed with a single plane sweep (Martinez-Rueda style segment order).
+ * Contours are interpreted with the nonzero fill rule (or the even-odd rule,
+ * see {@link #resolve(java.util.List, boolean)}). Result contours are
+ * counter-clockwise (outlines) and clockwise (holes).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathBoolean {
+
+    /**
+     * Number of grid steps along the larger side of the bounding box.
+     */
+    private static final long RESOLUTION = 1L << 30;
+
+    /**
+     * Maximum number of intersection passes (snapping intersections to the
+     * grid may introduce new intersections).
+     */
+    private static final int MAX_INTERSECTION_PASSES = 8;
+
+    /**
+     * Boolean operations.
+     */
+    public enum Operation {
+        /**
+         * Union of subject and clip.
+         */
+        UNION,
+        /**
+         * Intersection of subject and clip.
+         */
+        INTERSECTION,
+        /**
+         * Subject minus clip.
+         */
+        DIFFERENCE,
+        /**
+         * Symmetric difference of subject and clip.
+         */
+        XOR;
+
+        boolean isInside(boolean subject, boolean clip) {
+            switch (this) {
+                case UNION:
+                    return subject || clip;
+                case INTERSECTION:
+                    return subject && clip;
+                case DIFFERENCE:
+                    return subject && !clip;
+                default:
+                    return subject != clip;
+            }
+        }
+    }
+
+    private PathBoolean() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Computes the union of the specified closed paths. Each path is
+     * interpreted as filled region (nonzero fill rule) regardless of its
+     * orientation. Paths are resolved separately before they are merged,
+     * i.e., lobes of a self-intersecting path with negative winding do not
+     * cancel the fill of other paths.
+     *
+     * @param paths paths to merge (XY plane)
+     * @return result contours (outlines ccw, holes cw)
+     */
+    public static List<List<Vector3d>> union(List<List<Vector3d>> paths) {
+        List<List<Vector3d>> resolved = new ArrayList<>(paths.size());
+
+        for (List<Vector3d> path : paths) {
+            resolved.addAll(resolve(Collections.singletonList(path), false));
+        }
+
+        if (paths.size() < 2) {
+            return resolved;
+        }
+
+        return apply(Operation.UNION, resolved, Collections.emptyList());
+    }
+
+    /**
+     * Applies the specified boolean operation. Subject and clip contours are
+     * interpreted with the nonzero fill rule, i.e., holes have to be oriented
+     * opposite to their outlines (as returned by this method).
+     *
+     * @param op operation
+     * @param subject subject contours (XY plane)
+     * @param clip clip contours (XY plane)
+     * @return result contours (outlines ccw, holes cw)
+     */
+    public static List<List<Vector3d>> apply(Operation op,
+            List<List<Vector3d>> subject, List<List<Vector3d>> clip) {
+        return apply(op, subject, clip, false);
+    }
+
+    /**
+     * Resolves the specified contours, i.e., computes the outlines and holes
+     * of the region enclosed by the contours with the specified fill rule
+     * (e.g. the fill rule of a {@code java.awt.geom.PathIterator}).
+     *
+     * @param contours contours (XY plane)
+     * @param evenOdd {@code true} for the even-odd fill rule,
+     * {@code false} for the nonzero fill rule
+     * @return result contours (outlines ccw, holes cw)
+     */
+    public static List<List<Vector3d>> resolve(List<List<Vector3d>> contours,
+            boolean evenOdd) {
+        return apply(Operation.UNION, contours, Collections.emptyList(), evenOdd);
+    }
+
+    private static List<List<Vector3d>> apply(Operation op,
+            List<List<Vector3d>> subject, List<List<Vector3d>> clip,
+            boolean evenOdd) {
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        int numPoints = 0;
+
+        for (List<List<Vector3d>> operand : Arrays.asList(subject, clip)) {
+            for (List<Vector3d> contour : operand) {
+                for (Vector3d p : contour) {
+                    minX = Math.min(minX, p.x());
+                    minY = Math.min(minY, p.y());
+                    maxX = Math.max(maxX, p.x());
+                    maxY = Math.max(maxY, p.y());
+                }
+                numPoints += contour.size();
+            }
+        }
+
+        if (numPoints == 0) {
+            return new ArrayList<>();
+        }
+
+        double extent = Math.max(maxX - minX, maxY - minY);
+        double scale = extent > 0 ? extent / RESOLUTION : 1;
+
+        Engine engine = new Engine(minX, minY, scale, numPoints);
+
+        for (List<Vector3d> contour : subject) {
+            engine.addContour(contour, 0);
+        }
+        for (List<Vector3d> contour : clip) {
+            engine.addContour(contour, 1);
+        }
+
+        return engine.compute(op, evenOdd);
+    }
+
+    /**
+     * Groups the specified contours (as returned by
+     * {@link #apply(eu.mihosoft.jcsg.ext.path.PathBoolean.Operation, java.util.List, java.util.List)})
+     * into regions, i.e., outlines and their holes.
+     *
+     * @param contours contours to group (outlines ccw, holes cw)
+     * @return regions
+     */
+    public static List<Region> toRegions(List<List<Vector3d>> contours) {
+        List<Region> regions = new ArrayList<>();
+        List<double[]> outlineBounds = new ArrayList<>();
+        List<Double> outlineAreas = new ArrayList<>();
+        List<List<Vector3d>> holes = new ArrayList<>();
+
+        for (List<Vector3d> contour : contours) {
+            double area = signedArea(contour);
+            if (area > 0) {
+                regions.add(new Region(contour));
+                outlineBounds.add(bounds(contour));
+                outlineAreas.add(area);
+            } else if (area < 0) {
+                holes.add(contour);
+            }
+        }
+
+        for (List<Vector3d> hole : holes) {
+            // test point slightly to the left of the first hole edge, i.e.,
+            // inside the region that contains the hole
+            Vector3d a = hole.get(0);
+            Vector3d b = hole.get(1);
+            Vector3d d = b.minus(a);
+            double px = (a.x() + b.x()) * 0.5 - d.y() * 1e-6;
+            double py = (a.y() + b.y()) * 0.5 + d.x() * 1e-6;
+
+            int best = -1;
+            for (int i = 0; i < regions.size(); i++) {
+                double[] bb = outlineBounds.get(i);
+                if (px < bb[0] || px > bb[2] || py < bb[1] || py > bb[3]) {
+                    continue;
+                }
+                if ((best < 0 || outlineAreas.get(i) < outlineAreas.get(best))
+                        && contains(regions.get(i).getOutline(), px, py)) {
+                    best = i;
+                }
+            }
+
+            if (best >= 0) {
+                regions.get(best).holes.add(hole);
+            }
+        }
+
+        return regions;
+    }
+
+    /**
+     * Region, i.e., an outline (ccw) and its holes (cw).
+     */
+    public static final class Region {
+
+        private final List<Vector3d> outline;
+        private final List<List<Vector3d>> holes = new ArrayList<>();
+
+        private Region(List<Vector3d> outline) {
+            this.outline = outline;
+        }
+
+        /**
+         * Returns the outline of this region.
+         *
+         * @return outline (ccw)
+         */
+        public List<Vector3d> getOutline() {
+            return outline;
+        }
+
+        /**
+         * Returns the holes of this region.
+         *
+         * @return holes (cw)
+         */
+        public List<List<Vector3d>> getHoles() {
+            return holes;
+        }
+    }
+
+    static double signedArea(List<Vector3d> contour) {
+        double sum = 0;
+        for (int i = 0, j = contour.size() - 1; i < contour.size(); j = i++) {
+            Vector3d pi = contour.get(i);
+            Vector3d pj = contour.get(j);
+            sum += (pj.x() - pi.x()) * (pi.y() + pj.y());
+        }
+        return sum * 0.5;
+    }
+
+    private static double[] bounds(List<Vector3d> contour) {
+        double[] bb = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (Vector3d p : contour) {
+            bb[0] = Math.min(bb[0], p.x());
+            bb[1] = Math.min(bb[1], p.y());
+            bb[2] = Math.max(bb[2], p.x());
+            bb[3] = Math.max(bb[3], p.y());
+        }
+        return bb;
+    }
+
+    private static boolean contains(List<Vector3d> contour, double px, double py) {
+        boolean inside = false;
+        for (int i = 0, j = contour.size() - 1; i < contour.size(); j = i++) {
+            Vector3d pi = contour.get(i);
+            Vector3d pj = contour.get(j);
+            if ((pi.y() > py) != (pj.y() > py)
+                    && px < (pj.x() - pi.x()) * (py - pi.y()) / (pj.y() - pi.y()) + pi.x()) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Primitive int comparator (avoids boxing while sorting).
+     */
+    private interface IntComparator {
+
+        int compare(int a, int b);
+    }
+
+    /**
+     * Stable merge sort of the first {@code n} elements of the specified
+     * array.
+     */
+    private static void sort(int[] a, int n, IntComparator c) {
+        int[] tmp = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    tmp[k++] = c.compare(a[i], a[j]) <= 0 ? a[i++] : a[j++];
+                }
+                while (i < mid) {
+                    tmp[k++] = a[i++];
+                }
+                while (j < hi) {
+                    tmp[k++] = a[j++];
+                }
+                System.arraycopy(tmp, lo, a, lo, hi - lo);
+            }
+        }
+    }
+
+    /**
+     * Boolean engine operating on snapped integer coordinates.
+     */
+    private static final class Engine {
+
+        private final double minX;
+        private final double minY;
+        private final double scale;
+
+        // vertices
+        private final LongIntHashMap vertexIds;
+        private long[] vx;
+        private long[] vy;
+        private int numVertices;
+
+        // input edges (directed)
+        private int[] edgeFrom;
+        private int[] edgeTo;
+        private int[] edgeOperand;
+        private int numEdges;
+
+        Engine(double minX, double minY, double scale, int expectedSize) {
+            this.minX = minX;
+            this.minY = minY;
+            this.scale = scale;
+
+            int capacity = Math.max(16, expectedSize);
+            vertexIds = new LongIntHashMap(capacity);
+            vx = new long[capacity];
+            vy = new long[capacity];
+            edgeFrom = new int[capacity];
+            edgeTo = new int[capacity];
+            edgeOperand = new int[capacity];
+        }
+
+        int vertex(long x, long y) {
+            long key = (x << 32) | y;
+            int id = vertexIds.get(key, -1);
+
+            if (id < 0) {
+                if (numVertices == vx.length) {
+                    vx = Arrays.copyOf(vx, numVertices * 2);
+                    vy = Arrays.copyOf(vy, numVertices * 2);
+                }
+                id = numVertices++;
+                vx[id] = x;
+                vy[id] = y;
+                vertexIds.put(key, id);
+            }
+
+            return id;
+        }
+
+        void addEdge(int from, int to, int operand) {
+            if (from == to) {
+                return;
+            }
+            if (numEdges == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, numEdges * 2);
+                edgeTo = Arrays.copyOf(edgeTo, numEdges * 2);
+                edgeOperand = Arrays.copyOf(edgeOperand, numEdges * 2);
+            }
+            edgeFrom[numEdges] = from;
+            edgeTo[numEdges] = to;
+            edgeOperand[numEdges] = operand;
+            numEdges++;
+        }
+
+        void addContour(List<Vector3d> contour, int operand) {
+            int n = contour.size();
+            if (n < 3) {
+                return;
+            }
+
+            int first = -1;
+            int prev = -1;
+
+            for (Vector3d p : contour) {
+                int v = vertex(Math.round((p.x() - minX) / scale),
+                        Math.round((p.y() - minY) / scale));
+                if (first < 0) {
+                    first = v;
+                } else {
+                    addEdge(prev, v, operand);
+                }
+                prev = v;
+            }
+
+            addEdge(prev, first, operand);
+        }
+
+        /**
+         * Orientation of c with respect to the directed line a->b (exact).
+         */
+        private int orient(int a, int b, int c) {
+            long v = (vx[b] - vx[a]) * (vy[c] - vy[a])
+                    - (vy[b] - vy[a]) * (vx[c] - vx[a]);
+            return Long.signum(v);
+        }
+
+        /**
+         * Lexicographic vertex order (x, then y).
+         */
+        private int compareVertices(int a, int b) {
+            if (vx[a] != vx[b]) {
+                return vx[a] < vx[b] ? -1 : 1;
+            }
+            if (vy[a] != vy[b]) {
+                return vy[a] < vy[b] ? -1 : 1;
+            }
+            return 0;
+        }
+
+        List<List<Vector3d>> compute(Operation op, boolean evenOdd) {
+            splitIntersections();
+            return sweep(op, evenOdd);
+        }
+
+        // ---------------------------------------------------------------------
+        // intersections
+        // ---------------------------------------------------------------------
+
+        private int[] splitEdge = new int[64];
+        private int[] splitVertex = new int[64];
+        private int numSplits;
+
+        private void addSplit(int edge, int vertex) {
+            if (vertex == edgeFrom[edge] || vertex == edgeTo[edge]) {
+                return;
+            }
+            if (numSplits == splitEdge.length) {
+                splitEdge = Arrays.copyOf(splitEdge, numSplits * 2);
+                splitVertex = Arrays.copyOf(splitVertex, numSplits * 2);
+            }
+            splitEdge[numSplits] = edge;
+            splitVertex[numSplits] = vertex;
+            numSplits++;
+        }
+
+        private void splitIntersections() {
+            for (int pass = 0; pass < MAX_INTERSECTION_PASSES; pass++) {
+                numSplits = 0;
+                findIntersections();
+                if (numSplits == 0) {
+                    break;
+                }
+                applySplits();
+            }
+        }
+
+        private void findIntersections() {
+            if (numEdges < 2) {
+                return;
+            }
+
+            long gMinX = Long.MAX_VALUE, gMinY = Long.MAX_VALUE;
+            long gMaxX = Long.MIN_VALUE, gMaxY = Long.MIN_VALUE;
+
+            for (int i = 0; i < numVertices; i++) {
+                gMinX = Math.min(gMinX, vx[i]);
+                gMinY = Math.min(gMinY, vy[i]);
+                gMaxX = Math.max(gMaxX, vx[i]);
+                gMaxY = Math.max(gMaxY, vy[i]);
+            }
+
+            int cellsPerAxis = (int) Math.max(1,
+                    Math.min(2048, Math.ceil(Math.sqrt(numEdges))));
+            long cellSize = Math.max(1,
+                    (Math.max(gMaxX - gMinX, gMaxY - gMinY) + cellsPerAxis)
+                    / cellsPerAxis);
+            int nx = (int) ((gMaxX - gMinX) / cellSize) + 1;
+            int ny = (int) ((gMaxY - gMinY) / cellSize) + 1;
+
+            // count edges per cell (csr layout)
+            int[] cellStart = new int[nx * ny + 1];
+
+            for (int e = 0; e < numEdges; e++) {
+                int a = edgeFrom[e], b = edgeTo[e];
+                int cx0 = (int) ((Math.min(vx[a], vx[b]) - gMinX) / cellSize);
+                int cx1 = (int) ((Math.max(vx[a], vx[b]) - gMinX) / cellSize);
+                int cy0 = (int) ((Math.min(vy[a], vy[b]) - gMinY) / cellSize);
+                int cy1 = (int) ((Math.max(vy[a], vy[b]) - gMinY) / cellSize);
+                for (int cy = cy0; cy <= cy1; cy++) {
+                    for (int cx = cx0; cx <= cx1; cx++) {
+                        cellStart[cy * nx + cx + 1]++;
+                    }
+                }
+            }
+
+            for (int i = 0; i < nx * ny; i++) {
+                cellStart[i + 1] += cellStart[i];
+            }
+
+            int[] cellEdges = new int[cellStart[nx * ny]];
+            int[] fill = Arrays.copyOf(cellStart, nx * ny);
+
+            for (int e = 0; e < numEdges; e++) {
+                int a = edgeFrom[e], b = edgeTo[e];
+                int cx0 = (int) ((Math.min(vx[a], vx[b]) - gMinX) / cellSize);
+                int cx1 = (int) ((Math.max(vx[a], vx[b]) - gMinX) / cellSize);
+                int cy0 = (int) ((Math.min(vy[a], vy[b]) - gMinY) / cellSize);
+                int cy1 = (int) ((Math.max(vy[a], vy[b]) - gMinY) / cellSize);
+                for (int cy = cy0; cy <= cy1; cy++) {
+                    for (int cx = cx0; cx <= cx1; cx++) {
+                        cellEdges[fill[cy * nx + cx]++] = e;
+                    }
+                }
+            }
+
+            // test all pairs per cell; each pair is only tested in the cell
+            // that contains the min corner of the intersection of both bboxes
+            for (int cy = 0; cy < ny; cy++) {
+                for (int cx = 0; cx < nx; cx++) {
+                    int cell = cy * nx + cx;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        for (int j = i + 1; j < cellStart[cell + 1]; j++) {
+                            int e = cellEdges[i];
+                            int f = cellEdges[j];
+
+                            int a = edgeFrom[e], b = edgeTo[e];
+                            int c = edgeFrom[f], d = edgeTo[f];
+
+                            long ox = Math.max(Math.min(vx[a], vx[b]), Math.min(vx[c], vx[d]));
+                            long oy = Math.max(Math.min(vy[a], vy[b]), Math.min(vy[c], vy[d]));
+                            long ox1 = Math.min(Math.max(vx[a], vx[b]), Math.max(vx[c], vx[d]));
+                            long oy1 = Math.min(Math.max(vy[a], vy[b]), Math.max(vy[c], vy[d]));
+
+                            if (ox > ox1 || oy > oy1) {
+                                continue; // bboxes do not overlap
+                            }
+
+                            if ((int) ((ox - gMinX) / cellSize) != cx
+                                    || (int) ((oy - gMinY) / cellSize) != cy) {
+                                continue; // tested in another cell
+                            }
+
+                            intersect(e, f);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean onSegment(int a, int b, int p) {
+            return vx[p] >= Math.min(vx[a], vx[b]) && vx[p] <= Math.max(vx[a], vx[b])
+                    && vy[p] >= Math.min(vy[a], vy[b]) && vy[p] <= Math.max(vy[a], vy[b]);
+        }
+
+        private void intersect(int e, int f) {
+            int a = edgeFrom[e], b = edgeTo[e];
+            int c = edgeFrom[f], d = edgeTo[f];
+
+            int o1 = orient(a, b, c);
+            int o2 = orient(a, b, d);
+            int o3 = orient(c, d, a);
+            int o4 = orient(c, d, b);
+
+            if (o1 * o2 < 0 && o3 * o4 < 0) {
+                // proper intersection, snap to grid
+                double dxab = vx[b] - vx[a], dyab = vy[b] - vy[a];
+                double dxcd = vx[d] - vx[c], dycd = vy[d] - vy[c];
+                double denom = dxab * dycd - dyab * dxcd;
+                double t = ((double) (vx[c] - vx[a]) * dycd
+                        - (double) (vy[c] - vy[a]) * dxcd) / denom;
+
+                int v = vertex(Math.round(vx[a] + t * dxab),
+                        Math.round(vy[a] + t * dyab));
+
+                addSplit(e, v);
+                addSplit(f, v);
+                return;
+            }
+
+            // touching points and collinear overlaps: split at endpoints
+            if (o1 == 0 && onSegment(a, b, c)) {
+                addSplit(e, c);
+            }
+            if (o2 == 0 && onSegment(a, b, d)) {
+                addSplit(e, d);
+            }
+            if (o3 == 0 && onSegment(c, d, a)) {
+                addSplit(f, a);
+            }
+            if (o4 == 0 && onSegment(c, d, b)) {
+                addSplit(f, b);
+            }
+        }
+
+        private void applySplits() {
+            // group splits by edge
+            int[] start = new int[numEdges + 1];
+            for (int i = 0; i < numSplits; i++) {
+                start[splitEdge[i] + 1]++;
+            }
+            for (int i = 0; i < numEdges; i++) {
+                start[i + 1] += start[i];
+            }
+            int[] vertices = new int[numSplits];
+            int[] fill = Arrays.copyOf(start, numEdges);
+            for (int i = 0; i < numSplits; i++) {
+                vertices[fill[splitEdge[i]]++] = splitVertex[i];
+            }
+
+            int oldNumEdges = numEdges;
+            int[] oldFrom = edgeFrom;
+            int[] oldTo = edgeTo;
+            int[] oldOperand = edgeOperand;
+
+            edgeFrom = new int[oldNumEdges + numSplits];
+            edgeTo = new int[oldNumEdges + numSplits];
+            edgeOperand = new int[oldNumEdges + numSplits];
+            numEdges = 0;
+
+            for (int e = 0; e < oldNumEdges; e++) {
+                int a = oldFrom[e];
+                int b = oldTo[e];
+                int s0 = start[e];
+                int s1 = start[e + 1];
+
+                if (s0 == s1) {
+                    addEdge(a, b, oldOperand[e]);
+                    continue;
+                }
+
+                // sort split vertices along the edge (insertion sort, lists
+                // are short)
+                double dx = vx[b] - vx[a];
+                double dy = vy[b] - vy[a];
+                for (int i = s0 + 1; i < s1; i++) {
+                    int v = vertices[i];
+                    double t = (vx[v] - vx[a]) * dx + (vy[v] - vy[a]) * dy;
+                    int j = i - 1;
+                    while (j >= s0 && (vx[vertices[j]] - vx[a]) * dx
+                            + (vy[vertices[j]] - vy[a]) * dy > t) {
+                        vertices[j + 1] = vertices[j];
+                        j--;
+                    }
+                    vertices[j + 1] = v;
+                }
+
+                int prev = a;
+                for (int i = s0; i < s1; i++) {
+                    if (vertices[i] != prev) {
+                        addEdge(prev, vertices[i], oldOperand[e]);
+                        prev = vertices[i];
+                    }
+                }
+                addEdge(prev, b, oldOperand[e]);
+            }
+        }
+
+        // ---------------------------------------------------------------------
+        // winding numbers & result
+        // ---------------------------------------------------------------------
+
+        // unique (undirected) edges, lo < hi (lexicographic)
+        private int[] lo;
+        private int[] hi;
+        private int[] windA;
+        private int[] windB;
+        private int[] belowA;
+        private int[] belowB;
+
+        private List<List<Vector3d>> sweep(Operation op, boolean evenOdd) {
+            // merge coincident edges, accumulate signed multiplicities
+            LongIntHashMap uniqueIds = new LongIntHashMap(numEdges);
+            lo = new int[numEdges];
+            hi = new int[numEdges];
+            windA = new int[numEdges];
+            windB = new int[numEdges];
+            int numUnique = 0;
+
+            for (int e = 0; e < numEdges; e++) {
+                int a = edgeFrom[e];
+                int b = edgeTo[e];
+                int sign = 1;
+
+                if (compareVertices(a, b) > 0) {
+                    int tmp = a;
+                    a = b;
+                    b = tmp;
+                    sign = -1;
+                }
+
+                long key = ((long) a << 32) | b;
+                int id = uniqueIds.get(key, -1);
+
+                if (id < 0) {
+                    id = numUnique++;
+                    lo[id] = a;
+                    hi[id] = b;
+                    uniqueIds.put(key, id);
+                }
+
+                if (edgeOperand[e] == 0) {
+                    windA[id] += sign;
+                } else {
+                    windB[id] += sign;
+                }
+            }
+
+            // events: 2 * edge + 1 (left endpoint), 2 * edge (right endpoint)
+            int[] events = new int[numUnique * 2];
+            int numEvents = 0;
+
+            for (int e = 0; e < numUnique; e++) {
+                if (windA[e] == 0 && windB[e] == 0) {
+                    continue; // cancelled edge
+                }
+                events[numEvents++] = 2 * e + 1;
+                events[numEvents++] = 2 * e;
+            }
+
+            sort(events, numEvents, this::compareEvents);
+
+            belowA = new int[numUnique];
+            belowB = new int[numUnique];
+
+            TreeSet<Integer> status = new TreeSet<>(this::compareSegments);
+
+            for (int i = 0; i < numEvents; i++) {
+                int ev = events[i];
+                int e = ev >> 1;
+
+                if ((ev & 1) == 1) {
+                    status.add(e);
+                    Integer below = status.lower(e);
+                    if (below != null) {
+                        belowA[e] = belowA[below] + windA[below];
+                        belowB[e] = belowB[below] + windB[below];
+                    }
+                } else {
+                    status.remove(e);
+                }
+            }
+
+            // collect result edges (result interior on the left)
+            int[] from = new int[numUnique];
+            int[] to = new int[numUnique];
+            int numResult = 0;
+
+            for (int e = 0; e < numUnique; e++) {
+                if (windA[e] == 0 && windB[e] == 0) {
+                    continue;
+                }
+
+                boolean insideBelow = op.isInside(
+                        isFilled(belowA[e], evenOdd),
+                        isFilled(belowB[e], evenOdd));
+                boolean insideAbove = op.isInside(
+                        isFilled(belowA[e] + windA[e], evenOdd),
+                        isFilled(belowB[e] + windB[e], evenOdd));
+
+                if (insideBelow == insideAbove) {
+                    continue;
+                }
+
+                if (insideAbove) {
+                    from[numResult] = lo[e];
+                    to[numResult] = hi[e];
+                } else {
+                    from[numResult] = hi[e];
+                    to[numResult] = lo[e];
+                }
+                numResult++;
+            }
+
+            return traceContours(from, to, numResult);
+        }
+
+        private static boolean isFilled(int winding, boolean evenOdd) {
+            return evenOdd ? (winding & 1) != 0 : winding != 0;
+        }
+
+        private int compareEvents(int ev1, int ev2) {
+            int e1 = ev1 >> 1, e2 = ev2 >> 1;
+            boolean left1 = (ev1 & 1) == 1, left2 = (ev2 & 1) == 1;
+            int p1 = left1 ? lo[e1] : hi[e1];
+            int p2 = left2 ? lo[e2] : hi[e2];
+
+            int c = compareVertices(p1, p2);
+            if (c != 0) {
+                return c;
+            }
+
+            // same point: right endpoints (removals) first
+            if (left1 != left2) {
+                return left1 ? 1 : -1;
+            }
+
+            if (left1) {
+                // insert lower segment first
+                int o = orient(p1, hi[e1], hi[e2]);
+                if (o != 0) {
+                    return o > 0 ? -1 : 1;
+                }
+            }
+
+            return Integer.compare(e1, e2);
+        }
+
+        private int compareSegments(int e1, int e2) {
+            if (e1 == e2) {
+                return 0;
+            }
+
+            if (lo[e1] == lo[e2]) {
+                // shared left endpoint: use right endpoint
+                int o = orient(lo[e1], hi[e1], hi[e2]);
+                if (o != 0) {
+                    return o > 0 ? -1 : 1;
+                }
+                return Integer.compare(e1, e2);
+            }
+
+            if (vx[lo[e1]] == vx[lo[e2]]) {
+                return vy[lo[e1]] < vy[lo[e2]] ? -1 : 1;
+            }
+
+            if (compareVertices(lo[e1], lo[e2]) > 0) {
+                // e1 has been inserted after e2
+                return orient(lo[e2], hi[e2], lo[e1]) < 0 ? -1 : 1;
+            }
+
+            // e2 has been inserted after e1
+            return orient(lo[e1], hi[e1], lo[e2]) > 0 ? -1 : 1;
+        }
+
+        /**
+         * Links result edges to closed contours. At vertices with several
+         * outgoing edges the edge with the smallest clockwise turn relative to
+         * the reversed incoming edge is chosen, which separates contours that
+         * touch at single vertices.
+         */
+        private List<List<Vector3d>> traceContours(int[] from, int[] to, int n) {
+            int[] outStart = new int[numVertices + 1];
+            for (int i = 0; i < n; i++) {
+                outStart[from[i] + 1]++;
+            }
+            for (int i = 0; i < numVertices; i++) {
+                outStart[i + 1] += outStart[i];
+            }
+            int[] outEdges = new int[n];
+            int[] fill = Arrays.copyOf(outStart, numVertices);
+            for (int i = 0; i < n; i++) {
+                outEdges[fill[from[i]]++] = i;
+            }
+
+            boolean[] used = new boolean[n];
+            List<List<Vector3d>> result = new ArrayList<>();
+            int[] contour = new int[16];
+
+            for (int startEdge = 0; startEdge < n; startEdge++) {
+                if (used[startEdge]) {
+                    continue;
+                }
+
+                int size = 0;
+                int edge = startEdge;
+                used[edge] = true;
+
+                while (true) {
+                    if (size == contour.length) {
+                        contour = Arrays.copyOf(contour, size * 2);
+                    }
+                    contour[size++] = from[edge];
+
+                    int v = to[edge];
+                    double refAngle = Math.atan2(vy[from[edge]] - vy[v],
+                            vx[from[edge]] - vx[v]);
+
+                    int next = -1;
+                    double bestTurn = Double.POSITIVE_INFINITY;
+
+                    for (int i = outStart[v]; i < outStart[v + 1]; i++) {
+                        int candidate = outEdges[i];
+                        if (used[candidate] && candidate != startEdge) {
+                            continue;
+                        }
+                        double angle = Math.atan2(vy[to[candidate]] - vy[v],
+                                vx[to[candidate]] - vx[v]);
+                        double turn = refAngle - angle;
+                        while (turn <= 0) {
+                            turn += 2 * Math.PI;
+                        }
+                        while (turn > 2 * Math.PI) {
+                            turn -= 2 * Math.PI;
+                        }
+                        if (turn < bestTurn) {
+                            bestTurn = turn;
+                            next = candidate;
+                        }
+                    }
+
+                    if (next < 0 || next == startEdge) {
+                        break;
+                    }
+
+                    used[next] = true;
+                    edge = next;
+                }
+
+                List<Vector3d> points = toPoints(contour, size);
+                if (points.size() >= 3) {
+                    result.add(points);
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Converts the specified vertex loop to points (removes collinear
+         * vertices).
+         */
+        private List<Vector3d> toPoints(int[] contour, int size) {
+            List<Vector3d> points = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int prev = contour[(i + size - 1) % size];
+                int cur = contour[i];
+                int next = contour[(i + 1) % size];
+                if (orient(prev, cur, next) == 0) {
+                    continue;
+                }
+                points.add(Vector3d.xy(minX + vx[cur] * scale,
+                        minY + vy[cur] * scale));
+            }
+            return points;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Immutable axis aligned bounding box in the XY plane.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathBounds {
+
+    private static final PathBounds EMPTY = new PathBounds(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    private PathBounds(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Returns the empty bounds (contains no point).
+     *
+     * @return empty bounds
+     */
+    public static PathBounds empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates bounds from the specified coordinates.
+     *
+     * @param minX minimum x coordinate
+     * @param minY minimum y coordinate
+     * @param maxX maximum x coordinate
+     * @param maxY maximum y coordinate
+     * @return bounds
+     */
+    public static PathBounds of(double minX, double minY,
+            double maxX, double maxY) {
+        if (!(minX <= maxX) || !(minY <= maxY)) {
+            throw new IllegalArgumentException(
+                    "Illegal bounds specified: min must be <= max!");
+        }
+        return new PathBounds(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Indicates whether these bounds are empty.
+     *
+     * @return {@code true} if these bounds are empty
+     */
+    public boolean isEmpty() {
+        return !(minX <= maxX);
+    }
+
+    /**
+     * @return minimum x coordinate
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * @return minimum y coordinate
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * @return maximum x coordinate
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * @return maximum y coordinate
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return minimum corner
+     */
+    public Vector3d getMin() {
+        return Vector3d.xy(minX, minY);
+    }
+
+    /**
+     * @return maximum corner
+     */
+    public Vector3d getMax() {
+        return Vector3d.xy(maxX, maxY);
+    }
+
+    /**
+     * @return width ({@code 0} if empty)
+     */
+    public double getWidth() {
+        return isEmpty() ? 0 : maxX - minX;
+    }
+
+    /**
+     * @return height ({@code 0} if empty)
+     */
+    public double getHeight() {
+        return isEmpty() ? 0 : maxY - minY;
+    }
+
+    /**
+     * Indicates whether these bounds contain the specified point (borders
+     * are included).
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return {@code true} if the point is inside
+     */
+    public boolean contains(double x, double y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * Indicates whether these bounds intersect the specified bounds (touching
+     * bounds intersect).
+     *
+     * @param other bounds
+     * @return {@code true} if the bounds intersect
+     */
+    public boolean intersects(PathBounds other) {
+        return minX <= other.maxX && other.minX <= maxX
+                && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    /**
+     * Returns the union of these bounds and the specified bounds.
+     *
+     * @param other bounds
+     * @return union
+     */
+    public PathBounds union(PathBounds other) {
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.isEmpty()) {
+            return this;
+        }
+        return new PathBounds(
+                Math.min(minX, other.minX), Math.min(minY, other.minY),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PathBounds)) {
+            return false;
+        }
+        PathBounds other = (PathBounds) obj;
+        return Double.compare(minX, other.minX) == 0
+                && Double.compare(minY, other.minY) == 0
+                && Double.compare(maxX, other.maxX) == 0
+                && Double.compare(maxY, other.maxY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(minX);
+        hash = 31 * hash + Double.hashCode(minY);
+        hash = 31 * hash + Double.hashCode(maxX);
+        return 31 * hash + Double.hashCode(maxY);
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "[empty]"
+                : "[" + minX + ", " + minY + "] - [" + maxX + ", " + maxY + "]";
+    }
+}
@@ -0,0 +1,573 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.ext.path.internal.BezierEvaluator;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.Arrays;
+
+/**
+ * Hit-testing index for parsed paths. The segments of the path are split
+ * into pieces that are monotone in x and y (at the roots of the segment
+ * derivatives), i.e., the bounding box of a piece is spanned by its end
+ * points. The pieces are organized in a bounding volume hierarchy which
+ * allows point-in-path (winding number) and nearest point queries without
+ * linearizing the path.
+ *
+ * Subpaths (as delimited by moveto and closepath commands) are treated as
+ * closed (as for filling), i.e., each subpath is closed by a line from its
+ * end to its start. Indices are
+ * immutable and thread-safe.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathIndex {
+
+    private static final int NUM_COEFFICIENTS = BezierEvaluator.NUM_COEFFICIENTS;
+
+    /**
+     * Maximum number of pieces per leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Number of probes per piece for nearest point queries.
+     */
+    private static final int NUM_PROBES = 8;
+
+    // pieces
+    private final double[] coefficients;
+    private final double[] params; // t0, t1
+    private final double[] ends; // x0, y0, x1, y1
+    private final double[] boxes; // minX, minY, maxX, maxY
+    private final int numPieces;
+
+    // bvh (node 0 is the root)
+    private final int[] order;
+    private final double[] nodeBoxes;
+    private final int[] nodeLeft; // left child or -1 for leaves
+    private final int[] nodeStart;
+    private final int[] nodeCount;
+    private int numNodes;
+
+    private final PathBounds bounds;
+
+    private PathIndex(Builder builder) {
+        this.coefficients = builder.coefficients;
+        this.params = builder.params;
+        this.ends = builder.ends;
+        this.numPieces = builder.numPieces;
+
+        this.boxes = new double[numPieces * 4];
+        for (int i = 0; i < numPieces; i++) {
+            boxes[i * 4] = Math.min(ends[i * 4], ends[i * 4 + 2]);
+            boxes[i * 4 + 1] = Math.min(ends[i * 4 + 1], ends[i * 4 + 3]);
+            boxes[i * 4 + 2] = Math.max(ends[i * 4], ends[i * 4 + 2]);
+            boxes[i * 4 + 3] = Math.max(ends[i * 4 + 1], ends[i * 4 + 3]);
+        }
+
+        this.order = new int[numPieces];
+        for (int i = 0; i < numPieces; i++) {
+            order[i] = i;
+        }
+
+        int maxNodes = Math.max(1, 2 * numPieces);
+        this.nodeBoxes = new double[maxNodes * 4];
+        this.nodeLeft = new int[maxNodes];
+        this.nodeStart = new int[maxNodes];
+        this.nodeCount = new int[maxNodes];
+
+        double[] centers = new double[numPieces * 2];
+        for (int i = 0; i < numPieces; i++) {
+            centers[i * 2] = (boxes[i * 4] + boxes[i * 4 + 2]) * 0.5;
+            centers[i * 2 + 1] = (boxes[i * 4 + 1] + boxes[i * 4 + 3]) * 0.5;
+        }
+
+        build(0, numPieces, centers);
+
+        this.bounds = numPieces == 0 ? PathBounds.empty()
+                : PathBounds.of(nodeBoxes[0], nodeBoxes[1],
+                        nodeBoxes[2], nodeBoxes[3]);
+    }
+
+    /**
+     * Creates an index for the specified path.
+     *
+     * @param path path to index
+     * @return index
+     */
+    public static PathIndex of(ParsedPath path) {
+        Builder builder = new Builder();
+
+        int n = path.getNumberOfSegments();
+        int numSubpaths = path.getNumberOfSubpaths();
+        double[] c = new double[NUM_COEFFICIENTS];
+
+        for (int subpath = 0; subpath < numSubpaths; subpath++) {
+            int first = path.getSubpathStart(subpath);
+            int last = subpath + 1 < numSubpaths
+                    ? path.getSubpathStart(subpath + 1) - 1 : n - 1;
+
+            for (int segment = first; segment <= last; segment++) {
+                path.powerBasis(segment, c, 0);
+                builder.addSegment(c, path.getControlPoint(segment, 0),
+                        path.getControlPoint(segment, path.getDegree(segment)));
+            }
+
+            // close the subpath
+            builder.addLine(
+                    path.getControlPoint(last, path.getDegree(last)),
+                    path.getControlPoint(first, 0));
+        }
+
+        return new PathIndex(builder);
+    }
+
+    /**
+     * Returns the exact bounds of the indexed path.
+     *
+     * @return bounds (empty if the path has no segments)
+     */
+    public PathBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Computes the winding number of the specified point, i.e., the number of
+     * counter-clockwise minus the number of clockwise turns of the path
+     * around the point (y axis pointing up).
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return winding number
+     */
+    public int windingNumber(double x, double y) {
+        if (numPieces == 0) {
+            return 0;
+        }
+
+        int winding = 0;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+
+        // ray in positive x direction, pieces cover [minY, maxY)
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 4;
+
+            if (y < nodeBoxes[b + 1] || y >= nodeBoxes[b + 3]
+                    || nodeBoxes[b + 2] <= x) {
+                continue;
+            }
+
+            if (nodeLeft[node] < 0) {
+                for (int i = nodeStart[node];
+                        i < nodeStart[node] + nodeCount[node]; i++) {
+                    winding += crossing(order[i], x, y);
+                }
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = nodeLeft[node];
+                stack[top++] = nodeLeft[node] + 1;
+            }
+        }
+
+        return winding;
+    }
+
+    /**
+     * Indicates whether the specified point is inside the path (nonzero fill
+     * rule).
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return {@code true} if the point is inside
+     */
+    public boolean contains(double x, double y) {
+        return windingNumber(x, y) != 0;
+    }
+
+    /**
+     * Indicates whether the specified point is inside the path (even-odd
+     * fill rule).
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return {@code true} if the point is inside
+     */
+    public boolean containsEvenOdd(double x, double y) {
+        return (windingNumber(x, y) & 1) != 0;
+    }
+
+    /**
+     * Returns the point on the path that is closest to the specified point.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return closest point on the path ({@code null} if the path has no
+     * segments)
+     */
+    public Vector3d nearestPoint(double x, double y) {
+        if (numPieces == 0) {
+            return null;
+        }
+
+        double[] best = {Double.POSITIVE_INFINITY, 0, 0};
+        double[] p = new double[2];
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+
+            if (boxDistanceSq(nodeBoxes, node * 4, x, y) >= best[0]) {
+                continue;
+            }
+
+            if (nodeLeft[node] < 0) {
+                for (int i = nodeStart[node];
+                        i < nodeStart[node] + nodeCount[node]; i++) {
+                    int piece = order[i];
+                    if (boxDistanceSq(boxes, piece * 4, x, y) < best[0]) {
+                        nearest(piece, x, y, best, p);
+                    }
+                }
+            } else {
+                int left = nodeLeft[node];
+                int right = left + 1;
+
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+
+                // visit the closer child first
+                if (boxDistanceSq(nodeBoxes, left * 4, x, y)
+                        < boxDistanceSq(nodeBoxes, right * 4, x, y)) {
+                    stack[top++] = right;
+                    stack[top++] = left;
+                } else {
+                    stack[top++] = left;
+                    stack[top++] = right;
+                }
+            }
+        }
+
+        return Vector3d.xy(best[1], best[2]);
+    }
+
+    /**
+     * Returns the distance between the specified point and the path.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return distance ({@code Double.POSITIVE_INFINITY} if the path has no
+     * segments)
+     */
+    public double distance(double x, double y) {
+        Vector3d p = nearestPoint(x, y);
+        return p == null ? Double.POSITIVE_INFINITY
+                : Math.hypot(p.x() - x, p.y() - y);
+    }
+
+    /**
+     * Returns the contribution of the specified piece to the winding number
+     * (ray in positive x direction).
+     */
+    private int crossing(int piece, double x, double y) {
+        double y0 = ends[piece * 4 + 1];
+        double y1 = ends[piece * 4 + 3];
+
+        if (y0 == y1) {
+            return 0;
+        }
+
+        int b = piece * 4;
+        if (y < boxes[b + 1] || y >= boxes[b + 3] || boxes[b + 2] <= x) {
+            return 0;
+        }
+
+        int direction = y1 > y0 ? 1 : -1;
+
+        if (boxes[b] > x) {
+            return direction;
+        }
+
+        // piece is monotone in y: bisection
+        int c = piece * NUM_COEFFICIENTS;
+        double lo = params[piece * 2], hi = params[piece * 2 + 1];
+        boolean increasing = y1 > y0;
+        for (int i = 0; i < 64 && hi - lo > 1e-15; i++) {
+            double mid = (lo + hi) * 0.5;
+            if ((horner(c + 4, mid) < y) == increasing) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return horner(c, (lo + hi) * 0.5) > x ? direction : 0;
+    }
+
+    /**
+     * Updates the nearest point (squared distance, x, y) with the specified
+     * piece.
+     */
+    private void nearest(int piece, double x, double y,
+            double[] best, double[] p) {
+        int c = piece * NUM_COEFFICIENTS;
+        double t0 = params[piece * 2], t1 = params[piece * 2 + 1];
+        double dt = (t1 - t0) / NUM_PROBES;
+
+        // coarse probes
+        double bestT = t0;
+        double bestD = Double.POSITIVE_INFINITY;
+        for (int i = 0; i <= NUM_PROBES; i++) {
+            double t = i == NUM_PROBES ? t1 : t0 + i * dt;
+            double d = distanceSq(c, t, x, y);
+            if (d < bestD) {
+                bestD = d;
+                bestT = t;
+            }
+        }
+
+        // golden section search around the best probe
+        double lo = Math.max(t0, bestT - dt);
+        double hi = Math.min(t1, bestT + dt);
+        double g = 0.5 * (Math.sqrt(5) - 1);
+        double a = hi - g * (hi - lo), b = lo + g * (hi - lo);
+        double da = distanceSq(c, a, x, y), db = distanceSq(c, b, x, y);
+        for (int i = 0; i < 60 && hi - lo > 1e-15; i++) {
+            if (da < db) {
+                hi = b;
+                b = a;
+                db = da;
+                a = hi - g * (hi - lo);
+                da = distanceSq(c, a, x, y);
+            } else {
+                lo = a;
+                a = b;
+                da = db;
+                b = lo + g * (hi - lo);
+                db = distanceSq(c, b, x, y);
+            }
+        }
+
+        double t = (lo + hi) * 0.5;
+        double d = distanceSq(c, t, x, y);
+        if (d > bestD) {
+            t = bestT;
+            d = bestD;
+        }
+
+        if (d < best[0]) {
+            best[0] = d;
+            best[1] = horner(c, t);
+            best[2] = horner(c + 4, t);
+        }
+    }
+
+    private double distanceSq(int c, double t, double x, double y) {
+        double dx = horner(c, t) - x;
+        double dy = horner(c + 4, t) - y;
+        return dx * dx + dy * dy;
+    }
+
+    private double horner(int c, double t) {
+        return ((coefficients[c + 3] * t + coefficients[c + 2]) * t
+                + coefficients[c + 1]) * t + coefficients[c];
+    }
+
+    private static double boxDistanceSq(double[] boxes, int b,
+            double x, double y) {
+        double dx = Math.max(0, Math.max(boxes[b] - x, x - boxes[b + 2]));
+        double dy = Math.max(0, Math.max(boxes[b + 1] - y, y - boxes[b + 3]));
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Builds the subtree for the pieces {@code order[start, end)}. Children
+     * are stored next to each other, i.e., the right child is
+     * {@code nodeLeft[node] + 1}.
+     *
+     * @return node index
+     */
+    private int build(int start, int end, double[] centers) {
+        int node = numNodes++;
+        buildNode(node, start, end, centers);
+        return node;
+    }
+
+    private void buildNode(int node, int start, int end, double[] centers) {
+        int b = node * 4;
+        nodeBoxes[b] = nodeBoxes[b + 1] = Double.POSITIVE_INFINITY;
+        nodeBoxes[b + 2] = nodeBoxes[b + 3] = Double.NEGATIVE_INFINITY;
+
+        double cMinX = Double.POSITIVE_INFINITY, cMinY = Double.POSITIVE_INFINITY;
+        double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = Double.NEGATIVE_INFINITY;
+
+        for (int i = start; i < end; i++) {
+            int piece = order[i] * 4;
+            nodeBoxes[b] = Math.min(nodeBoxes[b], boxes[piece]);
+            nodeBoxes[b + 1] = Math.min(nodeBoxes[b + 1], boxes[piece + 1]);
+            nodeBoxes[b + 2] = Math.max(nodeBoxes[b + 2], boxes[piece + 2]);
+            nodeBoxes[b + 3] = Math.max(nodeBoxes[b + 3], boxes[piece + 3]);
+
+            cMinX = Math.min(cMinX, centers[order[i] * 2]);
+            cMinY = Math.min(cMinY, centers[order[i] * 2 + 1]);
+            cMaxX = Math.max(cMaxX, centers[order[i] * 2]);
+            cMaxY = Math.max(cMaxY, centers[order[i] * 2 + 1]);
+        }
+
+        nodeStart[node] = start;
+        nodeCount[node] = end - start;
+
+        if (end - start <= LEAF_SIZE) {
+            nodeLeft[node] = -1;
+            return;
+        }
+
+        // median split along the longest axis of the piece centers
+        int axis = cMaxX - cMinX >= cMaxY - cMinY ? 0 : 1;
+        int mid = (start + end) >>> 1;
+        select(start, end - 1, mid, centers, axis);
+
+        int left = numNodes;
+        numNodes += 2;
+        nodeLeft[node] = left;
+        buildNode(left, start, mid, centers);
+        buildNode(left + 1, mid, end, centers);
+    }
+
+    /**
+     * Partially sorts {@code order[lo, hi]} such that element {@code k} is at
+     * its sorted position (quickselect).
+     */
+    private void select(int lo, int hi, int k, double[] centers, int axis) {
+        while (lo < hi) {
+            double pivot = centers[order[(lo + hi) >>> 1] * 2 + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centers[order[i] * 2 + axis] < pivot) {
+                    i++;
+                }
+                while (centers[order[j] * 2 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Collects monotone pieces.
+     */
+    private static final class Builder {
+
+        private double[] coefficients = new double[64 * NUM_COEFFICIENTS];
+        private double[] params = new double[64 * 2];
+        private double[] ends = new double[64 * 4];
+        private int numPieces;
+
+        private final double[] ts = new double[6];
+        private final double[] p = new double[2];
+
+        void addLine(Vector3d a, Vector3d b) {
+            if (a.equals(b)) {
+                return;
+            }
+            double[] c = {a.x(), b.x() - a.x(), 0, 0, a.y(), b.y() - a.y(), 0, 0};
+            addPiece(c, 0, 1, a.x(), a.y(), b.x(), b.y());
+        }
+
+        void addSegment(double[] c, Vector3d start, Vector3d end) {
+            // split at the roots of x' and y'
+            int n = 0;
+            ts[n++] = 0;
+            n += BezierEvaluator.derivativeRoots(c, 0, ts, n);
+            n += BezierEvaluator.derivativeRoots(c, 4, ts, n);
+            ts[n++] = 1;
+            Arrays.sort(ts, 1, n - 1);
+
+            double x0 = start.x(), y0 = start.y();
+            for (int i = 1; i < n; i++) {
+                if (ts[i] == ts[i - 1]) {
+                    continue;
+                }
+
+                double x1, y1;
+                if (i == n - 1) {
+                    x1 = end.x();
+                    y1 = end.y();
+                } else {
+                    BezierEvaluator.eval(c, 0, ts[i], p, 0);
+                    x1 = p[0];
+                    y1 = p[1];
+                }
+
+                addPiece(c, ts[i - 1], ts[i], x0, y0, x1, y1);
+
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+
+        private void addPiece(double[] c, double t0, double t1,
+                double x0, double y0, double x1, double y1) {
+            if (numPieces * 2 == params.length) {
+                coefficients = Arrays.copyOf(coefficients, coefficients.length * 2);
+                params = Arrays.copyOf(params, params.length * 2);
+                ends = Arrays.copyOf(ends, ends.length * 2);
+            }
+
+            System.arraycopy(c, 0, coefficients,
+                    numPieces * NUM_COEFFICIENTS, NUM_COEFFICIENTS);
+            params[numPieces * 2] = t0;
+            params[numPieces * 2 + 1] = t1;
+            ends[numPieces * 4] = x0;
+            ends[numPieces * 4 + 1] = y0;
+            ends[numPieces * 4 + 2] = x1;
+            ends[numPieces * 4 + 3] = y1;
+
+            numPieces++;
+        }
+    }
+}
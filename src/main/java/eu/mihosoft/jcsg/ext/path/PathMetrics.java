@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+/**
+ * Metrics SPI. Implementations receive timings and counts of the individual
+ * stages of the path pipeline (parsing, linearization, extension, extrusion,
+ * sweeping, CSG assembly). Implementations are installed via
+ * {@link Metrics#setMetrics(eu.mihosoft.jcsg.ext.path.PathMetrics)} and must
+ * be thread-safe.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public interface PathMetrics {
+
+    /**
+     * Pipeline stages.
+     */
+    enum Stage {
+        /**
+         * Parsing of SVG path strings (count: number of segments).
+         */
+        PARSE,
+        /**
+         * Path linearization (count: number of samples).
+         */
+        LINEARIZE,
+        /**
+         * Extension of linear paths (count: number of vertices).
+         */
+        EXTEND,
+        /**
+         * Triangulation of outlines (count: number of polygons).
+         */
+        TRIANGULATE,
+        /**
+         * Extrusion of outlines (count: number of polygons).
+         */
+        EXTRUDE,
+        /**
+         * Sweeping of profiles along paths (count: number of polygons).
+         */
+        SWEEP,
+        /**
+         * Vertex welding (count: number of vertices).
+         */
+        WELD,
+        /**
+         * Assembly of CSG objects (count: number of polygons).
+         */
+        CSG_ASSEMBLY
+    }
+
+    /**
+     * Records a stage execution.
+     *
+     * @param stage stage
+     * @param durationNanos duration (in nanoseconds)
+     * @param allocatedBytes number of bytes allocated by the current thread
+     * during stage execution ({@code -1} if not available)
+     * @param count number of processed items (segments, samples, vertices,
+     * polygons, depending on the stage)
+     */
+    void record(Stage stage, long durationNanos, long allocatedBytes, long count);
+}
@@ -0,0 +1,532 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pipelined conversion of SVG paths to CSG objects. Parsing, linearization,
+ * extension and extrusion run on separate worker threads, stages are
+ * connected by bounded queues, i.e., stages of different paths overlap and a
+ * slow stage slows down submission (backpressure) instead of buffering an
+ * unbounded number of intermediate results.
+ *
+ * Per-stage statistics (queue depth, throughput, utilization) are available
+ * via {@link #getStats(eu.mihosoft.jcsg.ext.path.PathMetrics.Stage)} to find
+ * the bottleneck stage which can then be given more threads. Sample usage:
+ *
+ * <pre><code>
+ * try (PathPipeline pipeline = PathPipeline.newBuilder(1.0, 0.01, 0)
+ *         .threads(PathMetrics.Stage.EXTRUDE, 4).build()) {
+ *     List&lt;CSG&gt; result = pipeline.process(paths);
+ *     System.out.println(pipeline.getStats(PathMetrics.Stage.EXTRUDE));
+ * }
+ * </code></pre>
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathPipeline implements AutoCloseable {
+
+    /**
+     * Pipeline stages (in processing order).
+     */
+    private static final PathMetrics.Stage[] STAGES = {
+        PathMetrics.Stage.PARSE,
+        PathMetrics.Stage.LINEARIZE,
+        PathMetrics.Stage.EXTEND,
+        PathMetrics.Stage.EXTRUDE
+    };
+
+    private final double height;
+    private final double stepSize;
+    private final double extension;
+
+    private final StageWorkers[] stages = new StageWorkers[STAGES.length];
+    private final long startNanos = System.nanoTime();
+    private volatile boolean closed;
+
+    private PathPipeline(Builder builder) {
+        this.height = builder.height;
+        this.stepSize = builder.stepSize;
+        this.extension = builder.extension;
+
+        for (int i = 0; i < STAGES.length; i++) {
+            stages[i] = new StageWorkers(i, STAGES[i], builder.queueCapacity,
+                    builder.threads.getOrDefault(STAGES[i], 1));
+        }
+
+        for (StageWorkers stage : stages) {
+            stage.start();
+        }
+    }
+
+    /**
+     * Returns a new pipeline builder.
+     *
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the paths along vertex normals (XY plane)
+     * @return builder
+     */
+    public static Builder newBuilder(double height, double stepSize,
+            double extension) {
+        return new Builder(height, stepSize, extension);
+    }
+
+    /**
+     * Submits the specified closed SVG path (without holes). Blocks if the
+     * input queue is full.
+     *
+     * @param path path to convert
+     * @return future of the extruded path
+     * @throws IllegalStateException if this pipeline is closed
+     */
+    public CompletableFuture<CSG> submit(String path) {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed!");
+        }
+
+        Job job = new Job(path);
+        stages[0].put(job);
+
+        return job.result;
+    }
+
+    /**
+     * Converts the specified closed SVG paths (without holes). Paths are
+     * submitted while earlier paths are still processed.
+     *
+     * @param paths paths to convert
+     * @return extruded paths (in the order of the specified paths)
+     * @throws IllegalStateException if this pipeline is closed
+     * @throws RuntimeException if the conversion of a path fails
+     */
+    public List<CSG> process(List<String> paths) {
+        List<CompletableFuture<CSG>> futures = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            futures.add(submit(path));
+        }
+
+        List<CSG> result = new ArrayList<>(paths.size());
+        for (CompletableFuture<CSG> future : futures) {
+            try {
+                result.add(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted!", ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                throw cause instanceof RuntimeException
+                        ? (RuntimeException) cause
+                        : new IllegalStateException(cause);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the statistics of the specified stage.
+     *
+     * @param stage stage ({@code PARSE}, {@code LINEARIZE}, {@code EXTEND}
+     * or {@code EXTRUDE})
+     * @return stage statistics (snapshot)
+     */
+    public StageStats getStats(PathMetrics.Stage stage) {
+        for (StageWorkers workers : stages) {
+            if (workers.stage == stage) {
+                return workers.stats(System.nanoTime() - startNanos);
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "Illegal stage specified: " + stage + " is not a pipeline stage!");
+    }
+
+    /**
+     * Returns the statistics of all stages (in processing order).
+     *
+     * @return stage statistics (snapshots)
+     */
+    public List<StageStats> getStats() {
+        long elapsed = System.nanoTime() - startNanos;
+        List<StageStats> result = new ArrayList<>(stages.length);
+        for (StageWorkers workers : stages) {
+            result.add(workers.stats(elapsed));
+        }
+        return result;
+    }
+
+    /**
+     * Stops the workers of this pipeline. Pending paths (queued or in
+     * flight) are completed exceptionally, paths submitted concurrently are
+     * either completed or completed exceptionally as well, i.e., no future
+     * remains incomplete.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (StageWorkers stage : stages) {
+            stage.stop();
+        }
+
+        for (StageWorkers stage : stages) {
+            stage.drain();
+        }
+    }
+
+    private void process(int stageIndex, Job job) {
+        switch (STAGES[stageIndex]) {
+            case PARSE:
+                job.parsed = ParsedPath.parse(job.path);
+                break;
+            case LINEARIZE:
+                job.points = SVGLinearizer.linearizePath(job.parsed, stepSize);
+                job.parsed = null;
+                break;
+            case EXTEND:
+                job.points = LinearPathUtil.extend(job.points, extension);
+                break;
+            default:
+                job.csg = SVGPath.extrude(job.points, height);
+                job.points = null;
+                break;
+        }
+    }
+
+    /**
+     * Path and intermediate results.
+     */
+    private static final class Job {
+
+        private final String path;
+        private final CompletableFuture<CSG> result = new CompletableFuture<>();
+        private ParsedPath parsed;
+        private List<Vector3d> points;
+        private CSG csg;
+
+        Job(String path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Input queue and workers of one stage.
+     */
+    private final class StageWorkers {
+
+        private final int index;
+        private final PathMetrics.Stage stage;
+        private final BlockingQueue<Job> queue;
+        private final Thread[] threads;
+
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        StageWorkers(int index, PathMetrics.Stage stage,
+                int queueCapacity, int numThreads) {
+            this.index = index;
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.threads = new Thread[numThreads];
+
+            for (int i = 0; i < numThreads; i++) {
+                threads[i] = new Thread(this::run,
+                        "path-pipeline-" + stage.name().toLowerCase() + "-" + i);
+                threads[i].setDaemon(true);
+            }
+        }
+
+        void start() {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        void stop() {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+
+        void put(Job job) {
+            try {
+                queue.put(job);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                job.result.completeExceptionally(ex);
+                return;
+            }
+
+            // closed while waiting for queue capacity: close() may have
+            // drained this queue before the job was added
+            if (closed) {
+                drain();
+            }
+        }
+
+        /**
+         * Completes the queued jobs exceptionally.
+         */
+        void drain() {
+            Job job;
+            while ((job = queue.poll()) != null) {
+                job.result.completeExceptionally(
+                        new IllegalStateException("Pipeline is closed!"));
+            }
+        }
+
+        private void run() {
+            while (!closed) {
+                Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    process(index, job);
+                    success = true;
+                } catch (Throwable ex) {
+                    // errors must not terminate the worker, otherwise the
+                    // job would never complete
+                    failed.increment();
+                    job.result.completeExceptionally(ex);
+                } finally {
+                    busyNanos.add(System.nanoTime() - start);
+                }
+
+                if (success) {
+                    processed.increment();
+                    if (index + 1 < stages.length) {
+                        // blocks if the next stage is saturated (backpressure)
+                        stages[index + 1].put(job);
+                    } else {
+                        job.result.complete(job.csg);
+                    }
+                }
+            }
+        }
+
+        StageStats stats(long elapsedNanos) {
+            return new StageStats(stage, threads.length, queue.size(),
+                    queue.size() + queue.remainingCapacity(),
+                    processed.sum(), failed.sum(), busyNanos.sum(),
+                    elapsedNanos);
+        }
+    }
+
+    /**
+     * Statistics of one pipeline stage (snapshot).
+     */
+    public static final class StageStats {
+
+        private final PathMetrics.Stage stage;
+        private final int threads;
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final long processed;
+        private final long failed;
+        private final long busyNanos;
+        private final long elapsedNanos;
+
+        private StageStats(PathMetrics.Stage stage, int threads,
+                int queueDepth, int queueCapacity, long processed, long failed,
+                long busyNanos, long elapsedNanos) {
+            this.stage = stage;
+            this.threads = threads;
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.processed = processed;
+            this.failed = failed;
+            this.busyNanos = busyNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return stage
+         */
+        public PathMetrics.Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * @return number of worker threads
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return number of paths waiting in the input queue of this stage
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return capacity of the input queue of this stage
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * @return number of paths processed by this stage
+         */
+        public long getProcessed() {
+            return processed;
+        }
+
+        /**
+         * @return number of paths that failed in this stage
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return accumulated processing time of all workers (in nanoseconds)
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * @return throughput (paths per second since pipeline creation)
+         */
+        public double getThroughput() {
+            return elapsedNanos > 0 ? processed * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * Returns the utilization of the workers, i.e., the fraction of time
+         * the workers of this stage were busy. A stage with high utilization
+         * and a full input queue is the bottleneck.
+         *
+         * @return utilization ({@code [0,1]})
+         */
+        public double getUtilization() {
+            return elapsedNanos > 0
+                    ? Math.min(1, busyNanos / ((double) elapsedNanos * threads)) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s: threads=%d, queue=%d/%d, processed=%d, failed=%d,"
+                    + " throughput=%.1f/s, utilization=%.1f%%",
+                    stage, threads, queueDepth, queueCapacity, processed,
+                    failed, getThroughput(), getUtilization() * 100);
+        }
+    }
+
+    /**
+     * Pipeline builder.
+     */
+    public static final class Builder {
+
+        private final double height;
+        private final double stepSize;
+        private final double extension;
+        private int queueCapacity = 64;
+        private final Map<PathMetrics.Stage, Integer> threads
+                = new EnumMap<>(PathMetrics.Stage.class);
+
+        private Builder(double height, double stepSize, double extension) {
+            this.height = height;
+            this.stepSize = stepSize;
+            this.extension = extension;
+        }
+
+        /**
+         * Sets the capacity of the queues between stages (default:
+         * {@code 64}).
+         *
+         * @param queueCapacity queue capacity ({@code > 0})
+         * @return this builder
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException(
+                        "Illegal queue capacity specified: capacity must be > 0!");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of worker threads of the specified stage (default:
+         * {@code 1}).
+         *
+         * @param stage stage ({@code PARSE}, {@code LINEARIZE}, {@code EXTEND}
+         * or {@code EXTRUDE})
+         * @param numThreads number of threads ({@code > 0})
+         * @return this builder
+         */
+        public Builder threads(PathMetrics.Stage stage, int numThreads) {
+            boolean pipelineStage = false;
+            for (PathMetrics.Stage s : STAGES) {
+                pipelineStage |= s == stage;
+            }
+
+            if (!pipelineStage) {
+                throw new IllegalArgumentException(
+                        "Illegal stage specified: " + stage + " is not a pipeline stage!");
+            }
+
+            if (numThreads <= 0) {
+                throw new IllegalArgumentException(
+                        "Illegal number of threads specified: number must be > 0!");
+            }
+
+            threads.put(stage, numThreads);
+            return this;
+        }
+
+        /**
+         * Creates and starts the pipeline.
+         *
+         * @return pipeline
+         */
+        public PathPipeline build() {
+            return new PathPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.ext.path.internal.PathWorkspace;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable 2D affine transform for paths (XY plane). The matrix is stored in
+ * SVG order {@code (a, b, c, d, e, f)}, i.e.,
+ * {@code x' = a*x + c*y + e, y' = b*x + d*y + f}.
+ *
+ * Like {@link eu.mihosoft.vvecmath.Transform} and the SVG {@code transform}
+ * attribute, chained operations are applied from right to left, i.e.,
+ * {@code PathTransform.unity().translate(10, 0).scale(2)} scales before
+ * translating.
+ *
+ * Transforms are applied to the Bezier control points of parsed paths (before
+ * linearization) which is equivalent to transforming the curves, but
+ * considerably cheaper than transforming the resulting meshes.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathTransform {
+
+    private static final PathTransform UNITY
+            = new PathTransform(1, 0, 0, 1, 0, 0);
+
+    private static final Pattern FUNCTION = Pattern.compile(
+            "[\\s,]*(matrix|translate|scale|rotate|skewX|skewY)\\s*\\(([^)]*)\\)[\\s,]*");
+
+    private final double a, b, c, d, e, f;
+
+    private PathTransform(double a, double b, double c,
+            double d, double e, double f) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.e = e;
+        this.f = f;
+    }
+
+    /**
+     * Returns the identity transform.
+     *
+     * @return identity transform
+     */
+    public static PathTransform unity() {
+        return UNITY;
+    }
+
+    /**
+     * Creates a transform from the specified matrix entries (SVG
+     * {@code matrix(a, b, c, d, e, f)}).
+     *
+     * @param a matrix entry (row 0, column 0)
+     * @param b matrix entry (row 1, column 0)
+     * @param c matrix entry (row 0, column 1)
+     * @param d matrix entry (row 1, column 1)
+     * @param e translation (x)
+     * @param f translation (y)
+     * @return transform
+     */
+    public static PathTransform fromMatrix(double a, double b, double c,
+            double d, double e, double f) {
+        return new PathTransform(a, b, c, d, e, f);
+    }
+
+    /**
+     * Parses the specified SVG {@code transform} attribute, e.g.,
+     * {@code "translate(10,20) rotate(45) scale(2, -1)"}. Supported functions:
+     * {@code matrix}, {@code translate}, {@code scale}, {@code rotate},
+     * {@code skewX} and {@code skewY}.
+     *
+     * @param transform transform attribute to parse
+     * @return transform
+     * @throws IllegalArgumentException if the attribute is malformed
+     */
+    public static PathTransform parse(String transform) {
+        PathTransform result = UNITY;
+        Matcher m = FUNCTION.matcher(transform);
+        int pos = 0;
+
+        while (pos < transform.length()) {
+            m.region(pos, transform.length());
+            if (!m.lookingAt()) {
+                if (transform.substring(pos).trim().isEmpty()) {
+                    break;
+                }
+                throw new IllegalArgumentException(
+                        "Illegal transform specified: cannot parse '"
+                        + transform.substring(pos) + "'");
+            }
+
+            String function = m.group(1);
+            double[] args = parseArguments(function, m.group(2));
+
+            switch (function) {
+                case "matrix":
+                    checkArguments(function, args, 6);
+                    result = result.mul(fromMatrix(
+                            args[0], args[1], args[2], args[3], args[4], args[5]));
+                    break;
+                case "translate":
+                    checkArguments(function, args, 1, 2);
+                    result = result.translate(args[0], args.length > 1 ? args[1] : 0);
+                    break;
+                case "scale":
+                    checkArguments(function, args, 1, 2);
+                    result = result.scale(args[0], args.length > 1 ? args[1] : args[0]);
+                    break;
+                case "rotate":
+                    checkArguments(function, args, 1, 3);
+                    result = args.length == 1
+                            ? result.rotate(args[0])
+                            : result.rotate(args[0], args[1], args[2]);
+                    break;
+                case "skewX":
+                    checkArguments(function, args, 1);
+                    result = result.skewX(args[0]);
+                    break;
+                default:
+                    checkArguments(function, args, 1);
+                    result = result.skewY(args[0]);
+                    break;
+            }
+
+            pos = m.end();
+        }
+
+        return result;
+    }
+
+    private static double[] parseArguments(String function, String args) {
+        String trimmed = args.trim();
+        if (trimmed.isEmpty()) {
+            return new double[0];
+        }
+
+        String[] tokens = trimmed.split("[\\s,]+");
+        double[] values = new double[tokens.length];
+
+        try {
+            for (int i = 0; i < tokens.length; i++) {
+                values[i] = Double.parseDouble(tokens[i]);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "Illegal transform specified: cannot parse arguments of '"
+                    + function + "(" + args + ")'", ex);
+        }
+
+        return values;
+    }
+
+    private static void checkArguments(String function,
+            double[] args, int... allowed) {
+        for (int n : allowed) {
+            if (args.length == n) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Illegal transform specified: wrong number of arguments for '"
+                + function + "': " + args.length);
+    }
+
+    /**
+     * Returns the product {@code this * other}, i.e., {@code other} is applied
+     * first.
+     *
+     * @param other transform to append
+     * @return combined transform
+     */
+    public PathTransform mul(PathTransform other) {
+        return new PathTransform(
+                a * other.a + c * other.b,
+                b * other.a + d * other.b,
+                a * other.c + c * other.d,
+                b * other.c + d * other.d,
+                a * other.e + c * other.f + e,
+                b * other.e + d * other.f + f);
+    }
+
+    /**
+     * Appends a translation.
+     *
+     * @param tx translation (x)
+     * @param ty translation (y)
+     * @return combined transform
+     */
+    public PathTransform translate(double tx, double ty) {
+        return mul(new PathTransform(1, 0, 0, 1, tx, ty));
+    }
+
+    /**
+     * Appends a scale operation.
+     *
+     * @param sx scale factor (x)
+     * @param sy scale factor (y)
+     * @return combined transform
+     */
+    public PathTransform scale(double sx, double sy) {
+        return mul(new PathTransform(sx, 0, 0, sy, 0, 0));
+    }
+
+    /**
+     * Appends a uniform scale operation.
+     *
+     * @param s scale factor
+     * @return combined transform
+     */
+    public PathTransform scale(double s) {
+        return scale(s, s);
+    }
+
+    /**
+     * Appends a rotation about the origin (counter-clockwise in a y-up
+     * coordinate system).
+     *
+     * @param degrees rotation angle (in degrees)
+     * @return combined transform
+     */
+    public PathTransform rotate(double degrees) {
+        double rad = Math.toRadians(degrees);
+        double cos = Math.cos(rad);
+        double sin = Math.sin(rad);
+        return mul(new PathTransform(cos, sin, -sin, cos, 0, 0));
+    }
+
+    /**
+     * Appends a rotation about the specified center.
+     *
+     * @param degrees rotation angle (in degrees)
+     * @param cx rotation center (x)
+     * @param cy rotation center (y)
+     * @return combined transform
+     */
+    public PathTransform rotate(double degrees, double cx, double cy) {
+        return translate(cx, cy).rotate(degrees).translate(-cx, -cy);
+    }
+
+    /**
+     * Appends a skew transform along the x axis.
+     *
+     * @param degrees skew angle (in degrees)
+     * @return combined transform
+     */
+    public PathTransform skewX(double degrees) {
+        return mul(new PathTransform(
+                1, 0, Math.tan(Math.toRadians(degrees)), 1, 0, 0));
+    }
+
+    /**
+     * Appends a skew transform along the y axis.
+     *
+     * @param degrees skew angle (in degrees)
+     * @return combined transform
+     */
+    public PathTransform skewY(double degrees) {
+        return mul(new PathTransform(
+                1, Math.tan(Math.toRadians(degrees)), 0, 1, 0, 0));
+    }
+
+    /**
+     * Returns the inverse of this transform.
+     *
+     * @return inverse transform
+     * @throws IllegalStateException if this transform is not invertible
+     */
+    public PathTransform inverse() {
+        double det = getDeterminant();
+        if (det == 0) {
+            throw new IllegalStateException("Transform is not invertible!");
+        }
+        return new PathTransform(
+                d / det, -b / det, -c / det, a / det,
+                (c * f - d * e) / det, (b * e - a * f) / det);
+    }
+
+    /**
+     * Transforms the specified point (XY plane, z is preserved).
+     *
+     * @param p point to transform
+     * @return transformed point
+     */
+    public Vector3d transform(Vector3d p) {
+        return Vector3d.xyz(
+                a * p.x() + c * p.y() + e,
+                b * p.x() + d * p.y() + f,
+                p.z());
+    }
+
+    /**
+     * Returns the determinant of the linear part of this transform.
+     *
+     * @return determinant
+     */
+    public double getDeterminant() {
+        return a * d - b * c;
+    }
+
+    /**
+     * Indicates whether this transform mirrors, i.e., reverses the orientation
+     * of paths.
+     *
+     * @return {@code true} if this transform mirrors; {@code false} otherwise
+     */
+    public boolean isMirroring() {
+        return getDeterminant() < 0;
+    }
+
+    /**
+     * Indicates whether this transform is the identity transform.
+     *
+     * @return {@code true} if this transform is the identity transform;
+     * {@code false} otherwise
+     */
+    public boolean isUnity() {
+        return a == 1 && b == 0 && c == 0 && d == 1 && e == 0 && f == 0;
+    }
+
+    /**
+     * Returns the matrix entries {@code (a, b, c, d, e, f)}.
+     *
+     * @return matrix entries (copy)
+     */
+    public double[] getMatrix() {
+        return new double[]{a, b, c, d, e, f};
+    }
+
+    /**
+     * Applies this transform to the control points of the path in the
+     * specified workspace.
+     *
+     * @param workspace workspace
+     */
+    void applyTo(PathWorkspace workspace) {
+        if (!isUnity()) {
+            workspace.transform(a, b, c, d, e, f);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PathTransform)) {
+            return false;
+        }
+        return Arrays.equals(getMatrix(), ((PathTransform) obj).getMatrix());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(getMatrix());
+    }
+
+    @Override
+    public String toString() {
+        return "matrix(" + a + "," + b + "," + c + ","
+                + d + "," + e + "," + f + ")";
+    }
+}
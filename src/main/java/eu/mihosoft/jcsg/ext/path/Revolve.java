@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revolves (lathes) profiles about an axis. Each profile point is decomposed
+ * into axial and radial components once, ring points are computed from a
+ * precomputed sin/cos table, i.e., no transforms are created per ring.
+ *
+ * Full revolutions (360 degrees) reuse the first ring as last ring, i.e., the
+ * surface is closed without caps and without seam vertices. Profile points on
+ * the axis are shared by all rings (no degenerate triangles).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class Revolve {
+
+    private Revolve() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Revolves the specified profile 360 degrees about the specified axis.
+     * The axis is expected to lie in the profile plane and must not cross the
+     * profile.
+     *
+     * @param profile profile to revolve
+     * @param axisOrigin point on the axis
+     * @param axisDirection axis direction
+     * @param segments number of segments ({@code >= 3})
+     * @return CSG object
+     */
+    public static CSG full(PathProfile profile, Vector3d axisOrigin,
+            Vector3d axisDirection, int segments) {
+        return aroundAxis(profile, axisOrigin, axisDirection, 0, 360, segments);
+    }
+
+    /**
+     * Revolves the specified profile about the specified axis. The axis is
+     * expected to lie in the profile plane and must not cross the profile.
+     * Partial revolutions are closed with (triangulated) profile caps. Angle
+     * ranges of 360 degrees or more result in a single full revolution.
+     *
+     * @param profile profile to revolve
+     * @param axisOrigin point on the axis
+     * @param axisDirection axis direction
+     * @param startAngle start angle (in degrees)
+     * @param endAngle end angle (in degrees)
+     * @param segments number of segments ({@code >= 3} for full revolutions,
+     * {@code >= 1} otherwise)
+     * @return CSG object
+     */
+    public static CSG aroundAxis(PathProfile profile, Vector3d axisOrigin,
+            Vector3d axisDirection, double startAngle, double endAngle,
+            int segments) {
+
+        double sweep = endAngle - startAngle;
+        boolean full = Math.abs(sweep) >= 360;
+
+        if (sweep == 0 || segments < (full ? 3 : 1)) {
+            throw new IllegalArgumentException(
+                    "Illegal revolve specified: angle range must be non-empty"
+                    + " and segments >= 3 (full) or >= 1 (partial)!");
+        }
+
+        // larger angle ranges would wrap around and overlap
+        if (full) {
+            sweep = Math.copySign(360, sweep);
+        }
+
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.SWEEP);
+
+        List<Vector3d> points = profile.getPoints();
+        int n = points.size();
+        Vector3d axis = axisDirection.normalized();
+
+        // decompose profile points: p = base + r*cos + w*sin
+        Vector3d[] base = new Vector3d[n];
+        Vector3d[] r = new Vector3d[n];
+        Vector3d[] w = new Vector3d[n];
+        boolean[] onAxis = new boolean[n];
+
+        double maxRadius = 0;
+        for (int i = 0; i < n; i++) {
+            Vector3d v = points.get(i).minus(axisOrigin);
+            base[i] = axisOrigin.plus(axis.times(v.dot(axis)));
+            r[i] = v.minus(axis.times(v.dot(axis)));
+            w[i] = axis.crossed(r[i]);
+            maxRadius = Math.max(maxRadius, r[i].magnitude());
+        }
+        for (int i = 0; i < n; i++) {
+            onAxis[i] = r[i].magnitude() <= maxRadius * 1e-12;
+        }
+
+        // trig table
+        int numRings = full ? segments : segments + 1;
+        double[] cos = new double[numRings];
+        double[] sin = new double[numRings];
+        for (int k = 0; k < numRings; k++) {
+            double angle = Math.toRadians(startAngle + sweep * k / segments);
+            cos[k] = Math.cos(angle);
+            sin[k] = Math.sin(angle);
+        }
+
+        // vertices (one pass, points on the axis are shared)
+        Vector3d[] vertices = new Vector3d[numRings * n];
+        for (int k = 0; k < numRings; k++) {
+            for (int i = 0; i < n; i++) {
+                vertices[k * n + i] = onAxis[i] && k > 0
+                        ? vertices[i]
+                        : base[i].plus(r[i].times(cos[k])).plus(w[i].times(sin[k]));
+            }
+        }
+
+        // side triangles (indices), ring k to ring k + 1
+        int[] triangles = new int[segments * n * 6];
+        int numTriangles = 0;
+
+        for (int k = 0; k < segments; k++) {
+            int k1 = (k + 1) % numRings;
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                int a = k * n + i, b = k * n + j;
+                int c = k1 * n + j, d = k1 * n + i;
+
+                // points on the axis: a == d or b == c
+                if (!onAxis[i]) {
+                    triangles[numTriangles++] = a;
+                    triangles[numTriangles++] = d;
+                    triangles[numTriangles++] = c;
+                }
+                if (!onAxis[j]) {
+                    triangles[numTriangles++] = a;
+                    triangles[numTriangles++] = c;
+                    triangles[numTriangles++] = b;
+                }
+            }
+        }
+
+        // profile orientation (xy plane) and rotation direction
+        double[] coords = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            coords[i * 2] = points.get(i).x();
+            coords[i * 2 + 1] = points.get(i).y();
+        }
+        boolean ccw = Triangulator.signedArea(coords, 0, n) > 0;
+        double direction = Math.signum(sweep);
+
+        // sides face outwards if the rotation direction crossed with the
+        // profile edge points along the outward edge normal (e x z for ccw
+        // profiles)
+        double orientation = 0;
+        Vector3d wSum = Vector3d.ZERO;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            Vector3d e = points.get(j).minus(points.get(i));
+            Vector3d outward = e.crossed(Vector3d.Z_ONE).times(ccw ? 1 : -1);
+            orientation += w[i].plus(w[j]).times(direction).crossed(e).dot(outward);
+            wSum = wSum.plus(w[i]);
+        }
+        boolean flip = orientation < 0;
+
+        List<Polygon> polygons = new ArrayList<>(numTriangles / 3 + 2 * n);
+
+        for (int t = 0; t < numTriangles; t += 3) {
+            polygons.add(triangle(vertices, triangles[t],
+                    triangles[t + 1], triangles[t + 2], flip));
+        }
+
+        // caps for partial revolutions (triangles are ccw, i.e., face +z);
+        // the start cap faces against the rotation direction
+        if (!full) {
+            int[] cap = Triangulator.triangulate(coords);
+            boolean flipCap = wSum.times(direction).dot(Vector3d.Z_ONE) > 0;
+            int off = (numRings - 1) * n;
+            for (int t = 0; t < cap.length; t += 3) {
+                int a = cap[t], b = cap[t + 1], c = cap[t + 2];
+                polygons.add(triangle(vertices, a, b, c, flipCap));
+                polygons.add(triangle(vertices, off + c, off + b, off + a, flipCap));
+            }
+        }
+
+        timer.stop(polygons.size());
+
+        return CSG.fromPolygons(polygons);
+    }
+
+    private static Polygon triangle(Vector3d[] vertices,
+            int a, int b, int c, boolean flip) {
+        return flip
+                ? Polygon.fromPoints(vertices[c], vertices[b], vertices[a])
+                : Polygon.fromPoints(vertices[a], vertices[b], vertices[c]);
+    }
+}
@@ -22,7 +22,10 @@
  */
 package eu.mihosoft.jcsg.ext.path;
 
+import eu.mihosoft.jcsg.ext.path.internal.PathIteratorAdapter;
+import eu.mihosoft.jcsg.ext.path.internal.PathWorkspace;
 import eu.mihosoft.vvecmath.Vector3d;
+import java.awt.Shape;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,7 +36,6 @@ import java.util.List;
  *
  * @author Michael Hoffer <info@michaelhoffer.de>
  */
-@SuppressWarnings( "deprecation" )
 public final class SVGLinearizer {
 
     private SVGLinearizer() {
@@ -48,10 +50,253 @@ public final class SVGLinearizer {
      * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
      *
      * @return linearized svg path points
+     * @see #linearizePath(java.lang.String, double)
      */
-    @SuppressWarnings( "deprecation" )
     public static List<Vector3d> linearizePath(String svgPath, float step) {
+        return linearizePath(svgPath, (double) step);
+    }
+
+    /**
+     * Linearizes the the specified SVG path. Parsing and evaluation are
+     * performed with double precision. Sample parameters are computed from the
+     * sample index (instead of accumulating the step size) which prevents
+     * jittering sample distances for large coordinates. Parsing uses the
+     * reusable workspace of the current thread, i.e., only the resulting point
+     * list is allocated.
+     *
+     * @param svgPath svg path to linearize, e.g.,
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"}
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     *
+     * @return linearized svg path points
+     */
+    public static List<Vector3d> linearizePath(String svgPath, double step) {
+
+        checkStep(step);
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathWorkspace.forCurrentThread();
+        workspace.parse(svgPath);
+
+        parseTimer.stop(workspace.getNumberOfSegments());
+
+        return linearize(workspace, step);
+    }
+
+    /**
+     * Linearizes the the specified SVG path. The transform is applied to the
+     * Bezier control points before sampling, i.e., the step size refers to the
+     * transformed path.
+     *
+     * @param svgPath svg path to linearize, e.g.,
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"}
+     * @param transform transform to apply (e.g. parsed from the SVG
+     * {@code transform} attribute via {@link PathTransform#parse(java.lang.String)})
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     *
+     * @return linearized svg path points
+     */
+    public static List<Vector3d> linearizePath(String svgPath,
+            PathTransform transform, double step) {
+
+        checkStep(step);
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathWorkspace.forCurrentThread();
+        workspace.parse(svgPath);
+        transform.applyTo(workspace);
+
+        parseTimer.stop(workspace.getNumberOfSegments());
+
+        return linearize(workspace, step);
+    }
+
+    /**
+     * Linearizes the the specified SVG path. Sample counts are distributed
+     * across the path segments to meet the specified tessellation target.
+     *
+     * @param svgPath svg path to linearize, e.g.,
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"}
+     * @param tessellation tessellation target (error or budget)
+     *
+     * @return linearized svg path points
+     */
+    public static List<Vector3d> linearizePath(String svgPath,
+            Tessellation tessellation) {
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathWorkspace.forCurrentThread();
+        workspace.parse(svgPath);
+
+        parseTimer.stop(workspace.getNumberOfSegments());
+
+        Metrics.Timer linearizeTimer = Metrics.start(PathMetrics.Stage.LINEARIZE);
+
+        int numSamples = workspace.sample(
+                tessellation.computeSampleCounts(workspace));
+
+        List<Vector3d> result = toPoints(workspace.getSamples(), numSamples);
+        workspace.trim();
+
+        linearizeTimer.stop(result.size());
+
+        return result;
+    }
+
+    /**
+     * Linearizes the specified parsed path. Parsed paths are immutable, i.e.,
+     * this method can be called concurrently for the same path.
+     *
+     * @param path path to linearize
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     *
+     * @return linearized path points
+     */
+    public static List<Vector3d> linearizePath(ParsedPath path, double step) {
+
+        checkStep(step);
+
+        Metrics.Timer linearizeTimer = Metrics.start(PathMetrics.Stage.LINEARIZE);
+
+        List<Vector3d> result = path.sample(step);
+
+        linearizeTimer.stop(result.size());
+
+        return result;
+    }
+
+    /**
+     * Linearizes the specified parsed path in parallel (see
+     * {@link ParsedPath#sampleCoords(double, java.util.concurrent.ForkJoinPool)}).
+     * Intended for huge paths (e.g. map data with many thousand segments).
+     * The result is identical to
+     * {@link #linearizePath(eu.mihosoft.jcsg.ext.path.ParsedPath, double)}.
+     *
+     * @param path path to linearize
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     *
+     * @return linearized path points
+     */
+    public static List<Vector3d> linearizePathParallel(ParsedPath path, double step) {
+
+        checkStep(step);
+
+        Metrics.Timer linearizeTimer = Metrics.start(PathMetrics.Stage.LINEARIZE);
+
+        double[] samples = path.sampleCoordsParallel(step);
+        List<Vector3d> result = toPoints(samples, samples.length / 2);
+
+        linearizeTimer.stop(result.size());
+
+        return result;
+    }
+
+    /**
+     * Linearizes the specified AWT shape (e.g., a font glyph outline). The
+     * shape is processed directly, i.e., without converting it to an SVG path
+     * string. All subpaths are joined into one point list, use
+     * {@link #linearizeContours(java.awt.Shape, double)} for shapes with
+     * several contours.
+     *
+     * @param shape shape to linearize
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     *
+     * @return linearized shape points
+     */
+    public static List<Vector3d> linearizePath(Shape shape, double step) {
+
+        checkStep(step);
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathIteratorAdapter.read(
+                shape.getPathIterator(null), PathWorkspace.forCurrentThread());
+
+        parseTimer.stop(workspace.getNumberOfSegments());
+
+        return linearize(workspace, step);
+    }
+
+    /**
+     * Linearizes the specified AWT shape (e.g., a font glyph with several
+     * contours or a {@code GlyphVector} outline). Each subpath (as delimited
+     * by {@code SEG_MOVETO} and {@code SEG_CLOSE}) results in a separate
+     * contour. Samples are located at the same positions as the ones of
+     * {@link #linearizePath(java.awt.Shape, double)}. Contours with less than
+     * three samples are skipped.
+     *
+     * @param shape shape to linearize
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     *
+     * @return linearized contours
+     */
+    public static List<List<Vector3d>> linearizeContours(Shape shape, double step) {
+
+        checkStep(step);
+
+        Metrics.Timer parseTimer = Metrics.start(PathMetrics.Stage.PARSE);
+
+        PathWorkspace workspace = PathIteratorAdapter.read(
+                shape.getPathIterator(null), PathWorkspace.forCurrentThread());
+
+        parseTimer.stop(workspace.getNumberOfSegments());
+
+        Metrics.Timer linearizeTimer = Metrics.start(PathMetrics.Stage.LINEARIZE);
+
+        int numSamples = workspace.sample(step);
+        double[] samples = workspace.getSamples();
+        double h = workspace.getTotalLength() * step;
+
+        int numSegments = workspace.getNumberOfSegments();
+        int numSubpaths = workspace.getNumberOfSubpaths();
+
+        List<List<Vector3d>> result = new ArrayList<>(numSubpaths);
+
+        // same assignment of samples to segments as PathWorkspace.sample()
+        int i = 0;
+        int segment = 0;
+        double segmentStart = 0;
+        int numPoints = 0;
+
+        for (int subpath = 0; subpath < numSubpaths; subpath++) {
+            int end = subpath + 1 < numSubpaths
+                    ? workspace.getSubpathStart(subpath + 1) : numSegments;
+
+            List<Vector3d> contour = new ArrayList<>();
+
+            for (; segment < end; segment++) {
+                double length = workspace.getLength(segment);
+                while (i < numSamples && i * h - segmentStart < length) {
+                    contour.add(Vector3d.xy(samples[i * 2], samples[i * 2 + 1]));
+                    i++;
+                }
+                segmentStart += length;
+            }
 
+            // rounding errors: remaining samples belong to the last subpath
+            if (subpath == numSubpaths - 1) {
+                for (; i < numSamples; i++) {
+                    contour.add(Vector3d.xy(samples[i * 2], samples[i * 2 + 1]));
+                }
+            }
+
+            if (contour.size() >= 3) {
+                result.add(contour);
+                numPoints += contour.size();
+            }
+        }
+
+        workspace.trim();
+
+        linearizeTimer.stop(numPoints);
+
+        return result;
+    }
+
+    private static void checkStep(double step) {
         if (step <= 0) {
             throw new IllegalArgumentException(
                     "Illegal step specified: step must be > 0!");
@@ -61,17 +306,26 @@ public final class SVGLinearizer {
             throw new IllegalArgumentException(
                     "Illegal step specified: step must be < 1!");
         }
+    }
+
+    private static List<Vector3d> linearize(PathWorkspace workspace, double step) {
+        Metrics.Timer linearizeTimer = Metrics.start(PathMetrics.Stage.LINEARIZE);
+
+        int numSamples = workspace.sample(step);
+
+        List<Vector3d> result = toPoints(workspace.getSamples(), numSamples);
+        workspace.trim();
 
-        eu.mihosoft.jcsg.ext.path.internal.InternalBezierPath path
-                = new eu.mihosoft.jcsg.ext.path.internal.InternalBezierPath();
-        path.parsePathString(svgPath);
+        linearizeTimer.stop(result.size());
+
+        return result;
+    }
 
-        List<Vector3d> result = new ArrayList<>((int) (1.0 / step));
+    private static List<Vector3d> toPoints(double[] samples, int numSamples) {
+        List<Vector3d> result = new ArrayList<>(numSamples);
 
-        float t = 0;
-        while (t < 1.0) {
-            result.add(path.eval(t));
-            t += step;
+        for (int i = 0; i < numSamples; i++) {
+            result.add(Vector3d.xy(samples[i * 2], samples[i * 2 + 1]));
         }
 
         return result;
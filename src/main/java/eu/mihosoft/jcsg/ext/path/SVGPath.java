@@ -23,9 +23,12 @@
 package eu.mihosoft.jcsg.ext.path;
 
 import eu.mihosoft.jcsg.CSG;
-import eu.mihosoft.jcsg.Extrude;
 import eu.mihosoft.jcsg.Polygon;
 import eu.mihosoft.vvecmath.Vector3d;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -51,8 +54,8 @@ public final class SVGPath {
      */
     public static final List<Polygon> toPolygons(
             String path, double stepSize, double extension) {
-        return Polygon.fromConcavePoints(LinearPathUtil.extend(
-                SVGLinearizer.linearizePath(path, (float) stepSize),
+        return Triangulator.toPolygons(LinearPathUtil.extend(
+                SVGLinearizer.linearizePath(path, stepSize),
                 extension));
     }
 
@@ -68,9 +71,323 @@ public final class SVGPath {
      */
     public static CSG toCSG(String path, double height,
             double stepSize, double extension) {
-        return Extrude.points(Vector3d.z(height),
-                LinearPathUtil.extend(
-                        SVGLinearizer.linearizePath(path, (float) stepSize),
-                        extension));
+        return extrude(LinearPathUtil.extend(
+                SVGLinearizer.linearizePath(path, stepSize),
+                extension), height);
+    }
+
+    /**
+     * Converts closed SVG paths without holes to CSG objects (extrudes path).
+     * The transform is applied to the Bezier control points of the path, i.e.,
+     * before linearization. Extension is specified in transformed units.
+     *
+     * @param path path to convert (e.g.
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"})
+     * @param transform transform to apply (e.g. parsed from the SVG
+     * {@code transform} attribute via {@link PathTransform#parse(java.lang.String)})
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the path along vertex normals (XY plane)
+     * @return CSG object
+     */
+    public static CSG toCSG(String path, PathTransform transform,
+            double height, double stepSize, double extension) {
+        return extrude(LinearPathUtil.extend(
+                SVGLinearizer.linearizePath(path, transform, stepSize),
+                extension), height);
+    }
+
+    /**
+     * Converts closed SVG paths without holes to CSG objects (extrudes path).
+     * Instead of a step size, the linearization is controlled by a
+     * tessellation target, e.g., {@code Tessellation.triangleBudget(2000)} or
+     * {@code Tessellation.maxError(0.01)}.
+     *
+     * @param path path to convert (e.g.
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"})
+     * @param height extrusion hight.
+     * @param tessellation tessellation target (error or budget)
+     * @param extension extends the path along vertex normals (XY plane)
+     * @return CSG object
+     */
+    public static CSG toCSG(String path, double height,
+            Tessellation tessellation, double extension) {
+        return extrude(LinearPathUtil.extend(
+                SVGLinearizer.linearizePath(path, tessellation),
+                extension), height);
+    }
+
+    /**
+     * Converts closed AWT shapes (e.g. font glyph outlines) to polygons. The
+     * shape is processed directly, i.e., without converting it to an SVG path
+     * string. Each subpath is a separate contour, contours are combined with
+     * the winding rule of the shape, i.e., shapes may consist of several
+     * regions with holes (e.g. the glyphs "o", "A" or "8").
+     *
+     * @param shape shape to convert
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the contours along vertex normals (XY plane,
+     * outlines ccw and holes cw)
+     * @return list of convex polygons
+     */
+    public static final List<Polygon> toPolygons(
+            Shape shape, double stepSize, double extension) {
+
+        List<Polygon> polygons = new ArrayList<>();
+
+        for (PathBoolean.Region region : toRegions(shape, stepSize, extension)) {
+            polygons.addAll(Triangulator.toPolygons(
+                    region.getOutline(), region.getHoles()));
+        }
+
+        return polygons;
+    }
+
+    /**
+     * Converts closed AWT shapes (e.g. font glyph outlines) to CSG objects
+     * (extrudes shape). The shape is processed directly, i.e., without
+     * converting it to an SVG path string. Each subpath is a separate
+     * contour, contours are combined with the winding rule of the shape,
+     * i.e., shapes may consist of several regions with holes (e.g. the
+     * glyphs "o", "A" or "8").
+     *
+     * @param shape shape to convert
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the contours along vertex normals (XY plane,
+     * outlines ccw and holes cw)
+     * @return CSG object
+     */
+    public static CSG toCSG(Shape shape, double height,
+            double stepSize, double extension) {
+
+        List<Polygon> polygons = new ArrayList<>();
+
+        for (PathBoolean.Region region : toRegions(shape, stepSize, extension)) {
+            polygons.addAll(extrude(region.getOutline(),
+                    region.getHoles(), height).getPolygons());
+        }
+
+        return CSG.fromPolygons(polygons);
+    }
+
+    private static List<PathBoolean.Region> toRegions(Shape shape,
+            double stepSize, double extension) {
+
+        boolean evenOdd = shape.getPathIterator(null).getWindingRule()
+                == PathIterator.WIND_EVEN_ODD;
+
+        List<List<Vector3d>> contours = PathBoolean.resolve(
+                SVGLinearizer.linearizeContours(shape, stepSize), evenOdd);
+
+        if (extension != 0) {
+            List<List<Vector3d>> extended = new ArrayList<>(contours.size());
+            for (List<Vector3d> contour : contours) {
+                extended.add(LinearPathUtil.extend(contour, extension));
+            }
+            // extended contours may overlap
+            contours = PathBoolean.resolve(extended, false);
+        }
+
+        return PathBoolean.toRegions(contours);
+    }
+
+    /**
+     * Converts several closed SVG paths to one CSG object. The linearized
+     * paths are merged with {@link PathBoolean} in 2D and the result is
+     * extruded once, which is considerably faster than extruding each path
+     * and merging the extrusions with 3D CSG operations. Each path is
+     * interpreted as filled region regardless of its orientation.
+     *
+     * @param paths paths to convert
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the paths along vertex normals (XY plane)
+     * @return CSG object
+     */
+    public static CSG toCSG(List<String> paths, double height,
+            double stepSize, double extension) {
+
+        List<List<Vector3d>> outlines = new ArrayList<>(paths.size());
+
+        for (String path : paths) {
+            outlines.add(LinearPathUtil.extend(
+                    SVGLinearizer.linearizePath(path, stepSize),
+                    extension));
+        }
+
+        List<Polygon> polygons = new ArrayList<>();
+
+        for (PathBoolean.Region region
+                : PathBoolean.toRegions(PathBoolean.union(outlines))) {
+            polygons.addAll(extrude(region.getOutline(),
+                    region.getHoles(), height).getPolygons());
+        }
+
+        return CSG.fromPolygons(polygons);
+    }
+
+    /**
+     * Converts closed SVG paths without holes to triangles (extrudes path) and
+     * adds them to the specified off-heap mesh. Triangles are written to the
+     * mesh directly, i.e., no polygons are created on the heap.
+     *
+     * @param path path to convert (e.g.
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"})
+     * @param height extrusion hight.
+     * @param stepSize step size for path linearization (small is better)
+     * @param extension extends the path along vertex normals (XY plane)
+     * @param mesh target mesh
+     */
+    public static void toMesh(String path, double height,
+            double stepSize, double extension, OffHeapMesh mesh) {
+        extrude(LinearPathUtil.extend(
+                SVGLinearizer.linearizePath(path, stepSize),
+                extension), height, mesh);
+    }
+
+    /**
+     * Extrudes the specified closed outline (XY plane) along the z axis and
+     * adds the triangles to the specified mesh. Caps are triangulated with
+     * {@link Triangulator}.
+     *
+     * @param outline outline to extrude
+     * @param height extrusion height
+     * @param mesh target mesh
+     */
+    static void extrude(List<Vector3d> outline, double height,
+            OffHeapMesh mesh) {
+
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.EXTRUDE);
+
+        int n = outline.size();
+
+        double[] coords = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            coords[i * 2] = outline.get(i).x();
+            coords[i * 2 + 1] = outline.get(i).y();
+        }
+
+        // outline has to be counter-clockwise
+        boolean reversed = Triangulator.signedArea(coords, 0, n) < 0;
+
+        int[] bottom = new int[n];
+        int[] top = new int[n];
+        for (int i = 0; i < n; i++) {
+            Vector3d p = outline.get(reversed ? n - 1 - i : i);
+            bottom[i] = mesh.addVertex(p.x(), p.y(), p.z());
+            top[i] = mesh.addVertex(p.x(), p.y(), p.z() + height);
+            coords[i * 2] = p.x();
+            coords[i * 2 + 1] = p.y();
+        }
+
+        int[] triangles = Triangulator.triangulate(coords);
+
+        for (int i = 0; i < triangles.length; i += 3) {
+            int a = triangles[i];
+            int b = triangles[i + 1];
+            int c = triangles[i + 2];
+
+            // bottom cap faces in negative z direction
+            mesh.addTriangle(bottom[c], bottom[b], bottom[a]);
+            mesh.addTriangle(top[a], top[b], top[c]);
+        }
+
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            mesh.addTriangle(bottom[i], bottom[j], top[j]);
+            mesh.addTriangle(bottom[i], top[j], top[i]);
+        }
+
+        timer.stop(triangles.length / 3 * 2 + n);
+    }
+
+    /**
+     * Extrudes the specified closed outline (XY plane) along the z axis. Caps
+     * are triangulated with {@link Triangulator}.
+     *
+     * @param outline outline to extrude
+     * @param height extrusion height
+     * @return CSG object
+     */
+    static CSG extrude(List<Vector3d> outline, double height) {
+        return extrude(outline, Collections.emptyList(), height);
+    }
+
+    /**
+     * Extrudes the specified closed outline and its holes (XY plane) along
+     * the z axis. Caps are triangulated with {@link Triangulator}.
+     *
+     * @param outline outline to extrude
+     * @param holes holes of the outline
+     * @param height extrusion height
+     * @return CSG object
+     */
+    static CSG extrude(List<Vector3d> outline,
+            List<List<Vector3d>> holes, double height) {
+        return CSG.fromPolygons(extrudePolygons(outline, holes, height));
+    }
+
+    private static List<Polygon> extrudePolygons(List<Vector3d> outline,
+            List<List<Vector3d>> holes, double height) {
+
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.EXTRUDE);
+
+        // outline has to be counter-clockwise, holes clockwise
+        List<Vector3d> bottom = orient(outline, true);
+        List<List<Vector3d>> bottomHoles = new ArrayList<>(holes.size());
+        for (List<Vector3d> hole : holes) {
+            bottomHoles.add(orient(hole, false));
+        }
+
+        List<Polygon> capTriangles = Triangulator.toPolygons(bottom, bottomHoles);
+
+        List<Polygon> polygons = new ArrayList<>(capTriangles.size() * 2);
+
+        for (Polygon triangle : capTriangles) {
+            Vector3d a = triangle.vertices.get(0).pos;
+            Vector3d b = triangle.vertices.get(1).pos;
+            Vector3d c = triangle.vertices.get(2).pos;
+
+            // bottom cap faces in negative z direction
+            polygons.add(Polygon.fromPoints(c, b, a));
+            polygons.add(Polygon.fromPoints(
+                    a.plus(0, 0, height), b.plus(0, 0, height), c.plus(0, 0, height)));
+        }
+
+        addSides(polygons, bottom, height);
+        for (List<Vector3d> hole : bottomHoles) {
+            addSides(polygons, hole, height);
+        }
+
+        timer.stop(polygons.size());
+
+        return polygons;
+    }
+
+    private static List<Vector3d> orient(List<Vector3d> contour, boolean ccw) {
+        List<Vector3d> result = new ArrayList<>(contour);
+
+        double[] coords = new double[result.size() * 2];
+        for (int i = 0; i < result.size(); i++) {
+            coords[i * 2] = result.get(i).x();
+            coords[i * 2 + 1] = result.get(i).y();
+        }
+        if ((Triangulator.signedArea(coords, 0, result.size()) > 0) != ccw) {
+            Collections.reverse(result);
+        }
+
+        return result;
+    }
+
+    private static void addSides(List<Polygon> polygons,
+            List<Vector3d> contour, double height) {
+        for (int i = 0; i < contour.size(); i++) {
+            int j = (i + 1) % contour.size();
+            polygons.add(Polygon.fromPoints(
+                    contour.get(i), contour.get(j),
+                    contour.get(j).plus(0, 0, height),
+                    contour.get(i).plus(0, 0, height)));
+        }
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates screw threads (helical ridges about the z axis). In contrast to
+ * sweeping a profile along a sampled helix with
+ * {@link ExtrudeProfile#alongPath(eu.mihosoft.jcsg.ext.path.PathProfile, eu.mihosoft.vvecmath.Plane, java.util.List)},
+ * the helix symmetry is used directly: the ring transform (rotation about the
+ * z axis plus pitch offset) is computed analytically from a sin/cos table of
+ * one turn and repeated for all turns. No frames or correction transforms
+ * are computed.
+ *
+ * The thread profile is specified in the radial/axial plane: {@code x} is the
+ * radial position ({@code 0} = minor radius, {@code 1} = major radius) and
+ * {@code y} the axial position in units of the pitch. The axial extent of the
+ * profile must be smaller than one pitch. The thread starts at angle zero and
+ * {@code z = 0}. For a complete screw, the thread has to be combined with a
+ * core cylinder (minor diameter). The default profile slightly penetrates
+ * the core to get robust CSG unions.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class ScrewThread {
+
+    /**
+     * Default profile (symmetric trapezoid with 60 degree flanks, 1/8 pitch
+     * crest width).
+     */
+    private static final List<Vector3d> DEFAULT_PROFILE
+            = Collections.unmodifiableList(Arrays.asList(
+                    Vector3d.xy(-0.05, -0.4375),
+                    Vector3d.xy(1.0, -0.0625),
+                    Vector3d.xy(1.0, 0.0625),
+                    Vector3d.xy(-0.05, 0.4375)));
+
+    private ScrewThread() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Creates a thread with the default profile.
+     *
+     * @param pitch axial distance per turn
+     * @param turns number of turns
+     * @param majorDiameter major (outer) diameter
+     * @param minorDiameter minor (core) diameter
+     * @param segmentsPerTurn number of segments per turn ({@code >= 3})
+     * @return thread
+     */
+    public static CSG create(double pitch, double turns, double majorDiameter,
+            double minorDiameter, int segmentsPerTurn) {
+        return create(pitch, turns, majorDiameter, minorDiameter,
+                DEFAULT_PROFILE, segmentsPerTurn);
+    }
+
+    /**
+     * Creates a thread with the specified profile.
+     *
+     * @param pitch axial distance per turn
+     * @param turns number of turns
+     * @param majorDiameter major (outer) diameter
+     * @param minorDiameter minor (core) diameter
+     * @param profile thread profile (x: radial position, 0 = minor radius, 1 =
+     * major radius; y: axial position in units of the pitch)
+     * @param segmentsPerTurn number of segments per turn ({@code >= 3})
+     * @return thread
+     */
+    public static CSG create(double pitch, double turns, double majorDiameter,
+            double minorDiameter, List<Vector3d> profile, int segmentsPerTurn) {
+
+        if (!(pitch > 0) || !(turns > 0)) {
+            throw new IllegalArgumentException(
+                    "Illegal thread specified: pitch and turns must be > 0!");
+        }
+
+        if (!(majorDiameter > minorDiameter) || minorDiameter < 0) {
+            throw new IllegalArgumentException(
+                    "Illegal thread specified: major diameter must be > minor diameter >= 0!");
+        }
+
+        if (segmentsPerTurn < 3) {
+            throw new IllegalArgumentException(
+                    "Illegal thread specified: segments per turn must be >= 3!");
+        }
+
+        if (profile.size() < 3) {
+            throw new IllegalArgumentException(
+                    "Illegal profile specified: at least three points required!");
+        }
+
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.SWEEP);
+
+        int n = profile.size();
+
+        // profile in radial/axial coordinates (counter-clockwise)
+        double[] coords = new double[n * 2];
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            coords[i * 2] = profile.get(i).x();
+            coords[i * 2 + 1] = profile.get(i).y();
+            minY = Math.min(minY, coords[i * 2 + 1]);
+            maxY = Math.max(maxY, coords[i * 2 + 1]);
+        }
+
+        if (maxY - minY >= 1) {
+            throw new IllegalArgumentException(
+                    "Illegal profile specified: axial extent must be < 1 pitch!");
+        }
+
+        if (Triangulator.signedArea(coords, 0, n) < 0) {
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                double x = coords[i * 2], y = coords[i * 2 + 1];
+                coords[i * 2] = coords[j * 2];
+                coords[i * 2 + 1] = coords[j * 2 + 1];
+                coords[j * 2] = x;
+                coords[j * 2 + 1] = y;
+            }
+        }
+
+        double minorRadius = minorDiameter * 0.5;
+        double majorRadius = majorDiameter * 0.5;
+
+        double[] radius = new double[n];
+        double[] height = new double[n];
+        for (int i = 0; i < n; i++) {
+            radius[i] = minorRadius + coords[i * 2] * (majorRadius - minorRadius);
+            height[i] = coords[i * 2 + 1] * pitch;
+        }
+
+        // ring transform table for one turn
+        double[] cos = new double[segmentsPerTurn];
+        double[] sin = new double[segmentsPerTurn];
+        for (int k = 0; k < segmentsPerTurn; k++) {
+            double angle = 2 * Math.PI * k / segmentsPerTurn;
+            cos[k] = Math.cos(angle);
+            sin[k] = Math.sin(angle);
+        }
+
+        // full steps use the table, a fractional last step is computed
+        // separately
+        double totalSteps = turns * segmentsPerTurn;
+        int numSteps = (int) Math.floor(totalSteps + 1e-9);
+        boolean partialStep = totalSteps - numSteps > 1e-9;
+        double stepHeight = pitch / segmentsPerTurn;
+
+        List<Polygon> polygons = new ArrayList<>(
+                (numSteps + 1) * n * 2 + 2 * n);
+
+        Vector3d[] first = ring(radius, height, cos[0], sin[0], 0);
+        Vector3d[] ring = first;
+
+        for (int step = 1; step <= numSteps + (partialStep ? 1 : 0); step++) {
+            Vector3d[] next;
+
+            if (step <= numSteps) {
+                int k = step % segmentsPerTurn;
+                next = ring(radius, height, cos[k], sin[k], step * stepHeight);
+            } else {
+                double angle = 2 * Math.PI * turns;
+                next = ring(radius, height, Math.cos(angle), Math.sin(angle),
+                        pitch * turns);
+            }
+
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                polygons.add(Polygon.fromPoints(ring[i], next[i], next[j]));
+                polygons.add(Polygon.fromPoints(ring[i], next[j], ring[j]));
+            }
+
+            ring = next;
+        }
+
+        // caps (profile may be concave)
+        int[] triangles = Triangulator.triangulate(coords);
+        for (int t = 0; t < triangles.length; t += 3) {
+            int a = triangles[t], b = triangles[t + 1], c = triangles[t + 2];
+            polygons.add(Polygon.fromPoints(first[a], first[b], first[c]));
+            polygons.add(Polygon.fromPoints(ring[c], ring[b], ring[a]));
+        }
+
+        timer.stop(polygons.size());
+
+        return CSG.fromPolygons(polygons);
+    }
+
+    private static Vector3d[] ring(double[] radius, double[] height,
+            double cos, double sin, double z) {
+        Vector3d[] ring = new Vector3d[radius.length];
+        for (int i = 0; i < radius.length; i++) {
+            ring[i] = Vector3d.xyz(radius[i] * cos, radius[i] * sin, height[i] + z);
+        }
+        return ring;
+    }
+}
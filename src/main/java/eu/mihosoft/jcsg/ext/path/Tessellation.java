@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.ext.path.internal.PathWorkspace;
+
+/**
+ * Tessellation target for path linearization. Instead of a fixed step size a
+ * tessellation specifies a maximum geometric error or a vertex/triangle
+ * budget. Sample counts are distributed across the Bezier segments of a path
+ * based on a cheap curvature estimate (the second differences of the control
+ * points), i.e., without linearizing the path first.
+ *
+ * For a Bezier segment of degree {@code d} the distance between curve and
+ * polyline with {@code n} uniform samples is bounded by
+ * {@code d(d-1) max|P[i+2] - 2P[i+1] + P[i]| / (8 n^2)}.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class Tessellation {
+
+    /**
+     * Maximum number of samples per path.
+     */
+    static final int MAX_SAMPLES = 1 << 24;
+
+    private final double maxError;
+    private final int vertexBudget;
+
+    private Tessellation(double maxError, int vertexBudget) {
+        this.maxError = maxError;
+        this.vertexBudget = vertexBudget;
+    }
+
+    /**
+     * Creates a tessellation that limits the distance between path and
+     * polyline. Linearization fails with an {@link IllegalArgumentException}
+     * if the error would require more than {@code 2^24} samples.
+     *
+     * @param maxError maximum geometric error ({@code > 0})
+     * @return tessellation
+     */
+    public static Tessellation maxError(double maxError) {
+        if (!(maxError > 0)) {
+            throw new IllegalArgumentException(
+                    "Illegal error specified: error must be > 0!");
+        }
+        return new Tessellation(maxError, 0);
+    }
+
+    /**
+     * Creates a tessellation that limits the number of outline vertices. The
+     * budget cannot be lower than the number of (non-degenerate) path
+     * segments since each segment is represented by at least one vertex.
+     *
+     * @param vertices maximum number of vertices ({@code >= 3})
+     * @return tessellation
+     */
+    public static Tessellation vertexBudget(int vertices) {
+        if (vertices < 3) {
+            throw new IllegalArgumentException(
+                    "Illegal budget specified: budget must be >= 3!");
+        }
+        return new Tessellation(0, vertices);
+    }
+
+    /**
+     * Creates a tessellation that limits the number of triangles of an
+     * extruded outline (see
+     * {@link SVGPath#toCSG(java.lang.String, double, eu.mihosoft.jcsg.ext.path.Tessellation, double)}).
+     * An outline with {@code n} vertices results in {@code 2(n-2)} cap
+     * triangles and {@code n} side quads, i.e., {@code 4n-4} triangles.
+     *
+     * @param triangles maximum number of triangles ({@code >= 8})
+     * @return tessellation
+     */
+    public static Tessellation triangleBudget(int triangles) {
+        if (triangles < 8) {
+            throw new IllegalArgumentException(
+                    "Illegal budget specified: budget must be >= 8!");
+        }
+        return new Tessellation(0, (triangles + 4) / 4);
+    }
+
+    /**
+     * Returns the maximum geometric error.
+     *
+     * @return maximum error ({@code 0} if this tessellation specifies a budget)
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * Returns the vertex budget.
+     *
+     * @return vertex budget ({@code 0} if this tessellation specifies an error)
+     */
+    public int getVertexBudget() {
+        return vertexBudget;
+    }
+
+    /**
+     * Computes the number of samples per segment for the path in the
+     * specified workspace.
+     *
+     * @param workspace workspace that contains the parsed path
+     * @return sample counts (one entry per segment)
+     * @throws IllegalArgumentException if the path would require more than
+     * {@link #MAX_SAMPLES} samples
+     */
+    int[] computeSampleCounts(PathWorkspace workspace) {
+        int numSegments = workspace.getNumberOfSegments();
+
+        // error coefficients, error of segment i with n samples: c[i] / n^2
+        double[] c = new double[numSegments];
+        double[] coords = workspace.getCoords();
+        int fixed = 0;
+        double maxC = 0;
+
+        for (int i = 0; i < numSegments; i++) {
+            if (workspace.getLength(i) == 0) {
+                c[i] = -1; // degenerate segment, no samples
+                continue;
+            }
+
+            fixed++;
+
+            int d = workspace.getDegree(i);
+            int off = i * PathWorkspace.STRIDE;
+            double m = 0;
+            for (int k = 0; k + 2 <= d; k++) {
+                int o = off + 2 * k;
+                double dx = coords[o + 4] - 2 * coords[o + 2] + coords[o];
+                double dy = coords[o + 5] - 2 * coords[o + 3] + coords[o + 1];
+                m = Math.max(m, Math.sqrt(dx * dx + dy * dy));
+            }
+
+            c[i] = d * (d - 1) * m / 8;
+            maxC = Math.max(maxC, c[i]);
+        }
+
+        int[] counts = new int[numSegments];
+
+        if (fixed > MAX_SAMPLES) {
+            throw new IllegalArgumentException(
+                    "Illegal path specified: path has more than "
+                    + MAX_SAMPLES + " segments!");
+        }
+
+        if (vertexBudget == 0) {
+            long numSamples = countSamples(c, maxError, counts);
+            if (numSamples > MAX_SAMPLES) {
+                throw new IllegalArgumentException(
+                        "Illegal error specified: error " + maxError
+                        + " requires more than " + MAX_SAMPLES + " samples!");
+            }
+            return counts;
+        }
+
+        // budgets are upper bounds, i.e., larger budgets can be clamped
+        int budget = Math.min(vertexBudget, MAX_SAMPLES);
+
+        if (budget <= fixed || maxC == 0) {
+            countSamples(c, Double.POSITIVE_INFINITY, counts);
+            return counts;
+        }
+
+        // the number of samples decreases monotonically with the error,
+        // bisection (log scale) finds the smallest error within budget
+        double lo = maxC * 1e-15;
+        double hi = maxC;
+
+        if (countSamples(c, lo, counts) <= budget) {
+            return counts;
+        }
+
+        for (int iteration = 0; iteration < 64; iteration++) {
+            double mid = Math.sqrt(lo * hi);
+            if (countSamples(c, mid, counts) <= budget) {
+                hi = mid;
+            } else {
+                lo = mid;
+            }
+        }
+
+        countSamples(c, hi, counts);
+
+        return counts;
+    }
+
+    private static long countSamples(double[] c, double error, int[] counts) {
+        long sum = 0;
+        for (int i = 0; i < c.length; i++) {
+            if (c[i] < 0) {
+                counts[i] = 0;
+            } else {
+                // per segment counts are clamped, the sum is checked by the
+                // caller
+                counts[i] = (int) Math.max(1,
+                        Math.min(MAX_SAMPLES + 1, Math.ceil(Math.sqrt(c[i] / error))));
+            }
+            sum += counts[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return vertexBudget > 0
+                ? "Tessellation[vertexBudget=" + vertexBudget + "]"
+                : "Tessellation[maxError=" + maxError + "]";
+    }
+}
@@ -0,0 +1,963 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Triangulates simple polygons with holes (XY plane).
+ *
+ * The implementation uses ear clipping on a doubly linked vertex list that is
+ * stored in primitive arrays. For larger outlines vertices are additionally
+ * sorted along a z-order curve which restricts the ear tests to vertices that
+ * are located inside the bounding box of the ear candidate (see the earcut
+ * algorithm by Mapbox). Holes are bridged into the outline before clipping.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class Triangulator {
+
+    /**
+     * Number of vertices above which z-order hashing is enabled.
+     */
+    private static final int HASHING_THRESHOLD = 80;
+
+    private Triangulator() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Triangulates the specified polygon.
+     *
+     * @param coords vertex coordinates of outline and holes
+     * ({@code x0, y0, x1, y1, ...})
+     * @param holeIndices vertex indices where the holes start (may be empty)
+     * @return triangle index buffer (three vertex indices per triangle,
+     * counter-clockwise)
+     */
+    public static int[] triangulate(double[] coords, int... holeIndices) {
+        Metrics.Timer timer = Metrics.start(PathMetrics.Stage.TRIANGULATE);
+
+        int[] triangles = new Earcut(coords, holeIndices).triangulate();
+
+        timer.stop(triangles.length / 3);
+
+        return triangles;
+    }
+
+    /**
+     * Triangulates the specified polygon.
+     *
+     * @param outline polygon outline (XY plane)
+     * @param holes holes (XY plane, may be empty)
+     * @return list of triangles (counter-clockwise, i.e., normal points in
+     * positive z direction)
+     */
+    public static List<Polygon> toPolygons(List<Vector3d> outline,
+            List<List<Vector3d>> holes) {
+
+        int numPoints = outline.size();
+        for (List<Vector3d> hole : holes) {
+            numPoints += hole.size();
+        }
+
+        Vector3d[] points = new Vector3d[numPoints];
+        double[] coords = new double[numPoints * 2];
+        int[] holeIndices = new int[holes.size()];
+
+        int idx = 0;
+        for (Vector3d p : outline) {
+            points[idx] = p;
+            coords[idx * 2] = p.x();
+            coords[idx * 2 + 1] = p.y();
+            idx++;
+        }
+
+        for (int h = 0; h < holes.size(); h++) {
+            holeIndices[h] = idx;
+            for (Vector3d p : holes.get(h)) {
+                points[idx] = p;
+                coords[idx * 2] = p.x();
+                coords[idx * 2 + 1] = p.y();
+                idx++;
+            }
+        }
+
+        int[] triangles = triangulate(coords, holeIndices);
+
+        List<Polygon> result = new ArrayList<>(triangles.length / 3);
+
+        for (int i = 0; i < triangles.length; i += 3) {
+            result.add(Polygon.fromPoints(points[triangles[i]],
+                    points[triangles[i + 1]], points[triangles[i + 2]]));
+        }
+
+        return result;
+    }
+
+    /**
+     * Triangulates the specified polygon.
+     *
+     * @param outline polygon outline (XY plane)
+     * @return list of triangles (counter-clockwise, i.e., normal points in
+     * positive z direction)
+     */
+    public static List<Polygon> toPolygons(List<Vector3d> outline) {
+        return toPolygons(outline, new ArrayList<>());
+    }
+
+    /**
+     * Computes the signed area of the specified closed outline (XY plane).
+     *
+     * @param coords vertex coordinates ({@code x0, y0, x1, y1, ...})
+     * @param start first vertex index
+     * @param end last vertex index (exclusive)
+     * @return signed area (positive if counter-clockwise)
+     */
+    static double signedArea(double[] coords, int start, int end) {
+        double sum = 0;
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            sum += (coords[j * 2] - coords[i * 2])
+                    * (coords[i * 2 + 1] + coords[j * 2 + 1]);
+        }
+        return sum * 0.5;
+    }
+
+    /**
+     * Ear clipping triangulation. Nodes of the linked vertex lists are
+     * addressed by {@code int} indices into primitive arrays ({@code -1}
+     * denotes a missing node).
+     */
+    private static final class Earcut {
+
+        private final double[] coords;
+        private final int[] holeIndices;
+
+        // node data
+        private int[] vertex;
+        private double[] x;
+        private double[] y;
+        private int[] prev;
+        private int[] next;
+        private int[] z;
+        private int[] prevZ;
+        private int[] nextZ;
+        private boolean[] steiner;
+        private int numNodes;
+
+        // output
+        private int[] triangles;
+        private int numTriangleIndices;
+
+        // z-order hashing
+        private double minX;
+        private double minY;
+        private double invSize;
+
+        Earcut(double[] coords, int[] holeIndices) {
+            this.coords = coords;
+            this.holeIndices = holeIndices == null ? new int[0] : holeIndices;
+
+            int numVertices = coords.length / 2;
+            int capacity = numVertices + 2 * this.holeIndices.length + 16;
+
+            vertex = new int[capacity];
+            x = new double[capacity];
+            y = new double[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            z = new int[capacity];
+            prevZ = new int[capacity];
+            nextZ = new int[capacity];
+            steiner = new boolean[capacity];
+
+            triangles = new int[Math.max(3, (numVertices - 2) * 3
+                    + this.holeIndices.length * 6)];
+        }
+
+        int[] triangulate() {
+            int numVertices = coords.length / 2;
+            boolean hasHoles = holeIndices.length > 0;
+            int outerEnd = hasHoles ? holeIndices[0] : numVertices;
+
+            int outerNode = linkedList(0, outerEnd, true);
+
+            if (outerNode < 0 || next[outerNode] == prev[outerNode]) {
+                return new int[0];
+            }
+
+            if (hasHoles) {
+                outerNode = eliminateHoles(outerNode);
+            }
+
+            // enable z-order hashing for larger polygons
+            if (numVertices > HASHING_THRESHOLD) {
+                minX = Double.POSITIVE_INFINITY;
+                minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+
+                for (int i = 0; i < outerEnd; i++) {
+                    double px = coords[i * 2];
+                    double py = coords[i * 2 + 1];
+                    minX = Math.min(minX, px);
+                    minY = Math.min(minY, py);
+                    maxX = Math.max(maxX, px);
+                    maxY = Math.max(maxY, py);
+                }
+
+                double size = Math.max(maxX - minX, maxY - minY);
+                invSize = size != 0 ? 32767 / size : 0;
+            }
+
+            earcutLinked(outerNode, 0);
+
+            return Arrays.copyOf(triangles, numTriangleIndices);
+        }
+
+        private int newNode(int i, double px, double py) {
+            if (numNodes == vertex.length) {
+                int capacity = vertex.length * 2;
+                vertex = Arrays.copyOf(vertex, capacity);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                next = Arrays.copyOf(next, capacity);
+                z = Arrays.copyOf(z, capacity);
+                prevZ = Arrays.copyOf(prevZ, capacity);
+                nextZ = Arrays.copyOf(nextZ, capacity);
+                steiner = Arrays.copyOf(steiner, capacity);
+            }
+
+            int n = numNodes++;
+            vertex[n] = i;
+            x[n] = px;
+            y[n] = py;
+            prev[n] = -1;
+            next[n] = -1;
+            z[n] = 0;
+            prevZ[n] = -1;
+            nextZ[n] = -1;
+            steiner[n] = false;
+
+            return n;
+        }
+
+        private int insertNode(int i, int last) {
+            int p = newNode(i, coords[i * 2], coords[i * 2 + 1]);
+
+            if (last < 0) {
+                prev[p] = p;
+                next[p] = p;
+            } else {
+                next[p] = next[last];
+                prev[p] = last;
+                prev[next[last]] = p;
+                next[last] = p;
+            }
+
+            return p;
+        }
+
+        private void removeNode(int p) {
+            prev[next[p]] = prev[p];
+            next[prev[p]] = next[p];
+
+            if (prevZ[p] >= 0) {
+                nextZ[prevZ[p]] = nextZ[p];
+            }
+            if (nextZ[p] >= 0) {
+                prevZ[nextZ[p]] = prevZ[p];
+            }
+        }
+
+        private void addTriangle(int a, int b, int c) {
+            if (numTriangleIndices + 3 > triangles.length) {
+                triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            }
+            triangles[numTriangleIndices++] = vertex[a];
+            triangles[numTriangleIndices++] = vertex[b];
+            triangles[numTriangleIndices++] = vertex[c];
+        }
+
+        /**
+         * Creates a circular linked list from the specified vertex range with
+         * the specified winding order.
+         */
+        private int linkedList(int start, int end, boolean clockwise) {
+            int last = -1;
+
+            if (clockwise == (signedArea(coords, start, end) > 0)) {
+                for (int i = start; i < end; i++) {
+                    last = insertNode(i, last);
+                }
+            } else {
+                for (int i = end - 1; i >= start; i--) {
+                    last = insertNode(i, last);
+                }
+            }
+
+            if (last >= 0 && equals(last, next[last])) {
+                removeNode(last);
+                last = next[last];
+            }
+
+            return last;
+        }
+
+        /**
+         * Removes duplicate and collinear points.
+         */
+        private int filterPoints(int start, int end) {
+            if (start < 0) {
+                return start;
+            }
+            if (end < 0) {
+                end = start;
+            }
+
+            int p = start;
+            boolean again;
+
+            do {
+                again = false;
+
+                if (!steiner[p] && (equals(p, next[p])
+                        || area(prev[p], p, next[p]) == 0)) {
+                    removeNode(p);
+                    p = end = prev[p];
+                    if (p == next[p]) {
+                        break;
+                    }
+                    again = true;
+                } else {
+                    p = next[p];
+                }
+            } while (again || p != end);
+
+            return end;
+        }
+
+        /**
+         * Main ear slicing loop.
+         */
+        private void earcutLinked(int ear, int pass) {
+            if (ear < 0) {
+                return;
+            }
+
+            if (pass == 0 && invSize != 0) {
+                indexCurve(ear);
+            }
+
+            int stop = ear;
+
+            while (prev[ear] != next[ear]) {
+                int p = prev[ear];
+                int n = next[ear];
+
+                if (invSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+                    addTriangle(p, ear, n);
+                    removeNode(ear);
+
+                    // skipping the next vertex leads to less sliver triangles
+                    ear = next[n];
+                    stop = next[n];
+                    continue;
+                }
+
+                ear = n;
+
+                // if we looped through the whole remaining polygon and can't
+                // find any more ears
+                if (ear == stop) {
+                    if (pass == 0) {
+                        // try filtering points and slicing again
+                        earcutLinked(filterPoints(ear, -1), 1);
+                    } else if (pass == 1) {
+                        // if this didn't work, try curing all small
+                        // self-intersections locally
+                        ear = cureLocalIntersections(filterPoints(ear, -1));
+                        earcutLinked(ear, 2);
+                    } else if (pass == 2) {
+                        // as a last resort, try splitting the remaining
+                        // polygon into two
+                        splitEarcut(ear);
+                    }
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Checks whether a polygon node forms a valid ear with adjacent nodes.
+         */
+        private boolean isEar(int ear) {
+            int a = prev[ear];
+            int b = ear;
+            int c = next[ear];
+
+            if (area(a, b, c) >= 0) {
+                return false; // reflex, can't be an ear
+            }
+
+            // now make sure we don't have other points inside the potential ear
+            int p = next[next[ear]];
+
+            while (p != prev[ear]) {
+                if (pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+                        && area(prev[p], p, next[p]) >= 0) {
+                    return false;
+                }
+                p = next[p];
+            }
+
+            return true;
+        }
+
+        private boolean isEarHashed(int ear) {
+            int a = prev[ear];
+            int b = ear;
+            int c = next[ear];
+
+            if (area(a, b, c) >= 0) {
+                return false; // reflex, can't be an ear
+            }
+
+            // triangle bbox
+            double x0 = Math.min(x[a], Math.min(x[b], x[c]));
+            double y0 = Math.min(y[a], Math.min(y[b], y[c]));
+            double x1 = Math.max(x[a], Math.max(x[b], x[c]));
+            double y1 = Math.max(y[a], Math.max(y[b], y[c]));
+
+            // z-order range for the current triangle bbox
+            int minZ = zOrder(x0, y0);
+            int maxZ = zOrder(x1, y1);
+
+            int p = prevZ[ear];
+            int n = nextZ[ear];
+
+            // look for points inside the triangle in both directions
+            while (p >= 0 && z[p] >= minZ && n >= 0 && z[n] <= maxZ) {
+                if (isInsideEar(p, a, b, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                p = prevZ[p];
+
+                if (isInsideEar(n, a, b, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                n = nextZ[n];
+            }
+
+            // look for remaining points in decreasing z-order
+            while (p >= 0 && z[p] >= minZ) {
+                if (isInsideEar(p, a, b, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                p = prevZ[p];
+            }
+
+            // look for remaining points in increasing z-order
+            while (n >= 0 && z[n] <= maxZ) {
+                if (isInsideEar(n, a, b, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                n = nextZ[n];
+            }
+
+            return true;
+        }
+
+        private boolean isInsideEar(int p, int a, int b, int c,
+                double x0, double y0, double x1, double y1) {
+            return x[p] >= x0 && x[p] <= x1 && y[p] >= y0 && y[p] <= y1
+                    && p != a && p != c
+                    && pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+                    && area(prev[p], p, next[p]) >= 0;
+        }
+
+        /**
+         * Goes through all polygon nodes and cures small local
+         * self-intersections.
+         */
+        private int cureLocalIntersections(int start) {
+            int p = start;
+
+            do {
+                int a = prev[p];
+                int b = next[next[p]];
+
+                if (!equals(a, b) && intersects(a, p, next[p], b)
+                        && locallyInside(a, b) && locallyInside(b, a)) {
+
+                    addTriangle(a, p, b);
+
+                    // remove two nodes involved
+                    removeNode(p);
+                    removeNode(next[p]);
+
+                    p = start = b;
+                }
+                p = next[p];
+            } while (p != start);
+
+            return filterPoints(p, -1);
+        }
+
+        /**
+         * Tries to split the polygon into two and triangulates them
+         * independently.
+         */
+        private void splitEarcut(int start) {
+            // look for a valid diagonal that divides the polygon into two
+            int a = start;
+
+            do {
+                int b = next[next[a]];
+
+                while (b != prev[a]) {
+                    if (vertex[a] != vertex[b] && isValidDiagonal(a, b)) {
+                        // split the polygon in two by the diagonal
+                        int c = splitPolygon(a, b);
+
+                        // filter colinear points around the cuts
+                        a = filterPoints(a, next[a]);
+                        c = filterPoints(c, next[c]);
+
+                        // run earcut on each half
+                        earcutLinked(a, 0);
+                        earcutLinked(c, 0);
+                        return;
+                    }
+                    b = next[b];
+                }
+                a = next[a];
+            } while (a != start);
+        }
+
+        /**
+         * Links every hole into the outer loop, producing a single-ring
+         * polygon without holes.
+         */
+        private int eliminateHoles(int outerNode) {
+            int numVertices = coords.length / 2;
+            int[] queue = new int[holeIndices.length];
+            int queueSize = 0;
+
+            for (int i = 0; i < holeIndices.length; i++) {
+                int start = holeIndices[i];
+                int end = i < holeIndices.length - 1
+                        ? holeIndices[i + 1] : numVertices;
+
+                int list = linkedList(start, end, false);
+
+                if (list < 0) {
+                    continue;
+                }
+
+                if (list == next[list]) {
+                    steiner[list] = true;
+                }
+
+                queue[queueSize++] = getLeftmost(list);
+            }
+
+            // process holes from left to right
+            Integer[] sorted = new Integer[queueSize];
+            for (int i = 0; i < queueSize; i++) {
+                sorted[i] = queue[i];
+            }
+            Arrays.sort(sorted, (a, b) -> Double.compare(x[a], x[b]));
+
+            for (int i = 0; i < queueSize; i++) {
+                outerNode = eliminateHole(sorted[i], outerNode);
+            }
+
+            return outerNode;
+        }
+
+        /**
+         * Finds a bridge between vertices that connects the hole with the
+         * outer ring and links it.
+         */
+        private int eliminateHole(int hole, int outerNode) {
+            int bridge = findHoleBridge(hole, outerNode);
+
+            if (bridge < 0) {
+                return outerNode;
+            }
+
+            int bridgeReverse = splitPolygon(bridge, hole);
+
+            // filter collinear points around the cuts
+            filterPoints(bridgeReverse, next[bridgeReverse]);
+
+            return filterPoints(bridge, next[bridge]);
+        }
+
+        /**
+         * David Eberly's algorithm for finding a bridge between hole and
+         * outer polygon.
+         */
+        private int findHoleBridge(int hole, int outerNode) {
+            int p = outerNode;
+            double hx = x[hole];
+            double hy = y[hole];
+            double qx = Double.NEGATIVE_INFINITY;
+            int m = -1;
+
+            // find a segment intersected by a ray from the hole's leftmost
+            // point to the left; segment's endpoint with lesser x will be
+            // potential connection point
+            do {
+                int pn = next[p];
+                if (hy <= y[p] && hy >= y[pn] && y[pn] != y[p]) {
+                    double qxCandidate = x[p]
+                            + (hy - y[p]) * (x[pn] - x[p]) / (y[pn] - y[p]);
+                    if (qxCandidate <= hx && qxCandidate > qx) {
+                        qx = qxCandidate;
+                        m = x[p] < x[pn] ? p : pn;
+                        if (qxCandidate == hx) {
+                            // hole touches outer segment; pick leftmost endpoint
+                            return m;
+                        }
+                    }
+                }
+                p = pn;
+            } while (p != outerNode);
+
+            if (m < 0) {
+                return -1;
+            }
+
+            // look for points inside the triangle of hole point, segment
+            // intersection and endpoint; if there are no points found, we
+            // have a valid connection; otherwise choose the point of the
+            // minimum angle with the ray as connection point
+            int stop = m;
+            double mx = x[m];
+            double my = y[m];
+            double tanMin = Double.POSITIVE_INFINITY;
+
+            p = m;
+
+            do {
+                if (hx >= x[p] && x[p] >= mx && hx != x[p]
+                        && pointInTriangle(hy < my ? hx : qx, hy, mx, my,
+                                hy < my ? qx : hx, hy, x[p], y[p])) {
+
+                    double tan = Math.abs(hy - y[p]) / (hx - x[p]);
+
+                    if (locallyInside(p, hole) && (tan < tanMin
+                            || (tan == tanMin && (x[p] > x[m]
+                            || (x[p] == x[m] && sectorContainsSector(m, p)))))) {
+                        m = p;
+                        tanMin = tan;
+                    }
+                }
+
+                p = next[p];
+            } while (p != stop);
+
+            return m;
+        }
+
+        /**
+         * Whether sector in vertex m contains sector in vertex p in the same
+         * coordinates.
+         */
+        private boolean sectorContainsSector(int m, int p) {
+            return area(prev[m], m, prev[p]) < 0 && area(next[p], m, next[m]) < 0;
+        }
+
+        /**
+         * Interlinks polygon nodes in z-order.
+         */
+        private void indexCurve(int start) {
+            int p = start;
+
+            do {
+                if (z[p] == 0) {
+                    z[p] = zOrder(x[p], y[p]);
+                }
+                prevZ[p] = prev[p];
+                nextZ[p] = next[p];
+                p = next[p];
+            } while (p != start);
+
+            nextZ[prevZ[p]] = -1;
+            prevZ[p] = -1;
+
+            sortLinked(p);
+        }
+
+        /**
+         * Simon Tatham's linked list merge sort algorithm.
+         */
+        private int sortLinked(int list) {
+            int inSize = 1;
+            int numMerges;
+
+            do {
+                int p = list;
+                list = -1;
+                int tail = -1;
+                numMerges = 0;
+
+                while (p >= 0) {
+                    numMerges++;
+                    int q = p;
+                    int pSize = 0;
+                    for (int i = 0; i < inSize; i++) {
+                        pSize++;
+                        q = nextZ[q];
+                        if (q < 0) {
+                            break;
+                        }
+                    }
+
+                    int qSize = inSize;
+
+                    while (pSize > 0 || (qSize > 0 && q >= 0)) {
+                        int e;
+                        if (pSize != 0 && (qSize == 0 || q < 0 || z[p] <= z[q])) {
+                            e = p;
+                            p = nextZ[p];
+                            pSize--;
+                        } else {
+                            e = q;
+                            q = nextZ[q];
+                            qSize--;
+                        }
+
+                        if (tail >= 0) {
+                            nextZ[tail] = e;
+                        } else {
+                            list = e;
+                        }
+
+                        prevZ[e] = tail;
+                        tail = e;
+                    }
+
+                    p = q;
+                }
+
+                nextZ[tail] = -1;
+                inSize *= 2;
+
+            } while (numMerges > 1);
+
+            return list;
+        }
+
+        /**
+         * Computes the z-order of a point given coords and inverse of the
+         * longer side of the data bbox.
+         */
+        private int zOrder(double px, double py) {
+            // coords are transformed into non-negative 15-bit integer range
+            int ix = (int) ((px - minX) * invSize);
+            int iy = (int) ((py - minY) * invSize);
+
+            ix = (ix | (ix << 8)) & 0x00FF00FF;
+            ix = (ix | (ix << 4)) & 0x0F0F0F0F;
+            ix = (ix | (ix << 2)) & 0x33333333;
+            ix = (ix | (ix << 1)) & 0x55555555;
+
+            iy = (iy | (iy << 8)) & 0x00FF00FF;
+            iy = (iy | (iy << 4)) & 0x0F0F0F0F;
+            iy = (iy | (iy << 2)) & 0x33333333;
+            iy = (iy | (iy << 1)) & 0x55555555;
+
+            return ix | (iy << 1);
+        }
+
+        /**
+         * Finds the leftmost node of a polygon ring.
+         */
+        private int getLeftmost(int start) {
+            int p = start;
+            int leftmost = start;
+
+            do {
+                if (x[p] < x[leftmost] || (x[p] == x[leftmost] && y[p] < y[leftmost])) {
+                    leftmost = p;
+                }
+                p = next[p];
+            } while (p != start);
+
+            return leftmost;
+        }
+
+        /**
+         * Checks whether a point lies within a convex triangle.
+         */
+        private static boolean pointInTriangle(double ax, double ay,
+                double bx, double by, double cx, double cy,
+                double px, double py) {
+            return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+                    && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                    && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+        }
+
+        /**
+         * Checks whether a diagonal between two polygon nodes is valid (lies
+         * in polygon interior).
+         */
+        private boolean isValidDiagonal(int a, int b) {
+            return vertex[next[a]] != vertex[b] && vertex[prev[a]] != vertex[b]
+                    && !intersectsPolygon(a, b)
+                    // locally visible
+                    && (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                    // does not create opposite-facing sectors
+                    && (area(prev[a], a, prev[b]) != 0 || area(a, prev[b], b) != 0)
+                    // special zero-length case
+                    || equals(a, b) && area(prev[a], a, next[a]) > 0
+                    && area(prev[b], b, next[b]) > 0);
+        }
+
+        /**
+         * Signed area of a triangle.
+         */
+        private double area(int p, int q, int r) {
+            return (y[q] - y[p]) * (x[r] - x[q]) - (x[q] - x[p]) * (y[r] - y[q]);
+        }
+
+        private boolean equals(int p1, int p2) {
+            return x[p1] == x[p2] && y[p1] == y[p2];
+        }
+
+        /**
+         * Checks whether two segments intersect.
+         */
+        private boolean intersects(int p1, int q1, int p2, int q2) {
+            int o1 = sign(area(p1, q1, p2));
+            int o2 = sign(area(p1, q1, q2));
+            int o3 = sign(area(p2, q2, p1));
+            int o4 = sign(area(p2, q2, q1));
+
+            if (o1 != o2 && o3 != o4) {
+                return true; // general case
+            }
+
+            return o1 == 0 && onSegment(p1, p2, q1)
+                    || o2 == 0 && onSegment(p1, q2, q1)
+                    || o3 == 0 && onSegment(p2, p1, q2)
+                    || o4 == 0 && onSegment(p2, q1, q2);
+        }
+
+        /**
+         * For collinear points p, q, r, checks if point q lies on segment pr.
+         */
+        private boolean onSegment(int p, int q, int r) {
+            return x[q] <= Math.max(x[p], x[r]) && x[q] >= Math.min(x[p], x[r])
+                    && y[q] <= Math.max(y[p], y[r]) && y[q] >= Math.min(y[p], y[r]);
+        }
+
+        private static int sign(double num) {
+            return num > 0 ? 1 : num < 0 ? -1 : 0;
+        }
+
+        /**
+         * Checks whether a polygon diagonal intersects any polygon segments.
+         */
+        private boolean intersectsPolygon(int a, int b) {
+            int p = a;
+
+            do {
+                int pn = next[p];
+                if (vertex[p] != vertex[a] && vertex[pn] != vertex[a]
+                        && vertex[p] != vertex[b] && vertex[pn] != vertex[b]
+                        && intersects(p, pn, a, b)) {
+                    return true;
+                }
+                p = pn;
+            } while (p != a);
+
+            return false;
+        }
+
+        /**
+         * Checks whether a polygon diagonal is locally inside the polygon.
+         */
+        private boolean locallyInside(int a, int b) {
+            return area(prev[a], a, next[a]) < 0
+                    ? area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0
+                    : area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
+        }
+
+        /**
+         * Checks whether the middle point of a polygon diagonal is inside the
+         * polygon.
+         */
+        private boolean middleInside(int a, int b) {
+            int p = a;
+            boolean inside = false;
+            double px = (x[a] + x[b]) / 2;
+            double py = (y[a] + y[b]) / 2;
+
+            do {
+                int pn = next[p];
+                if (((y[p] > py) != (y[pn] > py)) && y[pn] != y[p]
+                        && (px < (x[pn] - x[p]) * (py - y[p]) / (y[pn] - y[p]) + x[p])) {
+                    inside = !inside;
+                }
+                p = pn;
+            } while (p != a);
+
+            return inside;
+        }
+
+        /**
+         * Links two polygon vertices with a bridge; if the vertices belong to
+         * the same ring, it splits polygon into two; if one belongs to the
+         * outer ring and another to a hole, it merges it into a single ring.
+         */
+        private int splitPolygon(int a, int b) {
+            int a2 = newNode(vertex[a], x[a], y[a]);
+            int b2 = newNode(vertex[b], x[b], y[b]);
+            int an = next[a];
+            int bp = prev[b];
+
+            next[a] = b;
+            prev[b] = a;
+
+            next[a2] = an;
+            prev[an] = a2;
+
+            next[b2] = a2;
+            prev[a2] = b2;
+
+            next[bp] = b2;
+            prev[b2] = bp;
+
+            return b2;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import eu.mihosoft.jcsg.Vertex;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sweeps circular profiles (pipes, wires) along paths. This is a fast path
+ * for {@link ExtrudeProfile} with circular profiles: ring vertices are
+ * computed directly from the frame vectors and a shared unit circle table,
+ * i.e., no profile polygons, planes or transforms are created. Side vertices
+ * carry analytic (radial) normals for smooth shading, cap vertices carry the
+ * path tangent.
+ *
+ * Frames are rotation minimizing (double reflection method), i.e., the tube
+ * does not twist along the path.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class Tube {
+
+    private Tube() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Sweeps a circle with the specified radius along the given path. Ring
+     * tangents are the bisectors of adjacent path segments.
+     *
+     * @param radius tube radius ({@code > 0})
+     * @param segments number of ring segments ({@code >= 3})
+     * @param path path (at least two distinct points)
+     * @return CSG object (tube, closed with caps)
+     */
+    public static CSG alongPath(double radius, int segments, Vector3d... path) {
+        return alongPath(radius, segments, Arrays.asList(path));
+    }
+
+    /**
+     * Sweeps a circle with the specified radius along the given path. Ring
+     * tangents are the bisectors of adjacent path segments.
+     *
+     * @param radius tube radius ({@code > 0})
+     * @param segments number of ring segments ({@code >= 3})
+     * @param path path (at least two distinct points)
+     * @return CSG object (tube, closed with caps)
+     */
+    public static CSG alongPath(double radius, int segments, List<Vector3d> path) {
+
+        checkArguments(radius, segments);
+
+        // remove coincident points
+        List<Vector3d> points = new ArrayList<>(path.size());
+        double epsilonSq = radius * radius * 1e-18;
+        for (Vector3d p : path) {
+            if (points.isEmpty()
+                    || points.get(points.size() - 1).minus(p).magnitudeSq() > epsilonSq) {
+                points.add(p);
+            }
+        }
+
+        int n = points.size();
+
+        if (n < 2) {
+            throw new IllegalArgumentException(
+                    "Illegal path specified: at least two distinct points required!");
+        }
+
+        Vector3d[] positions = points.toArray(new Vector3d[n]);
+        Vector3d[] tangents = new Vector3d[n];
+
+        Vector3d prevDir = positions[1].minus(positions[0]).normalized();
+        tangents[0] = prevDir;
+        for (int i = 1; i < n - 1; i++) {
+            Vector3d dir = positions[i + 1].minus(positions[i]).normalized();
+            Vector3d bisector = prevDir.plus(dir);
+            // reversal: fall back to the incoming direction
+            tangents[i] = bisector.magnitudeSq() > 1e-24
+                    ? bisector.normalized() : prevDir;
+            prevDir = dir;
+        }
+        tangents[n - 1] = prevDir;
+
+        return sweep(radius, segments, positions, tangents);
+    }
+
+    /**
+     * Sweeps a circle with the specified radius along the given parametric
+     * path. The path is sampled adaptively by curvature (see
+     * {@link ParametricPaths#sample(eu.mihosoft.jcsg.ext.path.ParametricPath, double)}),
+     * ring tangents are the analytic path tangents (chord directions where the
+     * path has zero speed).
+     *
+     * @param radius tube radius ({@code > 0})
+     * @param segments number of ring segments ({@code >= 3})
+     * @param path path
+     * @param maxError maximum distance between path and sampled path ({@code > 0})
+     * @return CSG object (tube, closed with caps)
+     */
+    public static CSG alongPath(double radius, int segments,
+            ParametricPath path, double maxError) {
+
+        checkArguments(radius, segments);
+
+        double[] ts = ParametricPaths.sampleParameters(path, maxError);
+
+        Vector3d[] positions = new Vector3d[ts.length];
+        for (int i = 0; i < ts.length; i++) {
+            positions[i] = path.position(ts[i]);
+        }
+        Vector3d[] tangents = Frames.tangents(path, ts, positions);
+
+        return sweep(radius, segments, positions, tangents);
+    }
+
+    private static void checkArguments(double radius, int segments) {
+        if (!(radius > 0)) {
+            throw new IllegalArgumentException(
+                    "Illegal radius specified: radius must be > 0!");
+        }
+
+        if (segments < 3) {
+            throw new IllegalArgumentException(
+                    "Illegal segments specified: segments must be >= 3!");
+        }
+    }
+
+    private static CSG sweep(double radius, int segments,
+            Vector3d[] positions, Vector3d[] tangents) {
+
+        Metrics.Timer sweepTimer = Metrics.start(PathMetrics.Stage.SWEEP);
+
+        // unit circle table (shared by all rings)
+        double[] cos = new double[segments];
+        double[] sin = new double[segments];
+        for (int k = 0; k < segments; k++) {
+            double angle = 2 * Math.PI * k / segments;
+            cos[k] = Math.cos(angle);
+            sin[k] = Math.sin(angle);
+        }
+
+        int n = positions.length;
+
+        List<Polygon> polygons = new ArrayList<>(
+                (n - 1) * segments * 2 + 2);
+
+        // initial frame: r is perpendicular to the tangent, s = t x r
+        Vector3d tangent = tangents[0];
+        Vector3d r = perpendicular(tangent);
+
+        Vector3d[] normals = ringNormals(tangent, r, cos, sin);
+        Vector3d[] ring = ring(positions[0], radius, normals);
+
+        polygons.add(cap(ring, tangent.negated(), true));
+
+        for (int i = 1; i < n; i++) {
+            Vector3d nextTangent = tangents[i];
+
+            r = Frames.transport(positions[i - 1], tangent, r,
+                    positions[i], nextTangent);
+            tangent = nextTangent;
+
+            Vector3d[] nextNormals = ringNormals(tangent, r, cos, sin);
+            Vector3d[] nextRing = ring(positions[i], radius, nextNormals);
+
+            for (int k = 0; k < segments; k++) {
+                int l = (k + 1) % segments;
+                polygons.add(triangle(
+                        ring[k], normals[k],
+                        ring[l], normals[l],
+                        nextRing[l], nextNormals[l]));
+                polygons.add(triangle(
+                        ring[k], normals[k],
+                        nextRing[l], nextNormals[l],
+                        nextRing[k], nextNormals[k]));
+            }
+
+            ring = nextRing;
+            normals = nextNormals;
+        }
+
+        polygons.add(cap(ring, tangent, false));
+
+        sweepTimer.stop(polygons.size());
+
+        Metrics.Timer assemblyTimer = Metrics.start(PathMetrics.Stage.CSG_ASSEMBLY);
+
+        CSG tubeCSG = CSG.fromPolygons(polygons);
+
+        assemblyTimer.stop(polygons.size());
+
+        return tubeCSG;
+    }
+
+    /**
+     * Returns a unit vector perpendicular to the specified unit vector.
+     */
+    private static Vector3d perpendicular(Vector3d v) {
+        Vector3d axis = Math.abs(v.x()) < 0.9 ? Vector3d.X_ONE : Vector3d.Y_ONE;
+        return axis.minus(v.times(v.dot(axis))).normalized();
+    }
+
+    /**
+     * Computes the (radial) ring normals, counter-clockwise about the
+     * tangent.
+     */
+    private static Vector3d[] ringNormals(Vector3d tangent, Vector3d r,
+            double[] cos, double[] sin) {
+        Vector3d s = tangent.crossed(r);
+        Vector3d[] normals = new Vector3d[cos.length];
+        for (int k = 0; k < cos.length; k++) {
+            normals[k] = Vector3d.xyz(
+                    r.x() * cos[k] + s.x() * sin[k],
+                    r.y() * cos[k] + s.y() * sin[k],
+                    r.z() * cos[k] + s.z() * sin[k]);
+        }
+        return normals;
+    }
+
+    private static Vector3d[] ring(Vector3d center, double radius,
+            Vector3d[] normals) {
+        Vector3d[] ring = new Vector3d[normals.length];
+        for (int k = 0; k < normals.length; k++) {
+            ring[k] = Vector3d.xyz(
+                    center.x() + normals[k].x() * radius,
+                    center.y() + normals[k].y() * radius,
+                    center.z() + normals[k].z() * radius);
+        }
+        return ring;
+    }
+
+    private static Polygon triangle(Vector3d a, Vector3d na,
+            Vector3d b, Vector3d nb, Vector3d c, Vector3d nc) {
+        List<Vertex> vertices = new ArrayList<>(3);
+        vertices.add(new Vertex(a, na));
+        vertices.add(new Vertex(b, nb));
+        vertices.add(new Vertex(c, nc));
+        return new Polygon(vertices);
+    }
+
+    /**
+     * Creates a (convex) cap polygon. Rings are counter-clockwise about the
+     * tangent, i.e., the start cap is reversed.
+     */
+    private static Polygon cap(Vector3d[] ring, Vector3d normal, boolean reverse) {
+        List<Vertex> vertices = new ArrayList<>(ring.length);
+        for (int k = 0; k < ring.length; k++) {
+            vertices.add(new Vertex(
+                    ring[reverse ? ring.length - 1 - k : k], normal));
+        }
+        return new Polygon(vertices);
+    }
+}
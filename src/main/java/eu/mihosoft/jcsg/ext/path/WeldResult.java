@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.Polygon;
+import java.util.List;
+
+/**
+ * Result of a vertex welding pass (see {@link MeshWelder}).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class WeldResult {
+
+    private final List<Polygon> polygons;
+    private final int inputVertexCount;
+    private final int vertexCount;
+    private final int removedPolygonCount;
+
+    WeldResult(List<Polygon> polygons, int inputVertexCount,
+            int vertexCount, int removedPolygonCount) {
+        this.polygons = polygons;
+        this.inputVertexCount = inputVertexCount;
+        this.vertexCount = vertexCount;
+        this.removedPolygonCount = removedPolygonCount;
+    }
+
+    /**
+     * Returns the welded polygons.
+     *
+     * @return welded polygons (degenerate polygons removed)
+     */
+    public List<Polygon> getPolygons() {
+        return polygons;
+    }
+
+    /**
+     * Returns the welded polygons as CSG object.
+     *
+     * @return CSG object
+     */
+    public CSG toCSG() {
+        return CSG.fromPolygons(polygons);
+    }
+
+    /**
+     * Returns the number of polygon vertices of the input mesh.
+     *
+     * @return number of input vertices
+     */
+    public int getInputVertexCount() {
+        return inputVertexCount;
+    }
+
+    /**
+     * Returns the number of unique vertex positions after welding.
+     *
+     * @return number of unique vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the number of vertices that have been merged into other
+     * vertices.
+     *
+     * @return number of welded vertices
+     */
+    public int getWeldedVertexCount() {
+        return inputVertexCount - vertexCount;
+    }
+
+    /**
+     * Returns the number of degenerate polygons that have been removed.
+     *
+     * @return number of removed polygons
+     */
+    public int getRemovedPolygonCount() {
+        return removedPolygonCount;
+    }
+
+    @Override
+    public String toString() {
+        return "[vertices: " + inputVertexCount + " -> " + vertexCount
+                + ", removed polygons: " + removedPolygonCount + "]";
+    }
+}
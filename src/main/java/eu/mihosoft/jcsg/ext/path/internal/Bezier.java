@@ -20,17 +20,17 @@ package eu.mihosoft.jcsg.ext.path.internal;
  */
 public class Bezier
 {
-    float length;
-    float[] coord;
+    double length;
+    double[] coord;
 
-    public Bezier(float sx, float sy, float[] coords, int numCoords)
+    public Bezier(double sx, double sy, double[] coords, int numCoords)
     {
         setCoords(sx, sy, coords, numCoords);
     }
     
-    public void setCoords(float sx, float sy, float[] coords, int numCoords)
+    public void setCoords(double sx, double sy, double[] coords, int numCoords)
     {
-        coord = new float[numCoords * 2 + 2];
+        coord = new double[numCoords * 2 + 2];
         coord[0] = sx;
         coord[1] = sy;
         for (int i = 0; i < numCoords; i++)
@@ -45,7 +45,7 @@ public class Bezier
     /**
      * Retuns aproximation of the length of the bezier
      */
-    public float getLength()
+    public double getLength()
     {
         return length;
     }
@@ -59,10 +59,10 @@ public class Bezier
         }
     }
     
-    private float lineLength(float x1, float y1, float x2, float y2)
+    private double lineLength(double x1, double y1, double x2, double y2)
     {
-        float dx = x2 - x1, dy = y2 - y1;
-        return (float) Math.sqrt(dx * dx + dy * dy);
+        double dx = x2 - x1, dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
     }
     
     public SVGVector getFinalPoint(SVGVector point)
@@ -173,7 +173,7 @@ public class Bezier
         int prod = 1;
         for (int i = num; i > denom; i--)
         {
-            prod *= num;
+            prod *= i;
         }
         
         for (int i = 2; i <= denom2; i++)
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+/**
+ * Batch evaluator for Bezier segments (degree 1 to 3). Segments are converted
+ * to power basis once, i.e., {@code p(t) = a0 + a1 t + a2 t^2 + a3 t^3}.
+ * Samples are evaluated with Horner's rule in a branch-free loop without
+ * dependencies between iterations (which allows the JIT to unroll and
+ * vectorize the loop).
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class BezierEvaluator {
+
+    /**
+     * Number of power basis coefficients per segment
+     * ({@code ax0, ax1, ax2, ax3, ay0, ay1, ay2, ay3}).
+     */
+    public static final int NUM_COEFFICIENTS = 8;
+
+    private BezierEvaluator() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Converts the specified segment to power basis.
+     *
+     * @param coords control point coordinates ({@code x0, y0, x1, y1, ...})
+     * @param off offset of the first control point
+     * @param degree segment degree (1 = line, 2 = quadratic, 3 = cubic)
+     * @param coefficients output array
+     * ({@code ax0, ax1, ax2, ax3, ay0, ay1, ay2, ay3})
+     * @param coeffOff offset in the output array
+     */
+    public static void toPowerBasis(double[] coords, int off, int degree,
+            double[] coefficients, int coeffOff) {
+        for (int d = 0; d < 2; d++) {
+            int o = coeffOff + d * 4;
+            double p0 = coords[off + d];
+            double p1 = coords[off + 2 + d];
+
+            switch (degree) {
+                case 1:
+                    coefficients[o] = p0;
+                    coefficients[o + 1] = p1 - p0;
+                    coefficients[o + 2] = 0;
+                    coefficients[o + 3] = 0;
+                    break;
+                case 2: {
+                    double p2 = coords[off + 4 + d];
+                    coefficients[o] = p0;
+                    coefficients[o + 1] = 2 * (p1 - p0);
+                    coefficients[o + 2] = p0 - 2 * p1 + p2;
+                    coefficients[o + 3] = 0;
+                    break;
+                }
+                case 3: {
+                    double p2 = coords[off + 4 + d];
+                    double p3 = coords[off + 6 + d];
+                    coefficients[o] = p0;
+                    coefficients[o + 1] = 3 * (p1 - p0);
+                    coefficients[o + 2] = 3 * (p2 - 2 * p1 + p0);
+                    coefficients[o + 3] = p3 - 3 * p2 + 3 * p1 - p0;
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException(
+                            "Unsupported degree: " + degree);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the specified segment (power basis) at {@code n} equidistant
+     * parameters {@code t0 + k * dt}.
+     *
+     * @param coefficients power basis coefficients
+     * @param coeffOff offset of the segment coefficients
+     * @param t0 first curve parameter
+     * @param dt parameter step
+     * @param n number of samples
+     * @param out output array ({@code x0, y0, x1, y1, ...})
+     * @param outOff offset in the output array
+     */
+    public static void evalUniform(double[] coefficients, int coeffOff,
+            double t0, double dt, int n, double[] out, int outOff) {
+
+        double ax0 = coefficients[coeffOff];
+        double ax1 = coefficients[coeffOff + 1];
+        double ax2 = coefficients[coeffOff + 2];
+        double ax3 = coefficients[coeffOff + 3];
+        double ay0 = coefficients[coeffOff + 4];
+        double ay1 = coefficients[coeffOff + 5];
+        double ay2 = coefficients[coeffOff + 6];
+        double ay3 = coefficients[coeffOff + 7];
+
+        for (int k = 0; k < n; k++) {
+            double t = t0 + k * dt;
+            out[outOff + k * 2] = ((ax3 * t + ax2) * t + ax1) * t + ax0;
+            out[outOff + k * 2 + 1] = ((ay3 * t + ay2) * t + ay1) * t + ay0;
+        }
+    }
+
+    /**
+     * Evaluates the specified segment (power basis) at the specified
+     * parameter.
+     *
+     * @param coefficients power basis coefficients
+     * @param coeffOff offset of the segment coefficients
+     * @param t curve parameter
+     * @param out output array
+     * @param outOff offset in the output array
+     */
+    public static void eval(double[] coefficients, int coeffOff, double t,
+            double[] out, int outOff) {
+        evalUniform(coefficients, coeffOff, t, 0, 1, out, outOff);
+    }
+
+    /**
+     * Evaluates the specified segment (Bernstein basis, i.e., control points)
+     * at the specified parameter.
+     *
+     * @param coords control point coordinates ({@code x0, y0, x1, y1, ...})
+     * @param off offset of the first control point
+     * @param degree segment degree (1 = line, 2 = quadratic, 3 = cubic)
+     * @param t curve parameter ({@code [0,1]})
+     * @param out output array
+     * @param outOff offset in the output array
+     */
+    public static void evalBezier(double[] coords, int off, int degree,
+            double t, double[] out, int outOff) {
+        double it = 1 - t;
+        double x, y;
+
+        switch (degree) {
+            case 1:
+                x = it * coords[off] + t * coords[off + 2];
+                y = it * coords[off + 1] + t * coords[off + 3];
+                break;
+            case 2: {
+                double b0 = it * it, b1 = 2 * it * t, b2 = t * t;
+                x = b0 * coords[off] + b1 * coords[off + 2] + b2 * coords[off + 4];
+                y = b0 * coords[off + 1] + b1 * coords[off + 3] + b2 * coords[off + 5];
+                break;
+            }
+            default: {
+                double b0 = it * it * it, b1 = 3 * it * it * t,
+                        b2 = 3 * it * t * t, b3 = t * t * t;
+                x = b0 * coords[off] + b1 * coords[off + 2]
+                        + b2 * coords[off + 4] + b3 * coords[off + 6];
+                y = b0 * coords[off + 1] + b1 * coords[off + 3]
+                        + b2 * coords[off + 5] + b3 * coords[off + 7];
+                break;
+            }
+        }
+
+        out[outOff] = x;
+        out[outOff + 1] = y;
+    }
+
+    /**
+     * Computes the roots of the derivative of one coordinate of the
+     * specified segment (power basis) inside of {@code (0,1)}, i.e., the
+     * parameters of the local extrema of the coordinate. Roots are sorted in
+     * ascending order.
+     *
+     * @param coefficients power basis coefficients
+     * @param coeffOff offset of the coordinate coefficients ({@code 0} for
+     * x, {@code 4} for y, relative to the segment coefficients)
+     * @param roots output array (at least two elements)
+     * @param rootsOff offset in the output array
+     * @return number of roots ({@code 0 - 2})
+     */
+    public static int derivativeRoots(double[] coefficients, int coeffOff,
+            double[] roots, int rootsOff) {
+
+        // p'(t) = a t^2 + b t + c
+        double a = 3 * coefficients[coeffOff + 3];
+        double b = 2 * coefficients[coeffOff + 2];
+        double c = coefficients[coeffOff + 1];
+
+        double scale = Math.max(Math.abs(a), Math.max(Math.abs(b), Math.abs(c)));
+
+        if (scale == 0) {
+            return 0;
+        }
+
+        int n = 0;
+
+        if (Math.abs(a) <= 1e-12 * scale) {
+            // linear
+            if (b != 0) {
+                n = addRoot(-c / b, roots, rootsOff, n);
+            }
+            return n;
+        }
+
+        double disc = b * b - 4 * a * c;
+
+        if (disc < 0) {
+            return 0;
+        }
+
+        // numerically stable quadratic formula
+        double q = -0.5 * (b + Math.copySign(Math.sqrt(disc), b));
+        double r1 = q / a;
+        double r2 = q != 0 ? c / q : r1;
+
+        n = addRoot(Math.min(r1, r2), roots, rootsOff, n);
+        if (r1 != r2) {
+            n = addRoot(Math.max(r1, r2), roots, rootsOff, n);
+        }
+
+        return n;
+    }
+
+    private static int addRoot(double t, double[] roots, int rootsOff, int n) {
+        if (t > 0 && t < 1) {
+            roots[rootsOff + n] = t;
+            return n + 1;
+        }
+        return n;
+    }
+}
@@ -25,21 +25,21 @@ public class BezierHistory
     {
     }
     
-    public void setStartPoint(float x, float y)
+    public void setStartPoint(double x, double y)
     {
         startPoint.x = x;
         startPoint.y = y;
     }
     
-    public void setLastPoint(float x, float y)
+    public void setLastPoint(double x, double y)
     {
         lastPoint.x = x;
         lastPoint.y = y;
     }
     
-    public void setLastKnot(float x, float y)
+    public void setLastKnot(double x, double y)
     {
         lastKnot.x = x;
-        lastKnot.x = y;
+        lastKnot.y = y;
     }
 }
\ No newline at end of file
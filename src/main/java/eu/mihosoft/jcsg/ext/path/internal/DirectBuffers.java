@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the memory of direct and memory-mapped byte buffers without
+ * waiting for garbage collection. Uses {@code sun.misc.Unsafe.invokeCleaner()}
+ * (Java 9 or newer) or the buffer cleaner (Java 8). If neither is available,
+ * the memory is released by the garbage collector.
+ *
+ * Released buffers (and all views of them) must not be accessed afterwards.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class DirectBuffers {
+
+    private static final MethodHandle RELEASE = releaseHandle();
+
+    private DirectBuffers() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Releases the memory of the specified buffer.
+     *
+     * @param buffer direct or memory-mapped buffer (no slice or duplicate)
+     * @return {@code true} if the memory has been released, {@code false} if
+     * it is released by the garbage collector
+     */
+    public static boolean release(ByteBuffer buffer) {
+        if (RELEASE == null || !buffer.isDirect()) {
+            return false;
+        }
+
+        try {
+            RELEASE.invokeExact(buffer);
+            return true;
+        } catch (RuntimeException ex) {
+            return false;
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static MethodHandle releaseHandle() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        // java 9 or newer
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return lookup.findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // not available, try java 8 api
+        }
+
+        // java 8: ((sun.nio.ch.DirectBuffer) buffer).cleaner().clean()
+        try {
+            Class<?> directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+            Class<?> cleaner = Class.forName("sun.misc.Cleaner");
+            MethodHandle getCleaner = lookup.findVirtual(directBuffer,
+                    "cleaner", MethodType.methodType(cleaner));
+            MethodHandle clean = lookup.findVirtual(cleaner,
+                    "clean", MethodType.methodType(void.class));
+            return MethodHandles.filterReturnValue(getCleaner, clean)
+                    .asType(MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // not available, memory is released by the garbage collector
+        }
+
+        return null;
+    }
+}
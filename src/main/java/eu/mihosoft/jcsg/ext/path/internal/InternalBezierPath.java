@@ -23,8 +23,9 @@ import java.util.regex.Pattern;
 @Deprecated
 public class InternalBezierPath {
 
-    private static final Matcher MATCH_POINT_PATTERN = 
-            Pattern.compile("\\s*(\\d+)[^\\d]+(\\d+)\\s*").matcher("");
+    // patterns are immutable and thread-safe (matchers are not)
+    private static final Pattern MATCH_POINT_PATTERN =
+            Pattern.compile("\\s*(\\d+)[^\\d]+(\\d+)\\s*");
 
     private BezierListProducer path;
 
@@ -63,65 +64,65 @@ public class InternalBezierPath {
 
             switch (curCmd) {
                 case 'M':
-                    path.movetoAbs(nextFloat(tokens), nextFloat(tokens));
+                    path.movetoAbs(nextDouble(tokens), nextDouble(tokens));
                     curCmd = 'L';
                     break;
                 case 'm':
-                    path.movetoRel(nextFloat(tokens), nextFloat(tokens));
+                    path.movetoRel(nextDouble(tokens), nextDouble(tokens));
                     curCmd = 'l';
                     break;
                 case 'L':
-                    path.linetoAbs(nextFloat(tokens), nextFloat(tokens));
+                    path.linetoAbs(nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'l':
-                    path.linetoRel(nextFloat(tokens), nextFloat(tokens));
+                    path.linetoRel(nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'H':
-                    path.linetoHorizontalAbs(nextFloat(tokens));
+                    path.linetoHorizontalAbs(nextDouble(tokens));
                     break;
                 case 'h':
-                    path.linetoHorizontalRel(nextFloat(tokens));
+                    path.linetoHorizontalRel(nextDouble(tokens));
                     break;
                 case 'V':
-                    path.linetoVerticalAbs(nextFloat(tokens));
+                    path.linetoVerticalAbs(nextDouble(tokens));
                     break;
                 case 'v':
-                    path.linetoVerticalAbs(nextFloat(tokens));
+                    path.linetoVerticalAbs(nextDouble(tokens));
                     break;
                 case 'A':
                 case 'a':
                     break;
                 case 'Q':
-                    path.curvetoQuadraticAbs(nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoQuadraticAbs(nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'q':
-                    path.curvetoQuadraticAbs(nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoQuadraticAbs(nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'T':
-                    path.curvetoQuadraticSmoothAbs(nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoQuadraticSmoothAbs(nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 't':
-                    path.curvetoQuadraticSmoothRel(nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoQuadraticSmoothRel(nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'C':
-                    path.curvetoCubicAbs(nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoCubicAbs(nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'c':
-                    path.curvetoCubicRel(nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoCubicRel(nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'S':
-                    path.curvetoCubicSmoothAbs(nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoCubicSmoothAbs(nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 's':
-                    path.curvetoCubicSmoothRel(nextFloat(tokens), nextFloat(tokens),
-                            nextFloat(tokens), nextFloat(tokens));
+                    path.curvetoCubicSmoothRel(nextDouble(tokens), nextDouble(tokens),
+                            nextDouble(tokens), nextDouble(tokens));
                     break;
                 case 'Z':
                 case 'z':
@@ -133,9 +134,18 @@ public class InternalBezierPath {
         }
     }
 
-    static protected float nextFloat(LinkedList<String> l) {
+    static protected double nextDouble(LinkedList<String> l) {
         String s = l.removeFirst();
-        return Float.parseFloat(s);
+        return Double.parseDouble(s);
+    }
+
+    /**
+     * Returns the number of Bezier segments of this path.
+     *
+     * @return number of segments
+     */
+    public int getNumberOfSegments() {
+        return path.bezierSegs.size();
     }
 
     /**
@@ -144,7 +154,7 @@ public class InternalBezierPath {
      * @param interp interpolation point (range: [0..1])
      * @return sample point
      */
-    public Vector3d eval(float interp) {
+    public Vector3d eval(double interp) {
         SVGVector point = new SVGVector();
 
         double curLength = path.curveLength * interp;
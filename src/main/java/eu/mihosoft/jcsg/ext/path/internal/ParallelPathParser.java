@@ -0,0 +1,647 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel parser for very large SVG path data. Relative commands depend on
+ * the current point, i.e., the path cannot simply be parsed in independent
+ * pieces. Instead, parsing is performed in phases:
+ *
+ * <ol>
+ * <li>the path data is split at command boundaries and the chunks are
+ * tokenized in parallel into (relative) command records</li>
+ * <li>a cheap sequential scan over the records computes the path state
+ * (current point, subpath start, reflection knots) at the start of each
+ * chunk</li>
+ * <li>the chunks are converted to absolute segments in parallel (one
+ * workspace per chunk, initialized with the state of the chunk)</li>
+ * <li>the segments of the chunks are concatenated</li>
+ * </ol>
+ *
+ * The handler calls of all phases are identical to the calls of the
+ * sequential parser, i.e., the result is identical as well.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+final class ParallelPathParser {
+
+    /**
+     * Minimum number of characters per chunk.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    private ParallelPathParser() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Resets the specified workspace and parses the specified path data.
+     *
+     * @param data path data to parse
+     * @param workspace target workspace
+     * @param pool pool to use
+     * @throws ParseException if the path data is malformed
+     */
+    static void parse(CharSequence data, PathWorkspace workspace,
+            ForkJoinPool pool) throws ParseException {
+
+        int length = data.length();
+        int[] bounds = split(data, Math.max(MIN_CHUNK_SIZE,
+                length / (pool.getParallelism() * 4) + 1));
+        int numChunks = bounds.length - 1;
+
+        if (numChunks < 2) {
+            workspace.parse(data);
+            return;
+        }
+
+        // phase 1: tokenize chunks
+        CommandRecorder[] records = new CommandRecorder[numChunks];
+        ParseException[] errors = new ParseException[numChunks];
+        pool.invoke(new ChunkTask(0, numChunks, chunk -> {
+            records[chunk] = new CommandRecorder();
+            try {
+                new PathParser(records[chunk]).parse(
+                        data, bounds[chunk], bounds[chunk + 1]);
+            } catch (ParseException ex) {
+                errors[chunk] = ex;
+            }
+        }));
+
+        // report the first error (same as sequential parsing)
+        for (ParseException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        // phase 2: path state at chunk start
+        double[][] states = new double[numChunks + 1][];
+        PathState state = new PathState();
+        for (int chunk = 0; chunk < numChunks; chunk++) {
+            states[chunk] = state.get();
+            records[chunk].replay(state);
+        }
+        states[numChunks] = state.get();
+
+        // phase 3: absolute segments
+        PathWorkspace[] chunkWorkspaces = new PathWorkspace[numChunks];
+        pool.invoke(new ChunkTask(0, numChunks, chunk -> {
+            PathWorkspace chunkWorkspace = new PathWorkspace();
+            chunkWorkspace.setState(states[chunk]);
+            records[chunk].replay(chunkWorkspace);
+            chunkWorkspaces[chunk] = chunkWorkspace;
+        }));
+
+        // phase 4: concatenate
+        workspace.reset();
+        for (PathWorkspace chunkWorkspace : chunkWorkspaces) {
+            workspace.append(chunkWorkspace);
+        }
+        workspace.setState(states[numChunks]);
+    }
+
+    /**
+     * Splits the specified path data at command boundaries.
+     *
+     * @param data path data
+     * @param chunkSize approximate number of characters per chunk
+     * @return chunk bounds (first is {@code 0}, last is the data length)
+     */
+    static int[] split(CharSequence data, int chunkSize) {
+        int length = data.length();
+        int[] bounds = new int[length / chunkSize + 2];
+        int numChunks = 0;
+
+        int pos = chunkSize;
+        while (pos < length) {
+            while (pos < length && !PathParser.isCommand(data.charAt(pos))) {
+                pos++;
+            }
+            if (pos < length) {
+                bounds[++numChunks] = pos;
+            }
+            pos += chunkSize;
+        }
+
+        bounds[++numChunks] = length;
+
+        return Arrays.copyOf(bounds, numChunks + 1);
+    }
+
+    /**
+     * Applies an action to a range of chunks (recursive bisection).
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        ChunkTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, action),
+                    new ChunkTask(mid, to, action));
+        }
+    }
+
+    /**
+     * Records handler calls (command and arguments) for later replay.
+     */
+    private static final class CommandRecorder implements PathHandler {
+
+        private char[] commands = new char[256];
+        private double[] args = new double[256 * 6];
+        private int numCommands;
+        private int numArgs;
+
+        /**
+         * Appends the specified command and reserves space for its
+         * arguments (fixed arity overloads below, i.e., no varargs array per
+         * command).
+         *
+         * @return offset of the first argument
+         */
+        private int reserve(char command, int numCommandArgs) {
+            if (numCommands == commands.length) {
+                commands = Arrays.copyOf(commands, numCommands * 2);
+            }
+            if (numArgs + numCommandArgs > args.length) {
+                args = Arrays.copyOf(args, Math.max(args.length * 2,
+                        numArgs + numCommandArgs));
+            }
+            commands[numCommands++] = command;
+            int off = numArgs;
+            numArgs += numCommandArgs;
+            return off;
+        }
+
+        private void add(char command) {
+            reserve(command, 0);
+        }
+
+        private void add(char command, double x) {
+            int off = reserve(command, 1);
+            args[off] = x;
+        }
+
+        private void add(char command, double x, double y) {
+            int off = reserve(command, 2);
+            args[off] = x;
+            args[off + 1] = y;
+        }
+
+        private void add(char command, double x1, double y1,
+                double x, double y) {
+            int off = reserve(command, 4);
+            args[off] = x1;
+            args[off + 1] = y1;
+            args[off + 2] = x;
+            args[off + 3] = y;
+        }
+
+        private void add(char command, double x1, double y1,
+                double x2, double y2, double x, double y) {
+            int off = reserve(command, 6);
+            args[off] = x1;
+            args[off + 1] = y1;
+            args[off + 2] = x2;
+            args[off + 3] = y2;
+            args[off + 4] = x;
+            args[off + 5] = y;
+        }
+
+        /**
+         * Replays the recorded calls.
+         *
+         * @param handler handler to notify
+         */
+        void replay(PathHandler handler) {
+            double[] a = args;
+            int i = 0;
+            for (int c = 0; c < numCommands; c++) {
+                switch (commands[c]) {
+                    case 'M':
+                        handler.movetoAbs(a[i], a[i + 1]);
+                        i += 2;
+                        break;
+                    case 'm':
+                        handler.movetoRel(a[i], a[i + 1]);
+                        i += 2;
+                        break;
+                    case 'L':
+                        handler.linetoAbs(a[i], a[i + 1]);
+                        i += 2;
+                        break;
+                    case 'l':
+                        handler.linetoRel(a[i], a[i + 1]);
+                        i += 2;
+                        break;
+                    case 'H':
+                        handler.linetoHorizontalAbs(a[i++]);
+                        break;
+                    case 'h':
+                        handler.linetoHorizontalRel(a[i++]);
+                        break;
+                    case 'V':
+                        handler.linetoVerticalAbs(a[i++]);
+                        break;
+                    case 'v':
+                        handler.linetoVerticalRel(a[i++]);
+                        break;
+                    case 'C':
+                        handler.curvetoCubicAbs(a[i], a[i + 1],
+                                a[i + 2], a[i + 3], a[i + 4], a[i + 5]);
+                        i += 6;
+                        break;
+                    case 'c':
+                        handler.curvetoCubicRel(a[i], a[i + 1],
+                                a[i + 2], a[i + 3], a[i + 4], a[i + 5]);
+                        i += 6;
+                        break;
+                    case 'S':
+                        handler.curvetoCubicSmoothAbs(a[i], a[i + 1],
+                                a[i + 2], a[i + 3]);
+                        i += 4;
+                        break;
+                    case 's':
+                        handler.curvetoCubicSmoothRel(a[i], a[i + 1],
+                                a[i + 2], a[i + 3]);
+                        i += 4;
+                        break;
+                    case 'Q':
+                        handler.curvetoQuadraticAbs(a[i], a[i + 1],
+                                a[i + 2], a[i + 3]);
+                        i += 4;
+                        break;
+                    case 'q':
+                        handler.curvetoQuadraticRel(a[i], a[i + 1],
+                                a[i + 2], a[i + 3]);
+                        i += 4;
+                        break;
+                    case 'T':
+                        handler.curvetoQuadraticSmoothAbs(a[i], a[i + 1]);
+                        i += 2;
+                        break;
+                    case 't':
+                        handler.curvetoQuadraticSmoothRel(a[i], a[i + 1]);
+                        i += 2;
+                        break;
+                    case 'A':
+                        handler.arcAbs(a[i], a[i + 1], a[i + 2],
+                                a[i + 3] != 0, a[i + 4] != 0, a[i + 5], a[i + 6]);
+                        i += 7;
+                        break;
+                    case 'a':
+                        handler.arcRel(a[i], a[i + 1], a[i + 2],
+                                a[i + 3] != 0, a[i + 4] != 0, a[i + 5], a[i + 6]);
+                        i += 7;
+                        break;
+                    default:
+                        handler.closePath();
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public void startPath() throws ParseException {
+            //
+        }
+
+        @Override
+        public void endPath() throws ParseException {
+            //
+        }
+
+        @Override
+        public void movetoRel(double x, double y) throws ParseException {
+            add('m', x, y);
+        }
+
+        @Override
+        public void movetoAbs(double x, double y) throws ParseException {
+            add('M', x, y);
+        }
+
+        @Override
+        public void closePath() throws ParseException {
+            add('Z');
+        }
+
+        @Override
+        public void linetoRel(double x, double y) throws ParseException {
+            add('l', x, y);
+        }
+
+        @Override
+        public void linetoAbs(double x, double y) throws ParseException {
+            add('L', x, y);
+        }
+
+        @Override
+        public void linetoHorizontalRel(double x) throws ParseException {
+            add('h', x);
+        }
+
+        @Override
+        public void linetoHorizontalAbs(double x) throws ParseException {
+            add('H', x);
+        }
+
+        @Override
+        public void linetoVerticalRel(double y) throws ParseException {
+            add('v', y);
+        }
+
+        @Override
+        public void linetoVerticalAbs(double y) throws ParseException {
+            add('V', y);
+        }
+
+        @Override
+        public void curvetoCubicRel(double x1, double y1,
+                double x2, double y2,
+                double x, double y) throws ParseException {
+            add('c', x1, y1, x2, y2, x, y);
+        }
+
+        @Override
+        public void curvetoCubicAbs(double x1, double y1,
+                double x2, double y2,
+                double x, double y) throws ParseException {
+            add('C', x1, y1, x2, y2, x, y);
+        }
+
+        @Override
+        public void curvetoCubicSmoothRel(double x2, double y2,
+                double x, double y) throws ParseException {
+            add('s', x2, y2, x, y);
+        }
+
+        @Override
+        public void curvetoCubicSmoothAbs(double x2, double y2,
+                double x, double y) throws ParseException {
+            add('S', x2, y2, x, y);
+        }
+
+        @Override
+        public void curvetoQuadraticRel(double x1, double y1,
+                double x, double y) throws ParseException {
+            add('q', x1, y1, x, y);
+        }
+
+        @Override
+        public void curvetoQuadraticAbs(double x1, double y1,
+                double x, double y) throws ParseException {
+            add('Q', x1, y1, x, y);
+        }
+
+        @Override
+        public void curvetoQuadraticSmoothRel(double x, double y) throws ParseException {
+            add('t', x, y);
+        }
+
+        @Override
+        public void curvetoQuadraticSmoothAbs(double x, double y) throws ParseException {
+            add('T', x, y);
+        }
+
+        @Override
+        public void arcRel(double rx, double ry, double xAxisRotation,
+                boolean largeArcFlag, boolean sweepFlag,
+                double x, double y) throws ParseException {
+            addArc('a', rx, ry, xAxisRotation, largeArcFlag, sweepFlag, x, y);
+        }
+
+        @Override
+        public void arcAbs(double rx, double ry, double xAxisRotation,
+                boolean largeArcFlag, boolean sweepFlag,
+                double x, double y) throws ParseException {
+            addArc('A', rx, ry, xAxisRotation, largeArcFlag, sweepFlag, x, y);
+        }
+
+        private void addArc(char command, double rx, double ry,
+                double xAxisRotation, boolean largeArcFlag, boolean sweepFlag,
+                double x, double y) {
+            int off = reserve(command, 7);
+            args[off] = rx;
+            args[off + 1] = ry;
+            args[off + 2] = xAxisRotation;
+            args[off + 3] = largeArcFlag ? 1 : 0;
+            args[off + 4] = sweepFlag ? 1 : 0;
+            args[off + 5] = x;
+            args[off + 6] = y;
+        }
+    }
+
+    /**
+     * Tracks the path state (current point, subpath start and reflection
+     * knots) without creating segments. State transitions are the same as
+     * the ones of {@link PathWorkspace}.
+     */
+    private static final class PathState implements PathHandler {
+
+        private double startX, startY;
+        private double lastX, lastY;
+        private double cubicKnotX, cubicKnotY;
+        private double quadKnotX, quadKnotY;
+        private boolean subpathPending = true;
+
+        /**
+         * Returns the current state (see {@link PathWorkspace#setState(double[])}).
+         */
+        double[] get() {
+            return new double[]{startX, startY, lastX, lastY,
+                cubicKnotX, cubicKnotY, quadKnotX, quadKnotY,
+                subpathPending ? 1 : 0};
+        }
+
+        private void resetKnots() {
+            cubicKnotX = quadKnotX = lastX;
+            cubicKnotY = quadKnotY = lastY;
+        }
+
+        @Override
+        public void startPath() throws ParseException {
+            //
+        }
+
+        @Override
+        public void endPath() throws ParseException {
+            //
+        }
+
+        @Override
+        public void movetoRel(double x, double y) throws ParseException {
+            movetoAbs(lastX + x, lastY + y);
+        }
+
+        @Override
+        public void movetoAbs(double x, double y) throws ParseException {
+            lastX = startX = x;
+            lastY = startY = y;
+            subpathPending = true;
+            resetKnots();
+        }
+
+        @Override
+        public void closePath() throws ParseException {
+            lastX = startX;
+            lastY = startY;
+            subpathPending = true;
+            resetKnots();
+        }
+
+        @Override
+        public void linetoRel(double x, double y) throws ParseException {
+            linetoAbs(lastX + x, lastY + y);
+        }
+
+        @Override
+        public void linetoAbs(double x, double y) throws ParseException {
+            lastX = x;
+            lastY = y;
+            subpathPending = false;
+            resetKnots();
+        }
+
+        @Override
+        public void linetoHorizontalRel(double x) throws ParseException {
+            linetoAbs(lastX + x, lastY);
+        }
+
+        @Override
+        public void linetoHorizontalAbs(double x) throws ParseException {
+            linetoAbs(x, lastY);
+        }
+
+        @Override
+        public void linetoVerticalRel(double y) throws ParseException {
+            linetoAbs(lastX, lastY + y);
+        }
+
+        @Override
+        public void linetoVerticalAbs(double y) throws ParseException {
+            linetoAbs(lastX, y);
+        }
+
+        @Override
+        public void curvetoCubicRel(double x1, double y1,
+                double x2, double y2,
+                double x, double y) throws ParseException {
+            curvetoCubicAbs(lastX + x1, lastY + y1,
+                    lastX + x2, lastY + y2,
+                    lastX + x, lastY + y);
+        }
+
+        @Override
+        public void curvetoCubicAbs(double x1, double y1,
+                double x2, double y2,
+                double x, double y) throws ParseException {
+            lastX = x;
+            lastY = y;
+            subpathPending = false;
+            resetKnots();
+            cubicKnotX = x2;
+            cubicKnotY = y2;
+        }
+
+        @Override
+        public void curvetoCubicSmoothRel(double x2, double y2,
+                double x, double y) throws ParseException {
+            curvetoCubicSmoothAbs(lastX + x2, lastY + y2, lastX + x, lastY + y);
+        }
+
+        @Override
+        public void curvetoCubicSmoothAbs(double x2, double y2,
+                double x, double y) throws ParseException {
+            curvetoCubicAbs(0, 0, x2, y2, x, y);
+        }
+
+        @Override
+        public void curvetoQuadraticRel(double x1, double y1,
+                double x, double y) throws ParseException {
+            curvetoQuadraticAbs(lastX + x1, lastY + y1, lastX + x, lastY + y);
+        }
+
+        @Override
+        public void curvetoQuadraticAbs(double x1, double y1,
+                double x, double y) throws ParseException {
+            lastX = x;
+            lastY = y;
+            subpathPending = false;
+            resetKnots();
+            quadKnotX = x1;
+            quadKnotY = y1;
+        }
+
+        @Override
+        public void curvetoQuadraticSmoothRel(double x, double y) throws ParseException {
+            curvetoQuadraticSmoothAbs(lastX + x, lastY + y);
+        }
+
+        @Override
+        public void curvetoQuadraticSmoothAbs(double x, double y) throws ParseException {
+            curvetoQuadraticAbs(lastX * 2 - quadKnotX, lastY * 2 - quadKnotY, x, y);
+        }
+
+        @Override
+        public void arcRel(double rx, double ry, double xAxisRotation,
+                boolean largeArcFlag, boolean sweepFlag,
+                double x, double y) throws ParseException {
+            arcAbs(rx, ry, xAxisRotation, largeArcFlag, sweepFlag,
+                    lastX + x, lastY + y);
+        }
+
+        @Override
+        public void arcAbs(double rx, double ry, double xAxisRotation,
+                boolean largeArcFlag, boolean sweepFlag,
+                double x, double y) throws ParseException {
+            // degenerate arcs are skipped, other arcs end exactly at (x, y)
+            if (lastX == x && lastY == y) {
+                return;
+            }
+            linetoAbs(x, y);
+        }
+    }
+}
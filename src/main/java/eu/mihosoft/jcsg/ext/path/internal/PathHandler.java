@@ -42,7 +42,7 @@ interface PathHandler {
      * @param y the relative y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void movetoRel(float x, float y) throws ParseException;
+    void movetoRel(double x, double y) throws ParseException;
 
     /**
      * Invoked when an absolute moveto command has been parsed.
@@ -51,7 +51,7 @@ interface PathHandler {
      * @param y the absolute y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void movetoAbs(float x, float y) throws ParseException;
+    void movetoAbs(double x, double y) throws ParseException;
 
     /**
      * Invoked when a closepath has been parsed.
@@ -67,7 +67,7 @@ interface PathHandler {
      * @param y the relative y coordinates for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void linetoRel(float x, float y) throws ParseException;
+    void linetoRel(double x, double y) throws ParseException;
 
     /**
      * Invoked when an absolute line command has been parsed.
@@ -76,7 +76,7 @@ interface PathHandler {
      * @param y the absolute y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void linetoAbs(float x, float y) throws ParseException;
+    void linetoAbs(double x, double y) throws ParseException;
 
     /**
      * Invoked when an horizontal relative line command has been parsed.
@@ -84,7 +84,7 @@ interface PathHandler {
      * @param x the relative X coordinate of the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void linetoHorizontalRel(float x) throws ParseException;
+    void linetoHorizontalRel(double x) throws ParseException;
 
     /**
      * Invoked when an horizontal absolute line command has been parsed.
@@ -92,7 +92,7 @@ interface PathHandler {
      * @param x the absolute X coordinate of the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void linetoHorizontalAbs(float x) throws ParseException;
+    void linetoHorizontalAbs(double x) throws ParseException;
 
     /**
      * Invoked when a vertical relative line command has been parsed.
@@ -100,7 +100,7 @@ interface PathHandler {
      * @param y the relative Y coordinate of the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void linetoVerticalRel(float y) throws ParseException;
+    void linetoVerticalRel(double y) throws ParseException;
 
     /**
      * Invoked when a vertical absolute line command has been parsed.
@@ -108,7 +108,7 @@ interface PathHandler {
      * @param y the absolute Y coordinate of the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void linetoVerticalAbs(float y) throws ParseException;
+    void linetoVerticalAbs(double y) throws ParseException;
 
     /**
      * Invoked when a relative cubic bezier curve command has been parsed.
@@ -121,9 +121,9 @@ interface PathHandler {
      * @param y the relative y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoCubicRel(float x1, float y1, 
-                         float x2, float y2, 
-                         float x, float y) throws ParseException;
+    void curvetoCubicRel(double x1, double y1, 
+                         double x2, double y2, 
+                         double x, double y) throws ParseException;
 
 
     /**
@@ -137,9 +137,9 @@ interface PathHandler {
      * @param y the absolute y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoCubicAbs(float x1, float y1, 
-                         float x2, float y2, 
-                         float x, float y) throws ParseException;
+    void curvetoCubicAbs(double x1, double y1, 
+                         double x2, double y2, 
+                         double x, double y) throws ParseException;
 
     /**
      * Invoked when a relative smooth cubic bezier curve command has
@@ -153,8 +153,8 @@ interface PathHandler {
      * @param y the relative y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoCubicSmoothRel(float x2, float y2, 
-                               float x, float y) throws ParseException;
+    void curvetoCubicSmoothRel(double x2, double y2, 
+                               double x, double y) throws ParseException;
 
     /**
      * Invoked when an absolute smooth cubic bezier curve command has
@@ -168,8 +168,8 @@ interface PathHandler {
      * @param y the absolute y coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoCubicSmoothAbs(float x2, float y2, 
-                               float x, float y) throws ParseException;
+    void curvetoCubicSmoothAbs(double x2, double y2, 
+                               double x, double y) throws ParseException;
 
     /**
      * Invoked when a relative quadratic bezier curve command has been parsed.
@@ -180,8 +180,8 @@ interface PathHandler {
      * @param y the relative x coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoQuadraticRel(float x1, float y1, 
-                             float x, float y) throws ParseException;
+    void curvetoQuadraticRel(double x1, double y1, 
+                             double x, double y) throws ParseException;
 
     /**
      * Invoked when an absolute quadratic bezier curve command has been parsed.
@@ -192,8 +192,8 @@ interface PathHandler {
      * @param y the absolute x coordinate for the end point
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoQuadraticAbs(float x1, float y1, 
-                             float x, float y) throws ParseException;
+    void curvetoQuadraticAbs(double x1, double y1, 
+                             double x, double y) throws ParseException;
 
     /**
      * Invoked when a relative smooth quadratic bezier curve command
@@ -205,7 +205,7 @@ interface PathHandler {
      * @param y the relative y coordinate for the end point 
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoQuadraticSmoothRel(float x, float y) throws ParseException;
+    void curvetoQuadraticSmoothRel(double x, double y) throws ParseException;
 
     /**
      * Invoked when an absolute smooth quadratic bezier curve command
@@ -217,7 +217,7 @@ interface PathHandler {
      * @param y the absolute y coordinate for the end point 
      * @exception ParseException if an error occured while processing the path
      */
-    void curvetoQuadraticSmoothAbs(float x, float y) throws ParseException;
+    void curvetoQuadraticSmoothAbs(double x, double y) throws ParseException;
 
     /**
      * Invoked when a relative elliptical arc command has been parsed. 
@@ -232,10 +232,10 @@ interface PathHandler {
      * @param y the relative y coordinate for the end point 
      * @exception ParseException if an error occured while processing the path
      */
-    void arcRel(float rx, float ry, 
-                float xAxisRotation, 
+    void arcRel(double rx, double ry, 
+                double xAxisRotation, 
                 boolean largeArcFlag, boolean sweepFlag, 
-                float x, float y) throws ParseException;
+                double x, double y) throws ParseException;
 
 
     /**
@@ -251,8 +251,8 @@ interface PathHandler {
      * @param y the absolute y coordinate for the end point 
      * @exception ParseException if an error occured while processing the path
      */
-    void arcAbs(float rx, float ry, 
-                float xAxisRotation, 
+    void arcAbs(double rx, double ry, 
+                double xAxisRotation, 
                 boolean largeArcFlag, boolean sweepFlag, 
-                float x, float y) throws ParseException;
+                double x, double y) throws ParseException;
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+import java.awt.geom.PathIterator;
+
+/**
+ * Feeds the segments of {@code java.awt.geom} path iterators to a
+ * {@link PathHandler}. This allows to process AWT shapes (e.g. font glyph
+ * outlines) without converting them to SVG path strings. Only geometry
+ * classes are used, i.e., this works on headless JVMs.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathIteratorAdapter {
+
+    private PathIteratorAdapter() {
+        throw new AssertionError("Don't instantiate me!");
+    }
+
+    /**
+     * Resets the specified workspace and feeds all segments of the specified
+     * path iterator to it.
+     *
+     * @param iterator path iterator
+     * @param workspace workspace
+     * @return the specified workspace
+     */
+    public static PathWorkspace read(PathIterator iterator, PathWorkspace workspace) {
+        workspace.reset();
+        feed(iterator, workspace);
+        return workspace;
+    }
+
+    /**
+     * Feeds all segments of the specified path iterator to the specified
+     * handler.
+     *
+     * @param iterator path iterator
+     * @param handler handler to notify
+     */
+    static void feed(PathIterator iterator, PathHandler handler) {
+        double[] c = new double[6];
+
+        handler.startPath();
+
+        while (!iterator.isDone()) {
+            switch (iterator.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    handler.movetoAbs(c[0], c[1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    handler.linetoAbs(c[0], c[1]);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    handler.curvetoQuadraticAbs(c[0], c[1], c[2], c[3]);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    handler.curvetoCubicAbs(c[0], c[1], c[2], c[3], c[4], c[5]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    handler.closePath();
+                    break;
+                default:
+                    throw new ParseException(
+                            "Unsupported path iterator segment", -1, -1);
+            }
+            iterator.next();
+        }
+
+        handler.endPath();
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+/**
+ * Allocation-free SVG path data parser. Parses the {@code d} attribute of SVG
+ * path elements and notifies a {@link PathHandler} about the parsed commands.
+ *
+ * Numbers are converted without creating intermediate strings if they have at
+ * most 15 significant digits and a decimal exponent in {@code [-22, 22]}
+ * (exact conversion). Other numbers are converted via
+ * {@link Double#parseDouble(java.lang.String)}.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+final class PathParser {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+
+    private final PathHandler handler;
+
+    private CharSequence s;
+    private int pos;
+    private int end;
+
+    /**
+     * Constructor.
+     *
+     * @param handler handler to notify
+     */
+    PathParser(PathHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Parses the specified path data.
+     *
+     * @param data path data to parse (e.g.
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"})
+     * @throws ParseException if the path data is malformed
+     */
+    void parse(CharSequence data) throws ParseException {
+        handler.startPath();
+        parse(data, 0, data.length());
+        handler.endPath();
+    }
+
+    /**
+     * Parses the specified range of the path data. The range must start at a
+     * command (or separator characters followed by a command).
+     *
+     * @param data path data to parse
+     * @param start start index
+     * @param end end index (exclusive)
+     * @throws ParseException if the path data is malformed
+     */
+    void parse(CharSequence data, int start, int end) throws ParseException {
+        this.s = data;
+        this.pos = start;
+        this.end = end;
+
+        char cmd = 0;
+
+        skipSeparators();
+
+        while (pos < end) {
+            char c = s.charAt(pos);
+
+            if (isCommand(c)) {
+                cmd = c;
+                pos++;
+                skipSeparators();
+            } else if (cmd == 0 || cmd == 'Z' || cmd == 'z' || !isNumberStart(c)) {
+                throw error("Unexpected character '" + c + "'");
+            }
+
+            switch (cmd) {
+                case 'M':
+                    handler.movetoAbs(nextNumber(), nextNumber());
+                    cmd = 'L';
+                    break;
+                case 'm':
+                    handler.movetoRel(nextNumber(), nextNumber());
+                    cmd = 'l';
+                    break;
+                case 'L':
+                    handler.linetoAbs(nextNumber(), nextNumber());
+                    break;
+                case 'l':
+                    handler.linetoRel(nextNumber(), nextNumber());
+                    break;
+                case 'H':
+                    handler.linetoHorizontalAbs(nextNumber());
+                    break;
+                case 'h':
+                    handler.linetoHorizontalRel(nextNumber());
+                    break;
+                case 'V':
+                    handler.linetoVerticalAbs(nextNumber());
+                    break;
+                case 'v':
+                    handler.linetoVerticalRel(nextNumber());
+                    break;
+                case 'C':
+                    handler.curvetoCubicAbs(nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'c':
+                    handler.curvetoCubicRel(nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'S':
+                    handler.curvetoCubicSmoothAbs(nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 's':
+                    handler.curvetoCubicSmoothRel(nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'Q':
+                    handler.curvetoQuadraticAbs(nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'q':
+                    handler.curvetoQuadraticRel(nextNumber(), nextNumber(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'T':
+                    handler.curvetoQuadraticSmoothAbs(nextNumber(), nextNumber());
+                    break;
+                case 't':
+                    handler.curvetoQuadraticSmoothRel(nextNumber(), nextNumber());
+                    break;
+                case 'A':
+                    handler.arcAbs(nextNumber(), nextNumber(), nextNumber(),
+                            nextFlag(), nextFlag(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'a':
+                    handler.arcRel(nextNumber(), nextNumber(), nextNumber(),
+                            nextFlag(), nextFlag(),
+                            nextNumber(), nextNumber());
+                    break;
+                case 'Z':
+                case 'z':
+                    handler.closePath();
+                    break;
+                default:
+                    throw error("Invalid path element '" + cmd + "'");
+            }
+        }
+    }
+
+    /**
+     * Determines whether the specified character is a path command.
+     *
+     * @param c character
+     * @return {@code true} if the character is a path command
+     */
+    static boolean isCommand(char c) {
+        switch (c) {
+            case 'M': case 'm': case 'L': case 'l': case 'H': case 'h':
+            case 'V': case 'v': case 'C': case 'c': case 'S': case 's':
+            case 'Q': case 'q': case 'T': case 't': case 'A': case 'a':
+            case 'Z': case 'z':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isNumberStart(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == ',' || c == '\n' || c == '\r' || c == '\t'
+                || c == '\f';
+    }
+
+    private void skipSeparators() {
+        while (pos < end && isSeparator(s.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private ParseException error(String msg) {
+        return new ParseException(msg + " at index " + pos, 1, pos);
+    }
+
+    private boolean nextFlag() {
+        if (pos >= end) {
+            throw error("Unexpected end of path data, expected flag");
+        }
+
+        char c = s.charAt(pos);
+
+        if (c != '0' && c != '1') {
+            throw error("Illegal flag '" + c + "'");
+        }
+
+        pos++;
+        skipSeparators();
+
+        return c == '1';
+    }
+
+    private double nextNumber() {
+        int start = pos;
+
+        if (pos >= end) {
+            throw error("Unexpected end of path data, expected number");
+        }
+
+        boolean negative = false;
+        char c = s.charAt(pos);
+
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+
+        // integer part
+        while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9') {
+            hasDigits = true;
+            if (numDigits < 18) {
+                if (mantissa != 0 || c != '0') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    numDigits++;
+                }
+            } else {
+                exponent++;
+                numDigits++;
+            }
+            pos++;
+        }
+
+        // fraction
+        if (pos < end && s.charAt(pos) == '.') {
+            pos++;
+            while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9') {
+                hasDigits = true;
+                if (numDigits < 18) {
+                    if (mantissa != 0 || c != '0') {
+                        mantissa = mantissa * 10 + (c - '0');
+                        numDigits++;
+                    }
+                    exponent--;
+                } else {
+                    numDigits++;
+                }
+                pos++;
+            }
+        }
+
+        if (!hasDigits) {
+            pos = start;
+            throw error("Illegal number");
+        }
+
+        // exponent
+        if (pos < end && ((c = s.charAt(pos)) == 'e' || c == 'E')) {
+            int expStart = pos;
+            pos++;
+
+            boolean expNegative = false;
+            if (pos < end && ((c = s.charAt(pos)) == '-' || c == '+')) {
+                expNegative = c == '-';
+                pos++;
+            }
+
+            int exp = 0;
+            boolean hasExpDigits = false;
+            while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9') {
+                hasExpDigits = true;
+                if (exp < 100000) {
+                    exp = exp * 10 + (c - '0');
+                }
+                pos++;
+            }
+
+            if (!hasExpDigits) {
+                pos = expStart;
+                throw error("Illegal exponent");
+            }
+
+            exponent += expNegative ? -exp : exp;
+        }
+
+        int numberEnd = pos;
+
+        skipSeparators();
+
+        double value;
+
+        if (mantissa == 0) {
+            value = 0;
+        } else if (numDigits <= 15 && exponent >= -22 && exponent <= 22) {
+            // exact: mantissa and power of ten are exactly representable
+            value = exponent < 0
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return Double.parseDouble(
+                    s.subSequence(start, numberEnd).toString());
+        }
+
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,800 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reusable path workspace. Stores the Bezier segments of a parsed path in a
+ * single flat coordinate array ({@link #STRIDE} values per segment: the
+ * absolute coordinates of up to four control points) and a segment type
+ * array (the degree of each segment: 1 = line, 2 = quadratic, 3 = cubic).
+ *
+ * A workspace can be reset and reused. After the internal arrays have grown to
+ * the size of the largest path, parsing and sampling of similarly sized paths
+ * does not allocate. Workspaces are not thread-safe. Use
+ * {@link #forCurrentThread()} to obtain a per-thread instance. Arrays that
+ * have grown beyond {@link #TRIM_THRESHOLD} segments (or samples) are not
+ * kept by {@link #trim()}, i.e., a single huge path does not pin its memory
+ * in the per-thread instance.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public final class PathWorkspace implements PathHandler {
+
+    /**
+     * Number of coordinates per segment.
+     */
+    public static final int STRIDE = 8;
+
+    /**
+     * Maximum number of segments (or samples) a workspace keeps allocated
+     * when it is trimmed (see {@link #trim()}).
+     */
+    public static final int TRIM_THRESHOLD = 1 << 16;
+
+    private static final int INITIAL_SEGMENTS = 64;
+    private static final int INITIAL_SUBPATHS = 16;
+    private static final int INITIAL_SAMPLES = 128;
+
+    private static final ThreadLocal<PathWorkspace> THREAD_WORKSPACE
+            = ThreadLocal.withInitial(PathWorkspace::new);
+
+    private final PathParser parser = new PathParser(this);
+
+    private double[] coords = new double[INITIAL_SEGMENTS * STRIDE];
+    private byte[] degrees = new byte[INITIAL_SEGMENTS];
+    private double[] lengths = new double[INITIAL_SEGMENTS];
+    private int numSegments;
+    private double totalLength;
+
+    // subpaths (index of the first segment of each subpath)
+    private int[] subpaths = new int[INITIAL_SUBPATHS];
+    private int numSubpaths;
+    private boolean subpathPending = true;
+
+    private double[] samples = new double[INITIAL_SAMPLES * 2];
+    private final double[] coefficients
+            = new double[BezierEvaluator.NUM_COEFFICIENTS];
+
+    // path state
+    private double startX, startY;
+    private double lastX, lastY;
+    private double cubicKnotX, cubicKnotY;
+    private double quadKnotX, quadKnotY;
+
+    /**
+     * Returns the workspace of the current thread. The workspace is trimmed
+     * (see {@link #trim()}), i.e., its previous content is discarded. Callers
+     * should trim the workspace after use as well.
+     *
+     * @return workspace of the current thread
+     */
+    public static PathWorkspace forCurrentThread() {
+        PathWorkspace workspace = THREAD_WORKSPACE.get();
+        workspace.trim();
+        return workspace;
+    }
+
+    /**
+     * Removes all segments and resets the path state. Allocated arrays are
+     * kept.
+     */
+    public void reset() {
+        numSegments = 0;
+        totalLength = 0;
+        numSubpaths = 0;
+        subpathPending = true;
+        startX = startY = 0;
+        lastX = lastY = 0;
+        cubicKnotX = cubicKnotY = 0;
+        quadKnotX = quadKnotY = 0;
+    }
+
+    /**
+     * Resets this workspace and shrinks arrays that have grown beyond
+     * {@link #TRIM_THRESHOLD} segments (or samples) to their initial size.
+     * Arrays below the threshold are kept.
+     */
+    public void trim() {
+        reset();
+
+        if (degrees.length > TRIM_THRESHOLD) {
+            coords = new double[INITIAL_SEGMENTS * STRIDE];
+            degrees = new byte[INITIAL_SEGMENTS];
+            lengths = new double[INITIAL_SEGMENTS];
+        }
+        if (subpaths.length > TRIM_THRESHOLD) {
+            subpaths = new int[INITIAL_SUBPATHS];
+        }
+        if (samples.length > TRIM_THRESHOLD * 2) {
+            samples = new double[INITIAL_SAMPLES * 2];
+        }
+    }
+
+    /**
+     * Resets this workspace and parses the specified SVG path.
+     *
+     * @param svgPath svg path to parse, e.g.,
+     * {@code "m 0.18275487,1047.5449 4.63449033,0 0,4.6345 -4.63449033,0 z"}
+     * @return this workspace
+     * @throws ParseException if the path data is malformed
+     */
+    public PathWorkspace parse(CharSequence svgPath) throws ParseException {
+        reset();
+        parser.parse(svgPath);
+        return this;
+    }
+
+    /**
+     * Resets this workspace and parses the specified SVG path in parallel
+     * using the common fork/join pool. Intended for very large path data
+     * (e.g. GIS exports), small paths are parsed sequentially. The result is
+     * identical to {@link #parse(java.lang.CharSequence)}.
+     *
+     * @param svgPath svg path to parse
+     * @return this workspace
+     * @throws ParseException if the path data is malformed
+     */
+    public PathWorkspace parseParallel(CharSequence svgPath) throws ParseException {
+        return parseParallel(svgPath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Resets this workspace and parses the specified SVG path in parallel.
+     * Intended for very large path data (e.g. GIS exports), small paths are
+     * parsed sequentially. The result is identical to
+     * {@link #parse(java.lang.CharSequence)}.
+     *
+     * @param svgPath svg path to parse
+     * @param pool pool to use
+     * @return this workspace
+     * @throws ParseException if the path data is malformed
+     */
+    public PathWorkspace parseParallel(CharSequence svgPath, ForkJoinPool pool)
+            throws ParseException {
+        ParallelPathParser.parse(svgPath, this, pool);
+        return this;
+    }
+
+    /**
+     * Applies the specified affine transform to the control points of all
+     * segments ({@code x' = a*x + c*y + e, y' = b*x + d*y + f}). Bezier curves
+     * are affine invariant, i.e., transforming the control points is
+     * equivalent to transforming the curves.
+     *
+     * @param a matrix entry (row 0, column 0)
+     * @param b matrix entry (row 1, column 0)
+     * @param c matrix entry (row 0, column 1)
+     * @param d matrix entry (row 1, column 1)
+     * @param e translation (x)
+     * @param f translation (y)
+     */
+    public void transform(double a, double b, double c,
+            double d, double e, double f) {
+
+        totalLength = 0;
+
+        for (int segment = 0; segment < numSegments; segment++) {
+            int off = segment * STRIDE;
+            int degree = degrees[segment];
+
+            for (int i = off; i <= off + degree * 2; i += 2) {
+                double x = coords[i];
+                double y = coords[i + 1];
+                coords[i] = a * x + c * y + e;
+                coords[i + 1] = b * x + d * y + f;
+            }
+
+            lengths[segment] = controlPolygonLength(off, degree);
+            totalLength += lengths[segment];
+        }
+    }
+
+    /**
+     * Returns the number of segments.
+     *
+     * @return number of segments
+     */
+    public int getNumberOfSegments() {
+        return numSegments;
+    }
+
+    /**
+     * Returns the segment coordinates (not a copy). Segment {@code i} is
+     * stored at {@code [i * STRIDE, i * STRIDE + 2 * (degree + 1))}.
+     *
+     * @return segment coordinates
+     */
+    public double[] getCoords() {
+        return coords;
+    }
+
+    /**
+     * Returns the degree of the specified segment.
+     *
+     * @param segment segment index
+     * @return degree (1 = line, 2 = quadratic, 3 = cubic)
+     */
+    public int getDegree(int segment) {
+        return degrees[segment];
+    }
+
+    /**
+     * Returns the approximate length (length of the control polygon) of the
+     * specified segment.
+     *
+     * @param segment segment index
+     * @return approximate segment length
+     */
+    public double getLength(int segment) {
+        return lengths[segment];
+    }
+
+    /**
+     * Returns the approximate length of the path (sum of segment lengths).
+     *
+     * @return approximate path length
+     */
+    public double getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Samples the path. Sample {@code i} is located at arc length parameter
+     * {@code i * step} (i.e., the same parametrization as
+     * {@code InternalBezierPath.eval()}).
+     *
+     * @param step step size to use for path sampling ({@code 0.0 < step < 1.0})
+     * @return number of samples (coordinates are available via
+     * {@link #getSamples()})
+     * @throws IllegalArgumentException if the step is not positive or the
+     * number of samples exceeds the maximum array size
+     */
+    public int sample(double step) {
+
+        int numSamples = numberOfSamples(step);
+
+        if (samples.length < numSamples * 2) {
+            samples = new double[numSamples * 2];
+        }
+
+        if (numSegments == 0) {
+            Arrays.fill(samples, 0, numSamples * 2, 0);
+            return numSamples;
+        }
+
+        // samples are processed segment by segment: the parameters of all
+        // samples inside one segment are equidistant, i.e., the segment can
+        // be evaluated in one batch
+        double h = totalLength * step;
+        int i = 0;
+        double segmentStart = 0;
+
+        for (int segment = 0; segment < numSegments && i < numSamples; segment++) {
+            double length = lengths[segment];
+
+            int first = i;
+            while (i < numSamples && i * h - segmentStart < length) {
+                i++;
+            }
+
+            if (i > first) {
+                BezierEvaluator.toPowerBasis(coords, segment * STRIDE,
+                        degrees[segment], coefficients, 0);
+                BezierEvaluator.evalUniform(coefficients, 0,
+                        (first * h - segmentStart) / length, h / length,
+                        i - first, samples, first * 2);
+            }
+
+            segmentStart += length;
+        }
+
+        // rounding errors: clamp remaining samples to end point of the path
+        int off = (numSegments - 1) * STRIDE + 2 * degrees[numSegments - 1];
+        for (; i < numSamples; i++) {
+            samples[i * 2] = coords[off];
+            samples[i * 2 + 1] = coords[off + 1];
+        }
+
+        return numSamples;
+    }
+
+    /**
+     * Returns the number of samples for the specified step size, i.e., the
+     * smallest {@code n} with {@code n * step >= 1}.
+     *
+     * @param step step size ({@code > 0})
+     * @return number of samples
+     * @throws IllegalArgumentException if the step is not positive or the
+     * number of samples exceeds the maximum array size
+     */
+    public static int numberOfSamples(double step) {
+        if (!(step > 0)) {
+            throw new IllegalArgumentException(
+                    "Illegal step specified: step must be > 0!");
+        }
+
+        // estimate, then correct rounding
+        double estimate = Math.ceil(1.0 / step);
+        if (estimate > Integer.MAX_VALUE / 2 - 2) {
+            throw new IllegalArgumentException(
+                    "Illegal step specified: " + step
+                    + " exceeds the maximum number of samples!");
+        }
+
+        int numSamples = (int) estimate;
+        while (numSamples > 0 && (numSamples - 1) * step >= 1.0) {
+            numSamples--;
+        }
+        while (numSamples * step < 1.0) {
+            numSamples++;
+        }
+        return numSamples;
+    }
+
+    /**
+     * Samples the path with the specified number of samples per segment. The
+     * samples of segment {@code i} are located at the equidistant curve
+     * parameters {@code k / counts[i]} ({@code k < counts[i]}), i.e., the end
+     * point of a segment is represented by the first sample of the next one.
+     *
+     * @param counts number of samples per segment
+     * @return number of samples (coordinates are available via
+     * {@link #getSamples()})
+     * @throws IllegalArgumentException if the total number of samples
+     * exceeds the maximum array size
+     */
+    public int sample(int[] counts) {
+
+        long total = 0;
+        for (int segment = 0; segment < numSegments; segment++) {
+            total += counts[segment];
+        }
+
+        if (total > Integer.MAX_VALUE / 2 - 1) {
+            throw new IllegalArgumentException(
+                    "Illegal sample counts specified: " + total
+                    + " samples exceed the maximum array size!");
+        }
+
+        int numSamples = (int) total;
+
+        if (samples.length < numSamples * 2) {
+            samples = new double[numSamples * 2];
+        }
+
+        int i = 0;
+        for (int segment = 0; segment < numSegments; segment++) {
+            int n = counts[segment];
+            if (n > 0) {
+                BezierEvaluator.toPowerBasis(coords, segment * STRIDE,
+                        degrees[segment], coefficients, 0);
+                BezierEvaluator.evalUniform(coefficients, 0,
+                        0, 1.0 / n, n, samples, i * 2);
+                i += n;
+            }
+        }
+
+        return numSamples;
+    }
+
+    /**
+     * Returns the sample coordinates of the last {@link #sample(double)} or
+     * {@link #sample(int[])} call ({@code x0, y0, x1, y1, ...}). Not a copy.
+     *
+     * @return sample coordinates
+     */
+    public double[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Evaluates the specified segment.
+     *
+     * @param segment segment index
+     * @param t curve parameter ({@code [0,1]})
+     * @param out output array
+     * @param outOffset offset in the output array
+     */
+    public void eval(int segment, double t, double[] out, int outOffset) {
+        BezierEvaluator.evalBezier(coords, segment * STRIDE, degrees[segment],
+                t, out, outOffset);
+    }
+
+    /**
+     * Returns the number of subpaths. A subpath starts with the first segment
+     * after a moveto or closepath command.
+     *
+     * @return number of subpaths
+     */
+    public int getNumberOfSubpaths() {
+        return numSubpaths;
+    }
+
+    /**
+     * Returns the index of the first segment of the specified subpath.
+     *
+     * @param subpath subpath index
+     * @return index of the first segment
+     */
+    public int getSubpathStart(int subpath) {
+        return subpaths[subpath];
+    }
+
+    /**
+     * Sets the path state.
+     *
+     * @param state path state ({@code startX, startY, lastX, lastY,
+     * cubicKnotX, cubicKnotY, quadKnotX, quadKnotY, subpathPending}, the
+     * last entry is {@code 1} if the next segment starts a new subpath and
+     * {@code 0} otherwise)
+     */
+    void setState(double[] state) {
+        startX = state[0];
+        startY = state[1];
+        lastX = state[2];
+        lastY = state[3];
+        cubicKnotX = state[4];
+        cubicKnotY = state[5];
+        quadKnotX = state[6];
+        quadKnotY = state[7];
+        subpathPending = state[8] != 0;
+    }
+
+    /**
+     * Appends the segments of the specified workspace. The path state of this
+     * workspace is not changed.
+     *
+     * @param other workspace to append
+     */
+    void append(PathWorkspace other) {
+        int n = other.numSegments;
+        int capacity = degrees.length;
+        while (capacity < numSegments + n) {
+            capacity *= 2;
+        }
+        if (capacity > degrees.length) {
+            coords = Arrays.copyOf(coords, capacity * STRIDE);
+            degrees = Arrays.copyOf(degrees, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        System.arraycopy(other.coords, 0, coords, numSegments * STRIDE, n * STRIDE);
+        System.arraycopy(other.degrees, 0, degrees, numSegments, n);
+        System.arraycopy(other.lengths, 0, lengths, numSegments, n);
+
+        // same summation order as sequential parsing
+        for (int segment = numSegments; segment < numSegments + n; segment++) {
+            totalLength += lengths[segment];
+        }
+
+        for (int subpath = 0; subpath < other.numSubpaths; subpath++) {
+            addSubpath(numSegments + other.subpaths[subpath]);
+        }
+
+        numSegments += n;
+    }
+
+    private void addSubpath(int segment) {
+        if (numSubpaths == subpaths.length) {
+            subpaths = Arrays.copyOf(subpaths, subpaths.length * 2);
+        }
+        subpaths[numSubpaths++] = segment;
+    }
+
+    private int addSegment(int degree) {
+        if (numSegments == degrees.length) {
+            int capacity = degrees.length * 2;
+            coords = Arrays.copyOf(coords, capacity * STRIDE);
+            degrees = Arrays.copyOf(degrees, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        if (subpathPending) {
+            addSubpath(numSegments);
+            subpathPending = false;
+        }
+
+        int segment = numSegments++;
+        degrees[segment] = (byte) degree;
+
+        int off = segment * STRIDE;
+        coords[off] = lastX;
+        coords[off + 1] = lastY;
+
+        return off;
+    }
+
+    private void finishSegment(int off) {
+        int segment = off / STRIDE;
+        int degree = degrees[segment];
+
+        lengths[segment] = controlPolygonLength(off, degree);
+        totalLength += lengths[segment];
+
+        lastX = coords[off + degree * 2];
+        lastY = coords[off + degree * 2 + 1];
+    }
+
+    private double controlPolygonLength(int off, int degree) {
+        double length = 0;
+        for (int i = 2; i <= degree * 2; i += 2) {
+            double dx = coords[off + i] - coords[off + i - 2];
+            double dy = coords[off + i + 1] - coords[off + i - 1];
+            length += Math.sqrt(dx * dx + dy * dy);
+        }
+        return length;
+    }
+
+    @Override
+    public void startPath() throws ParseException {
+        //
+    }
+
+    @Override
+    public void endPath() throws ParseException {
+        //
+    }
+
+    @Override
+    public void movetoRel(double x, double y) throws ParseException {
+        movetoAbs(lastX + x, lastY + y);
+    }
+
+    @Override
+    public void movetoAbs(double x, double y) throws ParseException {
+        lastX = startX = x;
+        lastY = startY = y;
+        subpathPending = true;
+        resetKnots();
+    }
+
+    @Override
+    public void closePath() throws ParseException {
+        lastX = startX;
+        lastY = startY;
+        subpathPending = true;
+        resetKnots();
+    }
+
+    @Override
+    public void linetoRel(double x, double y) throws ParseException {
+        linetoAbs(lastX + x, lastY + y);
+    }
+
+    @Override
+    public void linetoAbs(double x, double y) throws ParseException {
+        int off = addSegment(1);
+        coords[off + 2] = x;
+        coords[off + 3] = y;
+        finishSegment(off);
+        resetKnots();
+    }
+
+    @Override
+    public void linetoHorizontalRel(double x) throws ParseException {
+        linetoAbs(lastX + x, lastY);
+    }
+
+    @Override
+    public void linetoHorizontalAbs(double x) throws ParseException {
+        linetoAbs(x, lastY);
+    }
+
+    @Override
+    public void linetoVerticalRel(double y) throws ParseException {
+        linetoAbs(lastX, lastY + y);
+    }
+
+    @Override
+    public void linetoVerticalAbs(double y) throws ParseException {
+        linetoAbs(lastX, y);
+    }
+
+    @Override
+    public void curvetoCubicRel(double x1, double y1,
+            double x2, double y2,
+            double x, double y) throws ParseException {
+        curvetoCubicAbs(lastX + x1, lastY + y1,
+                lastX + x2, lastY + y2,
+                lastX + x, lastY + y);
+    }
+
+    @Override
+    public void curvetoCubicAbs(double x1, double y1,
+            double x2, double y2,
+            double x, double y) throws ParseException {
+        int off = addSegment(3);
+        coords[off + 2] = x1;
+        coords[off + 3] = y1;
+        coords[off + 4] = x2;
+        coords[off + 5] = y2;
+        coords[off + 6] = x;
+        coords[off + 7] = y;
+        finishSegment(off);
+
+        resetKnots();
+        cubicKnotX = x2;
+        cubicKnotY = y2;
+    }
+
+    @Override
+    public void curvetoCubicSmoothRel(double x2, double y2,
+            double x, double y) throws ParseException {
+        curvetoCubicSmoothAbs(lastX + x2, lastY + y2, lastX + x, lastY + y);
+    }
+
+    @Override
+    public void curvetoCubicSmoothAbs(double x2, double y2,
+            double x, double y) throws ParseException {
+        // first control point is the reflection of the previous
+        // second control point
+        curvetoCubicAbs(lastX * 2 - cubicKnotX, lastY * 2 - cubicKnotY,
+                x2, y2, x, y);
+    }
+
+    @Override
+    public void curvetoQuadraticRel(double x1, double y1,
+            double x, double y) throws ParseException {
+        curvetoQuadraticAbs(lastX + x1, lastY + y1, lastX + x, lastY + y);
+    }
+
+    @Override
+    public void curvetoQuadraticAbs(double x1, double y1,
+            double x, double y) throws ParseException {
+        int off = addSegment(2);
+        coords[off + 2] = x1;
+        coords[off + 3] = y1;
+        coords[off + 4] = x;
+        coords[off + 5] = y;
+        finishSegment(off);
+
+        resetKnots();
+        quadKnotX = x1;
+        quadKnotY = y1;
+    }
+
+    @Override
+    public void curvetoQuadraticSmoothRel(double x, double y) throws ParseException {
+        curvetoQuadraticSmoothAbs(lastX + x, lastY + y);
+    }
+
+    @Override
+    public void curvetoQuadraticSmoothAbs(double x, double y) throws ParseException {
+        // control point is the reflection of the previous control point
+        curvetoQuadraticAbs(lastX * 2 - quadKnotX, lastY * 2 - quadKnotY, x, y);
+    }
+
+    @Override
+    public void arcRel(double rx, double ry, double xAxisRotation,
+            boolean largeArcFlag, boolean sweepFlag,
+            double x, double y) throws ParseException {
+        arcAbs(rx, ry, xAxisRotation, largeArcFlag, sweepFlag,
+                lastX + x, lastY + y);
+    }
+
+    @Override
+    public void arcAbs(double rx, double ry, double xAxisRotation,
+            boolean largeArcFlag, boolean sweepFlag,
+            double x, double y) throws ParseException {
+
+        double x0 = lastX;
+        double y0 = lastY;
+
+        // see SVG spec, appendix F.6 (endpoint to center parameterization)
+        if (x0 == x && y0 == y) {
+            return;
+        }
+
+        if (rx == 0 || ry == 0) {
+            linetoAbs(x, y);
+            return;
+        }
+
+        rx = Math.abs(rx);
+        ry = Math.abs(ry);
+
+        double phi = Math.toRadians(xAxisRotation % 360.0);
+        double cosPhi = Math.cos(phi);
+        double sinPhi = Math.sin(phi);
+
+        double dx2 = (x0 - x) / 2.0;
+        double dy2 = (y0 - y) / 2.0;
+        double x1p = cosPhi * dx2 + sinPhi * dy2;
+        double y1p = -sinPhi * dx2 + cosPhi * dy2;
+
+        // correct out-of-range radii
+        double lambda = (x1p * x1p) / (rx * rx) + (y1p * y1p) / (ry * ry);
+        if (lambda > 1) {
+            double scale = Math.sqrt(lambda);
+            rx *= scale;
+            ry *= scale;
+        }
+
+        double rxSq = rx * rx;
+        double rySq = ry * ry;
+        double num = rxSq * rySq - rxSq * y1p * y1p - rySq * x1p * x1p;
+        double den = rxSq * y1p * y1p + rySq * x1p * x1p;
+        double coef = (largeArcFlag == sweepFlag ? -1 : 1)
+                * Math.sqrt(Math.max(0, num / den));
+
+        double cxp = coef * rx * y1p / ry;
+        double cyp = -coef * ry * x1p / rx;
+
+        double cx = cosPhi * cxp - sinPhi * cyp + (x0 + x) / 2.0;
+        double cy = sinPhi * cxp + cosPhi * cyp + (y0 + y) / 2.0;
+
+        double ux = (x1p - cxp) / rx;
+        double uy = (y1p - cyp) / ry;
+        double vx = (-x1p - cxp) / rx;
+        double vy = (-y1p - cyp) / ry;
+
+        double theta1 = Math.atan2(uy, ux);
+        double dTheta = Math.atan2(ux * vy - uy * vx, ux * vx + uy * vy);
+
+        if (!sweepFlag && dTheta > 0) {
+            dTheta -= 2 * Math.PI;
+        } else if (sweepFlag && dTheta < 0) {
+            dTheta += 2 * Math.PI;
+        }
+
+        // approximate the arc with cubic segments (at most 90 degrees each)
+        int n = Math.max(1,
+                (int) Math.ceil(Math.abs(dTheta) / (Math.PI / 2) - 1e-12));
+        double delta = dTheta / n;
+        double k = 4.0 / 3.0 * Math.tan(delta / 4);
+
+        for (int i = 0; i < n; i++) {
+            double t1 = theta1 + i * delta;
+            double t2 = t1 + delta;
+            double cos1 = Math.cos(t1), sin1 = Math.sin(t1);
+            double cos2 = Math.cos(t2), sin2 = Math.sin(t2);
+
+            double p1x = cos1 - k * sin1, p1y = sin1 + k * cos1;
+            double p2x = cos2 + k * sin2, p2y = sin2 - k * cos2;
+
+            double endX = i == n - 1 ? x : cx + rx * cosPhi * cos2 - ry * sinPhi * sin2;
+            double endY = i == n - 1 ? y : cy + rx * sinPhi * cos2 + ry * cosPhi * sin2;
+
+            curvetoCubicAbs(
+                    cx + rx * cosPhi * p1x - ry * sinPhi * p1y,
+                    cy + rx * sinPhi * p1x + ry * cosPhi * p1y,
+                    cx + rx * cosPhi * p2x - ry * sinPhi * p2y,
+                    cy + rx * sinPhi * p2x + ry * cosPhi * p2y,
+                    endX, endY);
+        }
+
+        resetKnots();
+    }
+
+    /**
+     * Resets the reflection knots of smooth curve commands to the current
+     * point (used if the previous command is not a curve of the same type).
+     */
+    private void resetKnots() {
+        cubicKnotX = quadKnotX = lastX;
+        cubicKnotY = quadKnotY = lastY;
+    }
+}
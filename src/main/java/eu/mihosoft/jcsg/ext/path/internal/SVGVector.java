@@ -16,6 +16,6 @@ package eu.mihosoft.jcsg.ext.path.internal;
 
 class SVGVector {
 
-    public float x;
-    public float y;
+    public double x;
+    public double y;
 }
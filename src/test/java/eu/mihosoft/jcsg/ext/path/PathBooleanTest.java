@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.ext.path.PathBoolean.Operation;
+import eu.mihosoft.vvecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PathBoolean}.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public class PathBooleanTest {
+
+    private static final double EPS = 1e-6;
+
+    private static List<Vector3d> rect(double x0, double y0, double x1, double y1) {
+        return Arrays.asList(Vector3d.xy(x0, y0), Vector3d.xy(x1, y0),
+                Vector3d.xy(x1, y1), Vector3d.xy(x0, y1));
+    }
+
+    private static List<Vector3d> reversed(List<Vector3d> contour) {
+        List<Vector3d> result = new ArrayList<>(contour);
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static double area(List<List<Vector3d>> contours) {
+        double area = 0;
+        for (List<Vector3d> contour : contours) {
+            area += PathBoolean.signedArea(contour);
+        }
+        return area;
+    }
+
+    private static List<List<Vector3d>> apply(Operation op,
+            List<Vector3d> subject, List<Vector3d> clip) {
+        return PathBoolean.apply(op, Collections.singletonList(subject),
+                Collections.singletonList(clip));
+    }
+
+    @Test
+    public void overlappingRectanglesTest() {
+        List<Vector3d> a = rect(0, 0, 10, 10);
+        List<Vector3d> b = rect(5, 5, 15, 15);
+
+        assertEquals(175, area(apply(Operation.UNION, a, b)), EPS);
+        assertEquals(25, area(apply(Operation.INTERSECTION, a, b)), EPS);
+        assertEquals(75, area(apply(Operation.DIFFERENCE, a, b)), EPS);
+        assertEquals(150, area(apply(Operation.XOR, a, b)), EPS);
+
+        assertEquals(1, apply(Operation.UNION, a, b).size());
+        assertEquals(2, apply(Operation.XOR, a, b).size());
+    }
+
+    @Test
+    public void sharedEdgeTest() {
+        List<Vector3d> a = rect(0, 0, 10, 10);
+        List<Vector3d> b = rect(10, 0, 20, 10);
+
+        List<List<Vector3d>> union = apply(Operation.UNION, a, b);
+        assertEquals(1, union.size());
+        assertEquals(200, area(union), EPS);
+
+        assertEquals(0, area(apply(Operation.INTERSECTION, a, b)), EPS);
+        assertEquals(100, area(apply(Operation.DIFFERENCE, a, b)), EPS);
+    }
+
+    @Test
+    public void collinearEdgesTest() {
+        // bottom and top edges overlap partially
+        List<Vector3d> a = rect(0, 0, 10, 10);
+        List<Vector3d> b = rect(5, 0, 15, 10);
+
+        List<List<Vector3d>> union = apply(Operation.UNION, a, b);
+        assertEquals(1, union.size());
+        assertEquals(150, area(union), EPS);
+
+        assertEquals(50, area(apply(Operation.INTERSECTION, a, b)), EPS);
+        assertEquals(50, area(apply(Operation.DIFFERENCE, a, b)), EPS);
+    }
+
+    @Test
+    public void verticalEdgesTest() {
+        // vertical edges at x = 10 overlap partially
+        List<Vector3d> a = rect(0, 0, 10, 10);
+        List<Vector3d> b = rect(10, 5, 20, 15);
+
+        List<List<Vector3d>> union = apply(Operation.UNION, a, b);
+        assertEquals(1, union.size());
+        assertEquals(200, area(union), EPS);
+
+        // tall thin rectangle crossing two vertical edges
+        List<Vector3d> c = rect(4, -5, 6, 15);
+        assertEquals(20, area(apply(Operation.INTERSECTION, a, c)), EPS);
+        assertEquals(120, area(apply(Operation.UNION, a, c)), EPS);
+    }
+
+    @Test
+    public void holesTest() {
+        List<Vector3d> outer = rect(0, 0, 10, 10);
+        List<Vector3d> inner = rect(3, 3, 7, 7);
+
+        List<List<Vector3d>> difference
+                = apply(Operation.DIFFERENCE, outer, inner);
+        assertEquals(2, difference.size());
+        assertEquals(84, area(difference), EPS);
+
+        List<PathBoolean.Region> regions = PathBoolean.toRegions(difference);
+        assertEquals(1, regions.size());
+        assertEquals(1, regions.get(0).getHoles().size());
+        assertEquals(100, PathBoolean.signedArea(regions.get(0).getOutline()), EPS);
+        assertEquals(-16, PathBoolean.signedArea(
+                regions.get(0).getHoles().get(0)), EPS);
+
+        // subject with hole (outline ccw, hole cw), clip fills part of it
+        List<List<Vector3d>> withHole = Arrays.asList(outer, reversed(inner));
+        List<List<Vector3d>> union = PathBoolean.apply(Operation.UNION,
+                withHole, Collections.singletonList(rect(3, 3, 5, 7)));
+        assertEquals(92, area(union), EPS);
+    }
+
+    @Test
+    public void orientationTest() {
+        // clockwise paths are filled as well
+        List<List<Vector3d>> union = PathBoolean.union(Arrays.asList(
+                reversed(rect(0, 0, 10, 10)), rect(5, 5, 15, 15)));
+        assertEquals(175, area(union), EPS);
+    }
+
+    @Test
+    public void selfIntersectingTest() {
+        // bow tie: left and right lobes have opposite orientation
+        List<Vector3d> bowTie = Arrays.asList(Vector3d.xy(0, 0),
+                Vector3d.xy(10, 10), Vector3d.xy(10, 0), Vector3d.xy(0, 10));
+
+        assertEquals(50, area(PathBoolean.union(
+                Collections.singletonList(bowTie))), EPS);
+
+        // the negative lobe must not cancel the fill of the other path
+        assertEquals(75, area(PathBoolean.union(
+                Arrays.asList(bowTie, rect(0, 0, 5, 10)))), EPS);
+        assertEquals(75, area(PathBoolean.union(
+                Arrays.asList(rect(5, 0, 10, 10), bowTie))), EPS);
+
+        // pentagram: the center has winding number 2 (nonzero: filled)
+        List<Vector3d> star = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            double angle = Math.PI / 2 + i * 4 * Math.PI / 5;
+            star.add(Vector3d.xy(Math.cos(angle), Math.sin(angle)));
+        }
+        List<List<Vector3d>> starUnion
+                = PathBoolean.union(Collections.singletonList(star));
+        assertEquals(1, starUnion.size());
+        assertEquals(10, starUnion.get(0).size());
+    }
+}
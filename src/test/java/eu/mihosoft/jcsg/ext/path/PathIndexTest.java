@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PathIndex}.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public class PathIndexTest {
+
+    @Test
+    public void subpathStartingAtPreviousEndTest() {
+        // the second subpath starts where the first one ends
+        ParsedPath path = ParsedPath.parse(
+                "M0 0 L10 0 L10 10 Z M10 10 L0 10 L0 20 Z");
+
+        assertEquals(2, path.getNumberOfSubpaths());
+        assertEquals(0, path.getSubpathStart(0));
+        assertEquals(2, path.getSubpathStart(1));
+
+        PathIndex index = PathIndex.of(path);
+
+        assertTrue(index.contains(8, 2));
+        assertFalse(index.contains(2, 8));
+        assertTrue(index.contains(2, 12));
+        assertFalse(index.contains(8, 18));
+    }
+
+    @Test
+    public void subpathAfterClosePathTest() {
+        // drawing continues at the start of the closed subpath
+        ParsedPath path = ParsedPath.parse(
+                "M0 0 L10 0 L10 10 Z L0 -10 L10 -10 Z");
+
+        assertEquals(2, path.getNumberOfSubpaths());
+
+        PathIndex index = PathIndex.of(path);
+
+        assertTrue(index.contains(8, 2));
+        assertTrue(index.contains(2, -8));
+        assertFalse(index.contains(2, 8));
+        assertFalse(index.contains(8, -2));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path;
+
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.jcsg.ext.path.internal.ParseException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PathPipeline}.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public class PathPipelineTest {
+
+    private static final int NUM_STAGES = 4;
+
+    /**
+     * Closed polygon with many vertices (slow enough to saturate the
+     * pipeline).
+     */
+    private static final String CIRCLE = circle(2000);
+
+    @Test
+    public void backpressureTest() throws Exception {
+        int numPaths = 24;
+        int[] completedAtSubmit = new int[numPaths];
+        AtomicInteger completed = new AtomicInteger();
+
+        try (PathPipeline pipeline = PathPipeline.newBuilder(1.0, 0.0005, 0)
+                .queueCapacity(1).build()) {
+
+            List<CompletableFuture<CSG>> futures = new ArrayList<>();
+            for (int i = 0; i < numPaths; i++) {
+                CompletableFuture<CSG> future = pipeline.submit(CIRCLE);
+                future.whenComplete((csg, ex) -> completed.incrementAndGet());
+                futures.add(future);
+                completedAtSubmit[i] = completed.get();
+
+                for (PathPipeline.StageStats stats : pipeline.getStats()) {
+                    assertTrue(stats.getQueueDepth() <= 1);
+                }
+            }
+
+            for (CompletableFuture<CSG> future : futures) {
+                assertFalse(future.get(60, TimeUnit.SECONDS).getPolygons().isEmpty());
+            }
+        }
+
+        // each stage holds at most one queued and one processed path, i.e.,
+        // submission blocks until earlier paths have been completed
+        int maxInFlight = NUM_STAGES * 2;
+        for (int i = 0; i < numPaths; i++) {
+            assertTrue("path " + i + " submitted with "
+                    + (i + 1 - completedAtSubmit[i]) + " paths in flight",
+                    i + 1 - completedAtSubmit[i] <= maxInFlight);
+        }
+    }
+
+    @Test
+    public void closeWithPathsInFlightTest() throws Exception {
+        PathPipeline pipeline = PathPipeline.newBuilder(1.0, 0.0005, 0)
+                .queueCapacity(2).build();
+
+        List<CompletableFuture<CSG>> futures = new ArrayList<>();
+        AtomicInteger submitted = new AtomicInteger();
+
+        Thread submitter = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    CompletableFuture<CSG> future = pipeline.submit(CIRCLE);
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                    submitted.incrementAndGet();
+                }
+            } catch (IllegalStateException ex) {
+                // closed
+            }
+        });
+        submitter.start();
+
+        // close while the stages are busy and the submitter is blocked
+        while (submitted.get() < 10) {
+            Thread.sleep(1);
+        }
+        pipeline.close();
+
+        submitter.join(TimeUnit.SECONDS.toMillis(60));
+        assertFalse(submitter.isAlive());
+
+        int failed = 0;
+        synchronized (futures) {
+            assertTrue(futures.size() < 100);
+            for (CompletableFuture<CSG> future : futures) {
+                try {
+                    future.get(60, TimeUnit.SECONDS);
+                } catch (ExecutionException ex) {
+                    failed++;
+                } catch (TimeoutException ex) {
+                    fail("Path not completed after close()");
+                }
+            }
+        }
+        assertTrue(failed > 0);
+
+        try {
+            pipeline.submit(CIRCLE);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void failurePropagationTest() throws Exception {
+        try (PathPipeline pipeline = PathPipeline.newBuilder(1.0, 0.01, 0)
+                .build()) {
+
+            CompletableFuture<CSG> valid = pipeline.submit("M0 0 L10 0 L10 10 Z");
+            CompletableFuture<CSG> invalid = pipeline.submit("M0 0 L10 0 L10");
+            CompletableFuture<CSG> valid2 = pipeline.submit("M0 0 L5 0 L5 5 Z");
+
+            try {
+                invalid.get(60, TimeUnit.SECONDS);
+                fail("Expected ParseException");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof ParseException);
+            }
+
+            // the workers survive failures
+            assertFalse(valid.get(60, TimeUnit.SECONDS).getPolygons().isEmpty());
+            assertFalse(valid2.get(60, TimeUnit.SECONDS).getPolygons().isEmpty());
+
+            assertEquals(1, pipeline.getStats(PathMetrics.Stage.PARSE).getFailed());
+            assertEquals(2, pipeline.getStats(PathMetrics.Stage.EXTRUDE).getProcessed());
+
+            // process() rethrows the failure of a path
+            try {
+                pipeline.process(Arrays.asList("M0 0 L1 0 L1 1 Z", "M0 0 L"));
+                fail("Expected ParseException");
+            } catch (ParseException ex) {
+                // expected
+            }
+        }
+
+        // failure in a later stage (illegal step size)
+        try (PathPipeline pipeline = PathPipeline.newBuilder(1.0, 1.5, 0)
+                .build()) {
+            try {
+                pipeline.submit(CIRCLE).get(60, TimeUnit.SECONDS);
+                fail("Expected IllegalArgumentException");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof IllegalArgumentException);
+            }
+
+            assertEquals(1, pipeline.getStats(PathMetrics.Stage.PARSE).getProcessed());
+            assertEquals(1, pipeline.getStats(PathMetrics.Stage.LINEARIZE).getFailed());
+            assertEquals(0, pipeline.getStats(PathMetrics.Stage.EXTEND).getProcessed());
+        }
+    }
+
+    private static String circle(int numVertices) {
+        StringBuilder sb = new StringBuilder("M100 0");
+        for (int i = 1; i < numVertices; i++) {
+            double angle = 2 * Math.PI * i / numVertices;
+            sb.append(" L").append(100 * Math.cos(angle))
+                    .append(' ').append(100 * Math.sin(angle));
+        }
+        return sb.append(" Z").toString();
+    }
+}
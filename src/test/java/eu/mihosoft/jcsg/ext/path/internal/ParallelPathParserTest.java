@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 Michael Hoffer <info@michaelhoffer.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * If you use this software for scientific research then please cite the following publication(s):
+ *
+ * M. Hoffer, C. Poliwoda, & G. Wittum. (2013). Visual reflection library:
+ * a framework for declarative GUI programming on the Java platform.
+ * Computing and Visualization in Science, 2013, 16(4),
+ * 181–192. http://doi.org/10.1007/s00791-014-0230-y
+ */
+package eu.mihosoft.jcsg.ext.path.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelPathParser}: the result must be identical to the
+ * result of the sequential parser.
+ *
+ * @author Michael Hoffer <info@michaelhoffer.de>
+ */
+public class ParallelPathParserTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Test
+    public void sameSegmentsTest() {
+        String data = randomPath(new Random(42), 40000);
+
+        assertTrue(ParallelPathParser.split(data, 1 << 16).length > 3);
+
+        PathWorkspace sequential = new PathWorkspace().parse(data);
+        PathWorkspace parallel = new PathWorkspace().parseParallel(data, POOL);
+
+        assertSameSegments(sequential, parallel);
+
+        // the final state is the same as well, i.e., relative and smooth
+        // commands continue identically
+        String tail = "s5 5 10 0 t10 0 l1 1 z m1 1 h3";
+        sequential.parse(data + tail);
+        parallel.parseParallel(data + tail, POOL);
+
+        assertSameSegments(sequential, parallel);
+    }
+
+    @Test
+    public void sameErrorTest() {
+        Random random = new Random(7);
+        String data = randomPath(random, 40000);
+        int[] bounds = ParallelPathParser.split(data, 1 << 16);
+
+        String[] errors = {"X", "1e", ".", "L", "A1 1 0 2 0 1 1", ","};
+
+        for (int i = 0; i < 50; i++) {
+            // errors anywhere and right before/after chunk boundaries
+            int pos = i % 2 == 0
+                    ? random.nextInt(data.length())
+                    : bounds[1 + random.nextInt(bounds.length - 2)]
+                    - random.nextInt(2);
+            String invalid = data.substring(0, pos)
+                    + errors[i % errors.length] + data.substring(pos);
+
+            ParseException expected = null;
+            try {
+                new PathWorkspace().parse(invalid);
+            } catch (ParseException ex) {
+                expected = ex;
+            }
+
+            try {
+                new PathWorkspace().parseParallel(invalid, POOL);
+                if (expected != null) {
+                    fail("Expected error: " + expected.getMessage());
+                }
+            } catch (ParseException ex) {
+                if (expected == null) {
+                    fail("Unexpected error: " + ex.getMessage());
+                }
+                assertEquals(expected.getMessage(), ex.getMessage());
+                assertEquals(expected.getColumnNumber(), ex.getColumnNumber());
+            }
+        }
+    }
+
+    private static void assertSameSegments(PathWorkspace expected,
+            PathWorkspace actual) {
+        int numSegments = expected.getNumberOfSegments();
+        assertEquals(numSegments, actual.getNumberOfSegments());
+
+        double[] expectedCoords = expected.getCoords();
+        double[] actualCoords = actual.getCoords();
+        for (int i = 0; i < numSegments; i++) {
+            int degree = expected.getDegree(i);
+            assertEquals(degree, actual.getDegree(i));
+            for (int j = 0; j < 2 * (degree + 1); j++) {
+                int off = i * PathWorkspace.STRIDE + j;
+                assertEquals(Double.doubleToLongBits(expectedCoords[off]),
+                        Double.doubleToLongBits(actualCoords[off]));
+            }
+        }
+
+        assertEquals(expected.getNumberOfSubpaths(),
+                actual.getNumberOfSubpaths());
+        for (int i = 0; i < expected.getNumberOfSubpaths(); i++) {
+            assertEquals(expected.getSubpathStart(i), actual.getSubpathStart(i));
+        }
+    }
+
+    /**
+     * Creates a path with all command types (absolute and relative, implicit
+     * repetitions, compact number syntax).
+     */
+    private static String randomPath(Random random, int numCommands) {
+        StringBuilder sb = new StringBuilder("M0 0");
+        for (int i = 0; i < numCommands; i++) {
+            char command = "MmLlHhVvCcSsQqTtAaZz".charAt(random.nextInt(20));
+            sb.append(command);
+            int repetitions = command == 'Z' || command == 'z'
+                    ? 0 : 1 + random.nextInt(2);
+            for (int r = 0; r < repetitions; r++) {
+                switch (Character.toUpperCase(command)) {
+                    case 'H':
+                    case 'V':
+                        number(random, sb);
+                        break;
+                    case 'C':
+                        numbers(random, sb, 6);
+                        break;
+                    case 'S':
+                    case 'Q':
+                        numbers(random, sb, 4);
+                        break;
+                    case 'A':
+                        numbers(random, sb, 3);
+                        sb.append(' ').append(random.nextInt(2))
+                                .append(random.nextInt(2));
+                        numbers(random, sb, 2);
+                        break;
+                    default:
+                        numbers(random, sb, 2);
+                        break;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void numbers(Random random, StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++) {
+            number(random, sb);
+        }
+    }
+
+    private static void number(Random random, StringBuilder sb) {
+        double value = (random.nextDouble() - 0.5) * 200;
+        switch (random.nextInt(3)) {
+            case 0:
+                sb.append(String.format(Locale.ROOT, " %.3f", value));
+                break;
+            case 1:
+                // compact syntax: the sign separates the numbers
+                sb.append(String.format(Locale.ROOT, "%+.2f", value));
+                break;
+            default:
+                sb.append(String.format(Locale.ROOT, ",%.1e", value));
+                break;
+        }
+    }
+}